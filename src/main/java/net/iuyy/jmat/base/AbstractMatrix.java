@@ -3,9 +3,11 @@ package net.iuyy.jmat.base;
 import net.iuyy.jmat.common.Pattern;
 import net.iuyy.jmat.common.Symbol;
 import net.iuyy.jmat.exception.TypeException;
+import net.iuyy.jmat.jama.util.Parallel;
 import net.iuyy.jmat.matrix.MixMatrix;
 import net.iuyy.jmat.matrix.NumberMatrix;
 import net.iuyy.jmat.matrix.StringMatrix;
+import net.iuyy.jmat.util.Matrices;
 
 /**
  * @author iuyy
@@ -79,35 +81,39 @@ public abstract class AbstractMatrix<E> implements Matrix<E> {
 
     private Matrix getNumberMatrix(Matrix origin, Number obj, String symbol) {
         NumberMatrix result = new NumberMatrix(origin.getRows(), origin.getColumns());
-        for (int i = 0; i < origin.getRows(); i++) {
-            for (int j = 0; j < origin.getColumns(); j++) {
-                Double newValue = null;
-                if (symbol.equals(Symbol.ADDITION)) {
-                    newValue = origin.getDouble(i, j) + obj.doubleValue();
-                } else if (symbol.equals(Symbol.SUBTRACTION)) {
-                    newValue = origin.getDouble(i, j) - obj.doubleValue();
-                } else if (symbol.equals(Symbol.MULTIPLICATION)) {
-                    newValue = origin.getDouble(i, j) * obj.doubleValue();
-                } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
-                    newValue = origin.getDouble(i, j) / obj.doubleValue();
-                } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
-                    newValue = obj.doubleValue() / origin.getDouble(i, j);
+        Parallel.forRows(origin.getRows(), origin.getColumns(), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < origin.getColumns(); j++) {
+                    Double newValue = null;
+                    if (symbol.equals(Symbol.ADDITION)) {
+                        newValue = origin.getDouble(i, j) + obj.doubleValue();
+                    } else if (symbol.equals(Symbol.SUBTRACTION)) {
+                        newValue = origin.getDouble(i, j) - obj.doubleValue();
+                    } else if (symbol.equals(Symbol.MULTIPLICATION)) {
+                        newValue = origin.getDouble(i, j) * obj.doubleValue();
+                    } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
+                        newValue = origin.getDouble(i, j) / obj.doubleValue();
+                    } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
+                        newValue = obj.doubleValue() / origin.getDouble(i, j);
+                    }
+                    result.set(i, j, newValue);
                 }
-                result.set(i, j, newValue);
             }
-        }
+        });
         return result;
     }
 
     private Matrix getStringMatrix(Matrix origin, String obj) {
         StringMatrix result = new StringMatrix(origin.getRows(), origin.getColumns());
         // 拼接字符串
-        for (int i = 0; i < origin.getRows(); i++) {
-            for (int j = 0; j < origin.getColumns(); j++) {
-                String newValue = origin.get(i, j) + obj;
-                result.set(i, j, newValue);
+        Parallel.forRows(origin.getRows(), origin.getColumns(), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < origin.getColumns(); j++) {
+                    String newValue = origin.get(i, j) + obj;
+                    result.set(i, j, newValue);
+                }
             }
-        }
+        });
         return result;
     }
 
@@ -115,32 +121,34 @@ public abstract class AbstractMatrix<E> implements Matrix<E> {
         int r = Math.max(origin.getRows(), target.getRows());
         int c = Math.max(origin.getColumns(), target.getColumns());
         Matrix<Object> result = new MixMatrix<>(r, c);
-        for (int i = 0; i < r; i++) {
-            for (int j = 0; j < c; j++) {
-                int cIndex1 = j >= origin.getColumns() ? 0 : j;
-                int rIndex1 = i >= origin.getRows() ? 0 : i;
-                Double aValue = origin.getDouble(rIndex1, cIndex1);
-
-                int rIndex2 = target.getRows() == 1 ? 0 : i;
-                int cIndex2 = target.getColumns() == 1 ? 0 : j;
-                Double bValue = target.getDouble(rIndex2, cIndex2);
-
-                Double newValue = null;
-                if (symbol.equals(Symbol.ADDITION)) {
-                    newValue = aValue + bValue;
-                } else if (symbol.equals(Symbol.SUBTRACTION)) {
-                    newValue = aValue - bValue;
-                } else if (symbol.equals(Symbol.MULTIPLICATION)) {
-                    newValue = aValue * bValue;
-                } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
-                    newValue = aValue / bValue;
-                } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
-                    newValue = bValue / aValue;
+        Parallel.forRows(r, c, (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < c; j++) {
+                    int cIndex1 = j >= origin.getColumns() ? 0 : j;
+                    int rIndex1 = i >= origin.getRows() ? 0 : i;
+                    Double aValue = origin.getDouble(rIndex1, cIndex1);
+
+                    int rIndex2 = target.getRows() == 1 ? 0 : i;
+                    int cIndex2 = target.getColumns() == 1 ? 0 : j;
+                    Double bValue = target.getDouble(rIndex2, cIndex2);
+
+                    Double newValue = null;
+                    if (symbol.equals(Symbol.ADDITION)) {
+                        newValue = aValue + bValue;
+                    } else if (symbol.equals(Symbol.SUBTRACTION)) {
+                        newValue = aValue - bValue;
+                    } else if (symbol.equals(Symbol.MULTIPLICATION)) {
+                        newValue = aValue * bValue;
+                    } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
+                        newValue = aValue / bValue;
+                    } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
+                        newValue = bValue / aValue;
+                    }
+
+                    result.set(i, j, newValue);
                 }
-
-                result.set(i, j, newValue);
             }
-        }
+        });
         return result;
     }
 
@@ -255,19 +263,7 @@ public abstract class AbstractMatrix<E> implements Matrix<E> {
      */
     @Override
     public Matrix mTimes(Matrix matrix){
-        NumberMatrix newMatrix = new NumberMatrix(this.rows, matrix.getColumns());
-        for (int rowIndex = 0; rowIndex < this.rows; rowIndex++) {
-            for (int columnIndex = 0; columnIndex < matrix.getColumns(); columnIndex++) {
-                double product = 0;
-                for (int i = 0; i < matrix.getRows(); i++) {
-                    double aCell = this.getDouble(rowIndex, i);
-                    double bCell = matrix.getDouble(i, columnIndex);
-                    product += (aCell * bCell);
-                }
-                newMatrix.set(rowIndex, columnIndex, product);
-            }
-        }
-        return newMatrix;
+        return Matrices.mTimes(this, matrix);
     }
 
     /**
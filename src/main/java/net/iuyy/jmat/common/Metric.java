@@ -0,0 +1,17 @@
+package net.iuyy.jmat.common;
+
+/**
+ * @author iuyy
+ * @version v1.0
+ * @corporation Copyright by iuyy.net
+ * @date 2026-10-18 10:20
+ * @description 距离度量名称，与 MATLAB pdist2 一致
+ */
+public final class Metric {
+
+    private Metric(){}
+
+    public static final String EUCLIDEAN = "euclidean";
+    public static final String SQUARED_EUCLIDEAN = "squaredeuclidean";
+    public static final String COSINE = "cosine";
+}
@@ -1,5 +1,7 @@
 package net.iuyy.jmat.jama;
 
+import net.iuyy.jmat.jama.util.MixedPrecision;
+
    /** Cholesky Decomposition.
    <P>
    For a symmetric, positive definite matrix A, the Cholesky decomposition
@@ -8,6 +10,13 @@ package net.iuyy.jmat.jama;
    If the matrix is not symmetric or positive definite, the constructor
    returns a partial decomposition and sets an internal flag that may
    be queried by the isSPD() method.
+   <P>
+   When constructed with mixed precision, the factor is computed in single
+   precision and solve() refines the float solution to double accuracy,
+   see {@link MixedPrecision}.  The double factor is computed only if
+   refinement fails or L is requested.  It is computed once, under a lock,
+   so the decomposition may be shared by threads like one factored in
+   double.
    */
 
 public class CholeskyDecomposition implements java.io.Serializable {
@@ -31,6 +40,12 @@ public class CholeskyDecomposition implements java.io.Serializable {
    */
    private boolean isspd;
 
+   /** Float factor and a copy of A in mixed precision mode, until the
+       double factor is needed.
+   @serial float factor and copy of A.
+   */
+   private volatile Refinement mixed;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -41,34 +56,25 @@ public class CholeskyDecomposition implements java.io.Serializable {
    */
 
    public CholeskyDecomposition (Matrix Arg) {
+      this(Arg, false);
+   }
 
+   /** Cholesky algorithm, optionally in mixed precision.
+   @param  Arg             Square, symmetric matrix.
+   @param  mixedPrecision  Factor in float and refine solutions.
+   */
 
-     // Initialize.
-      double[][] A = Arg.getArray();
+   public CholeskyDecomposition (Matrix Arg, boolean mixedPrecision) {
       n = Arg.getRowDimension();
-      L = new double[n][n];
-      isspd = (Arg.getColumnDimension() == n);
-      // Main loop.
-      for (int j = 0; j < n; j++) {
-         double[] Lrowj = L[j];
-         double d = 0.0;
-         for (int k = 0; k < j; k++) {
-            double[] Lrowk = L[k];
-            double s = 0.0;
-            for (int i = 0; i < k; i++) {
-               s += Lrowk[i]*Lrowj[i];
-            }
-            Lrowj[k] = s = (A[j][k] - s)/L[k][k];
-            d = d + s*s;
-            isspd = isspd & (A[k][j] == A[j][k]); 
-         }
-         d = A[j][j] - d;
-         isspd = isspd & (d > 0.0);
-         L[j][j] = Math.sqrt(Math.max(d,0.0));
-         for (int k = j+1; k < n; k++) {
-            L[j][k] = 0.0;
+      if (mixedPrecision && Arg.getColumnDimension() == n) {
+         MixedPrecision.Cholesky F = MixedPrecision.Cholesky.factor(Arg.getArray(), n);
+         if (F != null) {
+            isspd = true;
+            mixed = new Refinement(F, Arg.getArrayCopy());
+            return;
          }
       }
+      factor(Arg.getArray(), Arg.getColumnDimension() == n);
    }
 
 /* ------------------------
@@ -138,11 +144,13 @@ public class CholeskyDecomposition implements java.io.Serializable {
  * ------------------------ */
 
    /** Is the matrix symmetric and positive definite?
+   In mixed precision mode, true while the float factor is in use, since
+   A was found symmetric and positive definite in float.
    @return     true if A is symmetric and positive definite.
    */
 
    public boolean isSPD () {
-      return isspd;
+      return mixed != null || isspd;
    }
 
    /** Return triangular factor.
@@ -150,6 +158,7 @@ public class CholeskyDecomposition implements java.io.Serializable {
    */
 
    public Matrix getL () {
+      ensureFactors();
       return new Matrix(L,n,n);
    }
 
@@ -164,6 +173,15 @@ public class CholeskyDecomposition implements java.io.Serializable {
       if (B.getRowDimension() != n) {
          throw new IllegalArgumentException("Matrix row dimensions must agree.");
       }
+      Refinement r = mixed;
+      if (r != null) {
+         int nx = B.getColumnDimension();
+         double[][] X = MixedPrecision.solve(r.A, B.getArray(), n, nx, r.factor);
+         if (X != null) {
+            return new Matrix(X, n, nx);
+         }
+         ensureFactors();
+      }
       if (!isspd) {
          throw new RuntimeException("Matrix is not symmetric positive definite.");
       }
@@ -195,6 +213,70 @@ public class CholeskyDecomposition implements java.io.Serializable {
       
       return new Matrix(X,n,nx);
    }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Factor A in double precision. **/
+
+   private void factor (double[][] A, boolean square) {
+
+     // Initialize.
+      L = new double[n][n];
+      isspd = square;
+      // Main loop.
+      for (int j = 0; j < n; j++) {
+         double[] Lrowj = L[j];
+         double d = 0.0;
+         for (int k = 0; k < j; k++) {
+            double[] Lrowk = L[k];
+            double s = 0.0;
+            for (int i = 0; i < k; i++) {
+               s += Lrowk[i]*Lrowj[i];
+            }
+            Lrowj[k] = s = (A[j][k] - s)/L[k][k];
+            d = d + s*s;
+            isspd = isspd & (A[k][j] == A[j][k]); 
+         }
+         d = A[j][j] - d;
+         isspd = isspd & (d > 0.0);
+         L[j][j] = Math.sqrt(Math.max(d,0.0));
+         for (int k = j+1; k < n; k++) {
+            L[j][k] = 0.0;
+         }
+      }
+   }
+
+   /** Replace the float factor by the double factor.  The copy of A is
+       only read, and the float factor is retired by the volatile write
+       once the double factor is complete. **/
+
+   private void ensureFactors () {
+      if (mixed != null) {
+         synchronized (this) {
+            Refinement r = mixed;
+            if (r != null) {
+               factor(r.A, true);
+               mixed = null;
+            }
+         }
+      }
+   }
+
+   /** Float factor together with the copy of A it refines against. **/
+
+   private static final class Refinement implements java.io.Serializable {
+      final MixedPrecision.Cholesky factor;
+      final double[][] A;
+
+      Refinement (MixedPrecision.Cholesky factor, double[][] A) {
+         this.factor = factor;
+         this.A = A;
+      }
+
+      private static final long serialVersionUID = 1;
+   }
   private static final long serialVersionUID = 1;
 
 }
@@ -0,0 +1,210 @@
+package net.iuyy.jmat.jama;
+
+import net.iuyy.jmat.jama.util.*;
+
+   /** Complex matrix, as the result and input of Fourier transforms.
+   <P>
+   Real and imaginary parts are kept in two separate m-by-n arrays, the
+   layout the {@link FFT} kernels work on, and are exposed as Matrix
+   objects sharing those arrays.
+   */
+
+public class ComplexMatrix implements java.io.Serializable {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Arrays for the real and imaginary parts.
+   @serial real parts.
+   @serial imaginary parts.
+   */
+   private double[][] re, im;
+
+   /** Row and column dimensions.
+   @serial row dimension.
+   @serial column dimension.
+   */
+   private int rows, columns;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+   /** Construct an m-by-n complex matrix of zeros.
+   @param rows     Number of rows.
+   @param columns  Number of columns.
+   */
+
+   public ComplexMatrix (int rows, int columns) {
+      this(new double[rows][columns], new double[rows][columns], rows, columns);
+   }
+
+   /** Construct a complex matrix from its parts, without copying.
+   @param re       Real parts.
+   @param im       Imaginary parts, of the same shape.
+   @exception      IllegalArgumentException Matrix dimensions must agree.
+   */
+
+   public ComplexMatrix (Matrix re, Matrix im) {
+      this(re.getArray(), im.getArray(), re.getRowDimension(), re.getColumnDimension());
+      if (im.getRowDimension() != rows || im.getColumnDimension() != columns) {
+         throw new IllegalArgumentException("Matrix dimensions must agree.");
+      }
+   }
+
+   /** Construct a complex matrix quickly without checking arguments.
+   @param re       Real parts.
+   @param im       Imaginary parts.
+   @param rows     Number of rows.
+   @param columns  Number of columns.
+   */
+
+   public ComplexMatrix (double[][] re, double[][] im, int rows, int columns) {
+      this.re = re;
+      this.im = im;
+      this.rows = rows;
+      this.columns = columns;
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Get row dimension.
+   @return     m, the number of rows.
+   */
+
+   public int getRowDimension () {
+      return rows;
+   }
+
+   /** Get column dimension.
+   @return     n, the number of columns.
+   */
+
+   public int getColumnDimension () {
+      return columns;
+   }
+
+   /** Real part.
+   @return     real(A), sharing the array of A.
+   */
+
+   public Matrix getReal () {
+      return new Matrix(re, rows, columns);
+   }
+
+   /** Imaginary part.
+   @return     imag(A), sharing the array of A.
+   */
+
+   public Matrix getImaginary () {
+      return new Matrix(im, rows, columns);
+   }
+
+   /** Get the real part of a single element.
+   @param i    Row index.
+   @param j    Column index.
+   @return     real(A(i,j))
+   */
+
+   public double getRe (int i, int j) {
+      return re[i][j];
+   }
+
+   /** Get the imaginary part of a single element.
+   @param i    Row index.
+   @param j    Column index.
+   @return     imag(A(i,j))
+   */
+
+   public double getIm (int i, int j) {
+      return im[i][j];
+   }
+
+   /** Set a single element.
+   @param i    Row index.
+   @param j    Column index.
+   @param r    real(A(i,j)).
+   @param s    imag(A(i,j)).
+   */
+
+   public void set (int i, int j, double r, double s) {
+      re[i][j] = r;
+      im[i][j] = s;
+   }
+
+   /** Make a deep copy.
+   @return     copy of A.
+   */
+
+   public ComplexMatrix copy () {
+      return new ComplexMatrix(getReal().getArrayCopy(), getImaginary().getArrayCopy(), rows, columns);
+   }
+
+   /** Element-by-element magnitude.
+   @return     abs(A)
+   */
+
+   public Matrix abs () {
+      Matrix X = new Matrix(rows,columns);
+      double[][] C = X.getArray();
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            for (int j = 0; j < columns; j++) {
+               C[i][j] = Maths.hypot(re[i][j], im[i][j]);
+            }
+         }
+      });
+      return X;
+   }
+
+   /** Discrete Fourier transform along a dimension.
+   @param dim  1 to transform each column, 2 each row.
+   @return     fft(A,[],dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public ComplexMatrix fft (int dim) {
+      ComplexMatrix X = copy();
+      FFT.transform(X.re, X.im, rows, columns, dim, false);
+      return X;
+   }
+
+   /** Inverse discrete Fourier transform along a dimension.
+   @param dim  1 to transform each column, 2 each row.
+   @return     ifft(A,[],dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public ComplexMatrix ifft (int dim) {
+      ComplexMatrix X = copy();
+      FFT.transform(X.re, X.im, rows, columns, dim, true);
+      return X;
+   }
+
+   /** Two-dimensional discrete Fourier transform.
+   @return     fft2(A)
+   */
+
+   public ComplexMatrix fft2 () {
+      ComplexMatrix X = copy();
+      FFT.transform(X.re, X.im, rows, columns, 2, false);
+      FFT.transform(X.re, X.im, rows, columns, 1, false);
+      return X;
+   }
+
+   /** Two-dimensional inverse discrete Fourier transform.
+   @return     ifft2(A)
+   */
+
+   public ComplexMatrix ifft2 () {
+      ComplexMatrix X = copy();
+      FFT.transform(X.re, X.im, rows, columns, 1, true);
+      FFT.transform(X.re, X.im, rows, columns, 2, true);
+      return X;
+   }
+
+  private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,320 @@
+package net.iuyy.jmat.jama;
+
+import java.util.Arrays;
+
+   /** Precompiled index vector for gathering and scattering.
+   <P>
+   Building a plan scans the indices once and records their structure:
+   the maximal runs of consecutive indices, whether all indices are evenly
+   spaced with a fixed step, whether they are sorted, and their range.
+   Copies through the plan then check bounds once against the range
+   instead of on every element, copy long runs with System.arraycopy, and
+   walk evenly spaced indices by a stride without reading the index array.
+   <P>
+   A plan does not depend on the matrix it is applied to, so one plan can
+   be reused for every call that selects the same rows or columns.
+   <P>
+   Scattering through a plan with repeated indices stores the elements in
+   index order, so the last one wins, as with a plain loop.
+   */
+
+public class IndexPlan implements java.io.Serializable {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Runs shorter than this on average are copied element by element. **/
+   private static final int RUN = 4;
+
+   /** Indices.
+   @serial copy of the index vector.
+   */
+   private final int[] index;
+
+   /** Runs of consecutive indices: run k copies length[k] elements
+   starting at index start[k] to or from position offset[k].
+   @serial run starts.
+   @serial run positions.
+   @serial run lengths.
+   */
+   private final int[] start, offset, length;
+
+   /** Common difference of the indices, or 0 if they are not evenly spaced.
+   @serial step.
+   */
+   private final int step;
+
+   /** Are the indices nondecreasing?
+   @serial sorted flag.
+   */
+   private final boolean sorted;
+
+   /** Are the indices all different?
+   @serial distinct flag.
+   */
+   private final boolean distinct;
+
+   /** Smallest and largest index, 0 and -1 if there are none.
+   @serial minimum.
+   @serial maximum.
+   */
+   private final int min, max;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+   /** Plan for an index vector.
+   @param index    Indices, copied.
+   */
+
+   public IndexPlan (int[] index) {
+      this.index = index.clone();
+      int n = index.length;
+      int runs = 0, lo = n > 0 ? index[0] : 0, hi = n > 0 ? index[0] : -1;
+      boolean up = true;
+      int d = n > 1 ? index[1] - index[0] : 1;
+      boolean even = d != 0;
+      for (int k = 0; k < n; k++) {
+         lo = Math.min(lo, index[k]);
+         hi = Math.max(hi, index[k]);
+         if (k == 0 || index[k] != index[k-1] + 1) {
+            runs++;
+         }
+         if (k > 0) {
+            up &= index[k] >= index[k-1];
+            even &= index[k] - index[k-1] == d;
+         }
+      }
+      start = new int[runs];
+      offset = new int[runs];
+      length = new int[runs];
+      for (int k = 0, r = -1; k < n; k++) {
+         if (k == 0 || index[k] != index[k-1] + 1) {
+            r++;
+            start[r] = index[k];
+            offset[r] = k;
+         }
+         length[r]++;
+      }
+      step = even ? d : 0;
+      sorted = up;
+      int[] order = up ? index : this.index.clone();
+      if (!up) {
+         Arrays.sort(order);
+      }
+      boolean different = true;
+      for (int k = 1; k < n && different; k++) {
+         different = order[k] != order[k-1];
+      }
+      distinct = different;
+      min = lo;
+      max = hi;
+   }
+
+   /** Plan for the indices i0, i0+1, ..., i1.
+   @param i0   Initial index.
+   @param i1   Final index.
+   @return     plan with a single run.
+   */
+
+   public static IndexPlan range (int i0, int i1) {
+      return range(i0, i1, 1);
+   }
+
+   /** Plan for the indices i0, i0+s, ..., up to i1.
+   @param i0   Initial index.
+   @param i1   Final index, included if i1-i0 is a multiple of s.
+   @param s    Step, positive or negative.
+   @return     plan with a fixed step.
+   @exception  IllegalArgumentException Step must not be zero.
+   */
+
+   public static IndexPlan range (int i0, int i1, int s) {
+      if (s == 0) {
+         throw new IllegalArgumentException("Step must not be zero.");
+      }
+      int n = Math.max(0, (i1 - i0) / s + 1);
+      int[] index = new int[n];
+      for (int k = 0; k < n; k++) {
+         index[k] = i0 + k*s;
+      }
+      return new IndexPlan(index);
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Number of indices.
+   @return     length of the index vector.
+   */
+
+   public int size () {
+      return index.length;
+   }
+
+   /** Get an index.
+   @param k    Position.
+   @return     index k.
+   */
+
+   public int get (int k) {
+      return index[k];
+   }
+
+   /** Copy the indices.
+   @return     new index vector.
+   */
+
+   public int[] getIndexCopy () {
+      return index.clone();
+   }
+
+   /** Number of runs of consecutive indices.
+   @return     1 for a contiguous range.
+   */
+
+   public int getRunCount () {
+      return start.length;
+   }
+
+   /** Common difference of evenly spaced indices.
+   @return     the step, or 0 if the indices are not evenly spaced.
+   */
+
+   public int getStep () {
+      return step;
+   }
+
+   /** Are the indices nondecreasing?
+   @return     true if sorted.
+   */
+
+   public boolean isSorted () {
+      return sorted;
+   }
+
+   /** Are the indices all different?
+   Scattering with distinct indices may write rows in any order.
+   @return     true if no index repeats.
+   */
+
+   public boolean isDistinct () {
+      return distinct;
+   }
+
+   /** Smallest index.
+   @return     minimum, or 0 for an empty plan.
+   */
+
+   public int getMin () {
+      return min;
+   }
+
+   /** Largest index.
+   @return     maximum, or -1 for an empty plan.
+   */
+
+   public int getMax () {
+      return max;
+   }
+
+   /** Check that all indices address an array of length n.
+   @param n    Length.
+   @exception  ArrayIndexOutOfBoundsException Submatrix indices
+   */
+
+   public void check (int n) {
+      if (min < 0 || max >= n) {
+         throw new ArrayIndexOutOfBoundsException("Submatrix indices");
+      }
+   }
+
+   /** Gather y(yo+k) = x(index(k)).
+   @param x    Source, already checked.
+   @param y    Destination.
+   @param yo   Offset of y.
+   */
+
+   public void gather (double[] x, double[] y, int yo) {
+      int n = index.length;
+      if (start.length * RUN <= n) {
+         for (int r = 0; r < start.length; r++) {
+            System.arraycopy(x, start[r], y, yo + offset[r], length[r]);
+         }
+      } else if (step != 0) {
+         for (int k = 0, i = index[0]; k < n; k++, i += step) {
+            y[yo+k] = x[i];
+         }
+      } else {
+         for (int k = 0; k < n; k++) {
+            y[yo+k] = x[index[k]];
+         }
+      }
+   }
+
+   /** Scatter y(index(k)) = x(xo+k).
+   @param x    Source.
+   @param xo   Offset of x.
+   @param y    Destination, already checked.
+   */
+
+   public void scatter (double[] x, int xo, double[] y) {
+      int n = index.length;
+      if (start.length * RUN <= n) {
+         for (int r = 0; r < start.length; r++) {
+            System.arraycopy(x, xo + offset[r], y, start[r], length[r]);
+         }
+      } else if (step != 0) {
+         for (int k = 0, i = index[0]; k < n; k++, i += step) {
+            y[i] = x[xo+k];
+         }
+      } else {
+         for (int k = 0; k < n; k++) {
+            y[index[k]] = x[xo+k];
+         }
+      }
+   }
+
+   /** Gather y(yo+k) = x(index(k)) for object arrays.
+   @param x    Source, already checked.
+   @param y    Destination.
+   @param yo   Offset of y.
+   */
+
+   public void gather (Object[] x, Object[] y, int yo) {
+      int n = index.length;
+      if (start.length * RUN <= n) {
+         for (int r = 0; r < start.length; r++) {
+            System.arraycopy(x, start[r], y, yo + offset[r], length[r]);
+         }
+      } else {
+         for (int k = 0; k < n; k++) {
+            y[yo+k] = x[index[k]];
+         }
+      }
+   }
+
+   /** Scatter y(index(k)) = x(xo+k) for object arrays.
+   @param x    Source.
+   @param xo   Offset of x.
+   @param y    Destination, already checked.
+   */
+
+   public void scatter (Object[] x, int xo, Object[] y) {
+      int n = index.length;
+      if (start.length * RUN <= n) {
+         for (int r = 0; r < start.length; r++) {
+            System.arraycopy(x, xo + offset[r], y, start[r], length[r]);
+         }
+      } else {
+         for (int k = 0; k < n; k++) {
+            y[index[k]] = x[xo+k];
+         }
+      }
+   }
+
+  private static final long serialVersionUID = 1;
+}
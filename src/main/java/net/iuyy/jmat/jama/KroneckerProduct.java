@@ -0,0 +1,132 @@
+package net.iuyy.jmat.jama;
+
+import net.iuyy.jmat.jama.util.*;
+
+   /** Kronecker product kron(A,B) kept as its two factors.
+   <P>
+   For an m-by-n A and a p-by-q B the product is mp-by-nq, so forming it
+   costs the product of the sizes of the factors in memory.  This operator
+   stores only A and B and applies kron(A,B) to a vector through
+   <PRE>
+      kron(A,B) * vec(X) = vec(B * X * A')
+   </PRE>
+   where vec stacks the columns of the q-by-n matrix X.  For square A and B
+   the inverse is kron(inv(A),inv(B)), so systems are solved with the LU
+   factors of the two factors, computed once on first use.
+   */
+
+public class KroneckerProduct implements java.io.Serializable {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Factors.
+   @serial left factor A.
+   @serial right factor B.
+   */
+   private Matrix A, B;
+
+   /** LU factors of A and B, created by the first solve and published
+       together, so a concurrent solve sees both or neither. **/
+   private transient volatile LUDecomposition[] lu;
+
+/* ------------------------
+   Constructor
+ * ------------------------ */
+
+   /** Kronecker product of two matrices, without forming it.
+   @param A    Left factor.
+   @param B    Right factor.
+   */
+
+   public KroneckerProduct (Matrix A, Matrix B) {
+      this.A = A;
+      this.B = B;
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Get row dimension.
+   @return     m*p, the number of rows of kron(A,B).
+   */
+
+   public int getRowDimension () {
+      return A.getRowDimension() * B.getRowDimension();
+   }
+
+   /** Get column dimension.
+   @return     n*q, the number of columns of kron(A,B).
+   */
+
+   public int getColumnDimension () {
+      return A.getColumnDimension() * B.getColumnDimension();
+   }
+
+   /** Form kron(A,B).
+   @return     mp-by-nq matrix
+   */
+
+   public Matrix toMatrix () {
+      return A.kron(B);
+   }
+
+   /** Matrix-vector multiplication, kron(A,B) * x
+   @param x    vector of length n*q
+   @return     new vector of length m*p
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public double[] times (double[] x) {
+      if (x.length != getColumnDimension()) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      return Kronecker.multiply(A.getArray(), B.getArray(), x,
+            A.getRowDimension(), A.getColumnDimension(), B.getRowDimension(), B.getColumnDimension());
+   }
+
+   /** Solve kron(A,B) * x = b for square A and B.
+   <P>
+   With b = vec(R), x = vec(inv(B) * R * inv(A)'), which is solved as
+   Z = A \ R' followed by X = B \ Z' on the factors alone.
+   @param b    right hand side of length m*p
+   @return     solution x
+   @exception  IllegalArgumentException Matrix must be square.
+   @exception  IllegalArgumentException Matrix row dimensions must agree.
+   @exception  RuntimeException  Matrix is singular.
+   */
+
+   public double[] solve (double[] b) {
+      int n = A.getRowDimension(), q = B.getRowDimension();
+      if (n != A.getColumnDimension() || q != B.getColumnDimension()) {
+         throw new IllegalArgumentException("Matrix must be square.");
+      }
+      if (b.length != n*q) {
+         throw new IllegalArgumentException("Matrix row dimensions must agree.");
+      }
+      LUDecomposition[] f = lu;
+      if (f == null) {
+         f = new LUDecomposition[] {new LUDecomposition(A), new LUDecomposition(B)};
+         lu = f;
+      }
+
+      // R' is n-by-q with row c holding column c of R.
+      double[][] Rt = new double[n][q];
+      for (int c = 0; c < n; c++) {
+         System.arraycopy(b, c*q, Rt[c], 0, q);
+      }
+      Matrix Z = f[0].solve(new Matrix(Rt, n, q));
+      double[][] X = f[1].solve(Z.transpose()).getArray();
+      double[] x = new double[n*q];
+      for (int r = 0; r < q; r++) {
+         for (int c = 0; c < n; c++) {
+            x[c*q + r] = X[r][c];
+         }
+      }
+      return x;
+   }
+
+  private static final long serialVersionUID = 1;
+}
@@ -1,5 +1,7 @@
 package net.iuyy.jmat.jama;
 
+import net.iuyy.jmat.jama.util.*;
+
    /** LU Decomposition.
    <P>
    For an m-by-n matrix A with m >= n, the LU decomposition is an m-by-n
@@ -11,6 +13,13 @@ package net.iuyy.jmat.jama;
    singular, so the constructor will never fail.  The primary use of the
    LU decomposition is in the solution of square systems of simultaneous
    linear equations.  This will fail if isNonsingular() returns false.
+   <P>
+   When constructed with mixed precision, a square matrix is factored in
+   single precision and solve() refines the float solution to double
+   accuracy, see {@link MixedPrecision}.  The double factorization is
+   computed only if refinement fails or one of L, U, piv or det is
+   requested.  It is computed once, under a lock, from a copy of A, so the
+   decomposition may be shared by threads like one factored in double.
    */
 
 public class LUDecomposition implements java.io.Serializable {
@@ -36,6 +45,18 @@ public class LUDecomposition implements java.io.Serializable {
    */
    private int[] piv;
 
+   /** Columns per panel of the blocked factorization. **/
+   private static final int NB = 64;
+
+   /** Columns per parallel chunk of the block row solve. **/
+   private static final int TRSM = 512;
+
+   /** Float factors and a copy of A in mixed precision mode, until the
+       double factorization is needed.
+   @serial float factors and copy of A.
+   */
+   private volatile Refinement mixed;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -46,70 +67,25 @@ public class LUDecomposition implements java.io.Serializable {
    */
 
    public LUDecomposition (Matrix A) {
+      this(A, false);
+   }
 
-   // Use a "left-looking", dot-product, Crout/Doolittle algorithm.
+   /** LU Decomposition, optionally in mixed precision.
+   @param  A               Rectangular matrix
+   @param  mixedPrecision  Factor a square A in float and refine solutions.
+   */
 
-      LU = A.getArrayCopy();
+   public LUDecomposition (Matrix A, boolean mixedPrecision) {
       m = A.getRowDimension();
       n = A.getColumnDimension();
-      piv = new int[m];
-      for (int i = 0; i < m; i++) {
-         piv[i] = i;
-      }
-      pivsign = 1;
-      double[] LUrowi;
-      double[] LUcolj = new double[m];
-
-      // Outer loop.
-
-      for (int j = 0; j < n; j++) {
-
-         // Make a copy of the j-th column to localize references.
-
-         for (int i = 0; i < m; i++) {
-            LUcolj[i] = LU[i][j];
-         }
-
-         // Apply previous transformations.
-
-         for (int i = 0; i < m; i++) {
-            LUrowi = LU[i];
-
-            // Most of the time is spent in the following dot product.
-
-            int kmax = Math.min(i,j);
-            double s = 0.0;
-            for (int k = 0; k < kmax; k++) {
-               s += LUrowi[k]*LUcolj[k];
-            }
-
-            LUrowi[j] = LUcolj[i] -= s;
-         }
-   
-         // Find pivot and exchange if necessary.
-
-         int p = j;
-         for (int i = j+1; i < m; i++) {
-            if (Math.abs(LUcolj[i]) > Math.abs(LUcolj[p])) {
-               p = i;
-            }
-         }
-         if (p != j) {
-            for (int k = 0; k < n; k++) {
-               double t = LU[p][k]; LU[p][k] = LU[j][k]; LU[j][k] = t;
-            }
-            int k = piv[p]; piv[p] = piv[j]; piv[j] = k;
-            pivsign = -pivsign;
-         }
-
-         // Compute multipliers.
-         
-         if (j < m & LU[j][j] != 0.0) {
-            for (int i = j+1; i < m; i++) {
-               LU[i][j] /= LU[j][j];
-            }
+      if (mixedPrecision && m == n) {
+         MixedPrecision.LU F = MixedPrecision.LU.factor(A.getArray(), n);
+         if (F != null) {
+            mixed = new Refinement(F, A.getArrayCopy());
+            return;
          }
       }
+      factor(A.getArrayCopy());
    }
 
 /* ------------------------
@@ -176,10 +152,16 @@ public class LUDecomposition implements java.io.Serializable {
  * ------------------------ */
 
    /** Is the matrix nonsingular?
+   In mixed precision mode, the pivots of the float factors are tested
+   while they are in use.
    @return     true if U, and hence A, is nonsingular.
    */
 
    public boolean isNonsingular () {
+      Refinement r = mixed;
+      if (r != null) {
+         return r.factor.isNonsingular();
+      }
       for (int j = 0; j < n; j++) {
          if (LU[j][j] == 0) {
             return false;
@@ -193,6 +175,7 @@ public class LUDecomposition implements java.io.Serializable {
    */
 
    public Matrix getL () {
+      ensureFactors();
       Matrix X = new Matrix(m,n);
       double[][] L = X.getArray();
       for (int i = 0; i < m; i++) {
@@ -214,6 +197,7 @@ public class LUDecomposition implements java.io.Serializable {
    */
 
    public Matrix getU () {
+      ensureFactors();
       Matrix X = new Matrix(n,n);
       double[][] U = X.getArray();
       for (int i = 0; i < n; i++) {
@@ -233,6 +217,7 @@ public class LUDecomposition implements java.io.Serializable {
    */
 
    public int[] getPivot () {
+      ensureFactors();
       int[] p = new int[m];
       for (int i = 0; i < m; i++) {
          p[i] = piv[i];
@@ -245,6 +230,7 @@ public class LUDecomposition implements java.io.Serializable {
    */
 
    public double[] getDoublePivot () {
+      ensureFactors();
       double[] vals = new double[m];
       for (int i = 0; i < m; i++) {
          vals[i] = (double) piv[i];
@@ -261,6 +247,7 @@ public class LUDecomposition implements java.io.Serializable {
       if (m != n) {
          throw new IllegalArgumentException("Matrix must be square.");
       }
+      ensureFactors();
       double d = (double) pivsign;
       for (int j = 0; j < n; j++) {
          d *= LU[j][j];
@@ -279,6 +266,15 @@ public class LUDecomposition implements java.io.Serializable {
       if (B.getRowDimension() != m) {
          throw new IllegalArgumentException("Matrix row dimensions must agree.");
       }
+      Refinement r = mixed;
+      if (r != null) {
+         int nx = B.getColumnDimension();
+         double[][] X = MixedPrecision.solve(r.A, B.getArray(), n, nx, r.factor);
+         if (X != null) {
+            return new Matrix(X, n, nx);
+         }
+         ensureFactors();
+      }
       if (!this.isNonsingular()) {
          throw new RuntimeException("Matrix is singular.");
       }
@@ -309,5 +305,127 @@ public class LUDecomposition implements java.io.Serializable {
       }
       return Xmat;
    }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Factor A in double precision, in place.
+   <P>
+   Blocked right-looking elimination as in LAPACK dgetrf.  For each panel
+   of NB columns: the panel is factored column by column with partial
+   pivoting, the block row of U to its right is computed by a unit lower
+   triangular solve, and the trailing submatrix is updated by a single
+   product A22 -= L21*U12 on {@link Gemm}, which does nearly all the work
+   with packed, register-blocked and parallel kernels.  Row interchanges
+   swap the row arrays, so they apply to the whole rows at once, as the
+   unblocked algorithm does.
+   */
+
+   private void factor (double[][] A) {
+      LU = A;
+      piv = new int[m];
+      for (int i = 0; i < m; i++) {
+         piv[i] = i;
+      }
+      pivsign = 1;
+      int kmax = Math.min(m, n);
+      for (int j0 = 0; j0 < kmax; j0 += NB) {
+         int j1 = Math.min(kmax, j0 + NB);
+         panel(j0, j1);
+         if (j1 < n) {
+            solveBlockRow(j0, j1);
+            // L21, U12 and A22 are disjoint blocks of the same rows.
+            Gemm.gemm(-1.0, LU, j1, j0, LU, j0, j1, LU, j1, j1, m - j1, n - j1, j1 - j0);
+         }
+      }
+   }
+
+   /** Factor columns j0..j1-1 of rows j0..m-1, pivoting whole rows. **/
+
+   private void panel (int j0, int j1) {
+      for (int j = j0; j < j1; j++) {
+
+         // Find pivot and exchange if necessary.
+
+         int p = j;
+         double max = Math.abs(LU[j][j]);
+         for (int i = j+1; i < m; i++) {
+            double a = Math.abs(LU[i][j]);
+            if (a > max) {
+               max = a;
+               p = i;
+            }
+         }
+         if (p != j) {
+            double[] t = LU[p]; LU[p] = LU[j]; LU[j] = t;
+            int k = piv[p]; piv[p] = piv[j]; piv[j] = k;
+            pivsign = -pivsign;
+         }
+
+         // Compute multipliers and update the rest of the panel.
+
+         final double[] LUrowj = LU[j];
+         final double d = LUrowj[j];
+         if (d != 0.0) {
+            final int c = j, w = j1 - j - 1;
+            Parallel.forRows(m - j - 1, w + 1, (i0, i1) -> {
+               for (int i = c + 1 + i0; i < c + 1 + i1; i++) {
+                  double[] LUrowi = LU[i];
+                  double l = LUrowi[c] /= d;
+                  Kernels.axpy(-l, LUrowj, c + 1, LUrowi, c + 1, w);
+               }
+            });
+         }
+      }
+   }
+
+   /** U12 = L11 \ A12 for rows j0..j1-1, by chunks of columns in parallel. **/
+
+   private void solveBlockRow (int j0, int j1) {
+      final int width = n - j1, chunks = (width + TRSM - 1) / TRSM;
+      Parallel.forRows(chunks, TRSM * (j1 - j0), (c0, c1) -> {
+         int a = j1 + c0 * TRSM, len = Math.min(n, j1 + c1 * TRSM) - a;
+         for (int i = j0 + 1; i < j1; i++) {
+            double[] LUrowi = LU[i];
+            for (int k = j0; k < i; k++) {
+               Kernels.axpy(-LUrowi[k], LU[k], a, LUrowi, a, len);
+            }
+         }
+      });
+   }
+
+   /** Replace float factors by the double factorization.
+   <P>
+   Solves by refinement may still be reading the copy of A, so it is
+   factored in a new array, and the float factors are retired by the
+   volatile write only once the double factors are complete.
+   */
+
+   private void ensureFactors () {
+      if (mixed != null) {
+         synchronized (this) {
+            Refinement r = mixed;
+            if (r != null) {
+               factor(new Matrix(r.A, n, n).getArrayCopy());
+               mixed = null;
+            }
+         }
+      }
+   }
+
+   /** Float factors together with the copy of A they refine against. **/
+
+   private static final class Refinement implements java.io.Serializable {
+      final MixedPrecision.LU factor;
+      final double[][] A;
+
+      Refinement (MixedPrecision.LU factor, double[][] A) {
+         this.factor = factor;
+         this.A = A;
+      }
+
+      private static final long serialVersionUID = 1;
+   }
   private static final long serialVersionUID = 1;
 }
@@ -94,11 +94,13 @@ public class Matrix implements Cloneable, java.io.Serializable {
       this.rows = rows;
       this.columns = columns;
       data = new double[rows][columns];
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = s;
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            for (int j = 0; j < columns; j++) {
+               data[i][j] = s;
+            }
          }
-      }
+      });
    }
 
    /** Construct a matrix from a 2-D array.
@@ -182,11 +184,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
    public Matrix deepCopy() {
       Matrix result = new Matrix(rows, columns);
       double[][] data = result.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = this.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            System.arraycopy(this.data[i], 0, data[i], 0, columns);
          }
-      }
+      });
       return result;
    }
 
@@ -211,11 +213,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public double[][] getArrayCopy () {
       double[][] C = new double[rows][columns];
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            System.arraycopy(data[i], 0, C[i], 0, columns);
          }
-      }
+      });
       return C;
    }
 
@@ -225,11 +227,13 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public double[] getColumnPackedCopy () {
       double[] vals = new double[rows * columns];
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            vals[i+j* rows] = data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            for (int j = 0; j < columns; j++) {
+               vals[i+j* rows] = data[i][j];
+            }
          }
-      }
+      });
       return vals;
    }
 
@@ -239,11 +243,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public double[] getRowPackedCopy () {
       double[] vals = new double[rows * columns];
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            vals[i* columns +j] = data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            System.arraycopy(data[i], 0, vals, i*columns, columns);
          }
-      }
+      });
       return vals;
    }
 
@@ -306,18 +310,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix getMatrix (int[] r, int[] c) {
-      Matrix X = new Matrix(r.length,c.length);
-      double[][] B = X.getArray();
-      try {
-         for (int i = 0; i < r.length; i++) {
-            for (int j = 0; j < c.length; j++) {
-               B[i][j] = data[r[i]][c[j]];
-            }
-         }
-      } catch(ArrayIndexOutOfBoundsException e) {
-         throw new ArrayIndexOutOfBoundsException("Submatrix indices");
-      }
-      return X;
+      return getMatrix(new IndexPlan(r), new IndexPlan(c));
    }
 
    /** Get a submatrix.
@@ -329,18 +322,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix getMatrix (int i0, int i1, int[] c) {
-      Matrix X = new Matrix(i1-i0+1,c.length);
-      double[][] B = X.getArray();
-      try {
-         for (int i = i0; i <= i1; i++) {
-            for (int j = 0; j < c.length; j++) {
-               B[i-i0][j] = data[i][c[j]];
-            }
-         }
-      } catch(ArrayIndexOutOfBoundsException e) {
-         throw new ArrayIndexOutOfBoundsException("Submatrix indices");
-      }
-      return X;
+      return getMatrix(IndexPlan.range(i0, i1), new IndexPlan(c));
    }
 
    /** Get a submatrix.
@@ -352,17 +334,30 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix getMatrix (int[] r, int j0, int j1) {
-      Matrix X = new Matrix(r.length,j1-j0+1);
+      return getMatrix(new IndexPlan(r), IndexPlan.range(j0, j1));
+   }
+
+   /** Get a submatrix through precompiled index plans.
+   <P>
+   The plans are checked once against the dimensions of A; each row is
+   then gathered with the plan for the columns, a single arraycopy for a
+   contiguous range.  Large selections run in parallel over rows.
+   @param r    Plan of row indices.
+   @param c    Plan of column indices.
+   @return     A(r(:),c(:))
+   @exception  ArrayIndexOutOfBoundsException Submatrix indices
+   */
+
+   public Matrix getMatrix (IndexPlan r, IndexPlan c) {
+      r.check(rows);
+      c.check(columns);
+      Matrix X = new Matrix(r.size(),c.size());
       double[][] B = X.getArray();
-      try {
-         for (int i = 0; i < r.length; i++) {
-            for (int j = j0; j <= j1; j++) {
-               B[i][j-j0] = data[r[i]][j];
-            }
+      Parallel.forRows(r.size(), c.size(), (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            c.gather(data[r.get(i)], B[i], 0);
          }
-      } catch(ArrayIndexOutOfBoundsException e) {
-         throw new ArrayIndexOutOfBoundsException("Submatrix indices");
-      }
+      });
       return X;
    }
 
@@ -406,15 +401,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public void setMatrix (int[] r, int[] c, Matrix X) {
-      try {
-         for (int i = 0; i < r.length; i++) {
-            for (int j = 0; j < c.length; j++) {
-               data[r[i]][c[j]] = X.get(i,j);
-            }
-         }
-      } catch(ArrayIndexOutOfBoundsException e) {
-         throw new ArrayIndexOutOfBoundsException("Sub matrix indices");
-      }
+      setMatrix(new IndexPlan(r), new IndexPlan(c), X);
    }
 
    /** Set a sub matrix.
@@ -426,15 +413,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public void setMatrix (int[] r, int j0, int j1, Matrix X) {
-      try {
-         for (int i = 0; i < r.length; i++) {
-            for (int j = j0; j <= j1; j++) {
-               data[r[i]][j] = X.get(i,j-j0);
-            }
-         }
-      } catch(ArrayIndexOutOfBoundsException e) {
-         throw new ArrayIndexOutOfBoundsException("Sub matrix indices");
-      }
+      setMatrix(new IndexPlan(r), IndexPlan.range(j0, j1), X);
    }
 
    /** Set a sub matrix.
@@ -446,46 +425,69 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public void setMatrix (int i0, int i1, int[] c, Matrix X) {
-      try {
-         for (int i = i0; i <= i1; i++) {
-            for (int j = 0; j < c.length; j++) {
-               data[i][c[j]] = X.get(i-i0,j);
+      setMatrix(IndexPlan.range(i0, i1), new IndexPlan(c), X);
+   }
+
+   /** Set a submatrix through precompiled index plans.
+   <P>
+   Rows are scattered in parallel only when the row indices are distinct,
+   so that repeated indices keep the last-one-wins order of a plain loop.
+   @param r    Plan of row indices.
+   @param c    Plan of column indices.
+   @param X    A(r(:),c(:))
+   @exception  ArrayIndexOutOfBoundsException Submatrix indices
+   */
+
+   public void setMatrix (IndexPlan r, IndexPlan c, Matrix X) {
+      r.check(rows);
+      c.check(columns);
+      if (X.rows < r.size() || X.columns < c.size()) {
+         throw new ArrayIndexOutOfBoundsException("Submatrix indices");
+      }
+      if (r.isDistinct()) {
+         Parallel.forRows(r.size(), c.size(), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+               c.scatter(X.data[i], 0, data[r.get(i)]);
             }
+         });
+      } else {
+         for (int i = 0; i < r.size(); i++) {
+            c.scatter(X.data[i], 0, data[r.get(i)]);
          }
-      } catch(ArrayIndexOutOfBoundsException e) {
-         throw new ArrayIndexOutOfBoundsException("Submatrix indices");
       }
    }
 
    /** Matrix transpose.
+   <P>
+   Cache-oblivious and parallel for large matrices; see {@link Transpose}.
    @return    A'
    */
 
    public Matrix transpose () {
       Matrix X = new Matrix(columns, rows);
-      double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[j][i] = data[i][j];
-         }
-      }
+      Transpose.transpose(data, X.getArray(), rows, columns);
       return X;
    }
 
+   /** Transpose a square matrix in place, A = A'
+   @return     A'
+   @exception  IllegalArgumentException Matrix must be square.
+   */
+
+   public Matrix transposeEquals () {
+      if (rows != columns) {
+         throw new IllegalArgumentException("Matrix must be square.");
+      }
+      Transpose.transpose(data, rows);
+      return this;
+   }
+
    /** One norm
    @return    maximum column sum.
    */
 
    public double norm1 () {
-      double f = 0;
-      for (int j = 0; j < columns; j++) {
-         double s = 0;
-         for (int i = 0; i < rows; i++) {
-            s += Math.abs(data[i][j]);
-         }
-         f = Math.max(f,s);
-      }
-      return f;
+      return Norms.norm1(data, rows, columns);
    }
 
    /** Two norm
@@ -496,20 +498,33 @@ public class Matrix implements Cloneable, java.io.Serializable {
       return (new SingularValueDecomposition(this).norm2());
    }
 
+   /** Two norm estimate
+   <P>
+   Power iteration on A'*A, two matrix-vector products per step, for
+   matrices too large for a singular value decomposition.
+   @return    estimate of the maximum singular value, once it changes by less
+              than a relative 1e-6 between steps or after 100 steps.
+   */
+
+   public double normest () {
+      return normest(1.0e-6);
+   }
+
+   /** Two norm estimate to a tolerance
+   @param tol  relative change between steps at which to stop.
+   @return     estimate of the maximum singular value, after at most 100 steps.
+   */
+
+   public double normest (double tol) {
+      return Norms.normest(data, rows, columns, tol, 100);
+   }
+
    /** Infinity norm
    @return    maximum row sum.
    */
 
    public double normInf () {
-      double f = 0;
-      for (int i = 0; i < rows; i++) {
-         double s = 0;
-         for (int j = 0; j < columns; j++) {
-            s += Math.abs(data[i][j]);
-         }
-         f = Math.max(f,s);
-      }
-      return f;
+      return Norms.normInf(data, rows, columns);
    }
 
    /** Frobenius norm
@@ -517,13 +532,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public double normF () {
-      double f = 0;
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            f = Maths.hypot(f, data[i][j]);
-         }
-      }
-      return f;
+      return Norms.normF(data, rows, columns);
    }
 
    /**  Unary minus
@@ -533,11 +542,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
    public Matrix uminus () {
       Matrix X = new Matrix(rows, columns);
       double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = -data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.scale(-1.0, data[i], C[i], columns);
          }
-      }
+      });
       return X;
    }
 
@@ -550,11 +559,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
       checkMatrixDimensions(B);
       Matrix X = new Matrix(rows, columns);
       double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = data[i][j] + B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.add(data[i], B.data[i], C[i], columns);
          }
-      }
+      });
       return X;
    }
 
@@ -565,11 +574,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix plusEquals (Matrix B) {
       checkMatrixDimensions(B);
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = data[i][j] + B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.add(data[i], B.data[i], data[i], columns);
          }
-      }
+      });
       return this;
    }
 
@@ -582,11 +591,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
       checkMatrixDimensions(B);
       Matrix X = new Matrix(rows, columns);
       double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = data[i][j] - B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.subtract(data[i], B.data[i], C[i], columns);
          }
-      }
+      });
       return X;
    }
 
@@ -597,11 +606,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix minusEquals (Matrix B) {
       checkMatrixDimensions(B);
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = data[i][j] - B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.subtract(data[i], B.data[i], data[i], columns);
          }
-      }
+      });
       return this;
    }
 
@@ -614,11 +623,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
       checkMatrixDimensions(B);
       Matrix X = new Matrix(rows, columns);
       double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = data[i][j] * B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.multiply(data[i], B.data[i], C[i], columns);
          }
-      }
+      });
       return X;
    }
 
@@ -629,11 +638,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayTimesEquals (Matrix B) {
       checkMatrixDimensions(B);
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = data[i][j] * B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.multiply(data[i], B.data[i], data[i], columns);
          }
-      }
+      });
       return this;
    }
 
@@ -646,11 +655,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
       checkMatrixDimensions(B);
       Matrix X = new Matrix(rows, columns);
       double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = data[i][j] / B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.divide(data[i], B.data[i], C[i], columns);
          }
-      }
+      });
       return X;
    }
 
@@ -661,11 +670,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayRightDivideEquals (Matrix B) {
       checkMatrixDimensions(B);
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = data[i][j] / B.data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.divide(data[i], B.data[i], data[i], columns);
          }
-      }
+      });
       return this;
    }
 
@@ -678,11 +687,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
       checkMatrixDimensions(B);
       Matrix X = new Matrix(rows, columns);
       double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = B.data[i][j] / data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.divide(B.data[i], data[i], C[i], columns);
          }
-      }
+      });
       return X;
    }
 
@@ -693,11 +702,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayLeftDivideEquals (Matrix B) {
       checkMatrixDimensions(B);
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = B.data[i][j] / data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.divide(B.data[i], data[i], data[i], columns);
          }
-      }
+      });
       return this;
    }
 
@@ -709,11 +718,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
    public Matrix times (double s) {
       Matrix X = new Matrix(rows, columns);
       double[][] C = X.getArray();
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            C[i][j] = s* data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.scale(s, data[i], C[i], columns);
          }
-      }
+      });
       return X;
    }
 
@@ -723,11 +732,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix timesEquals (double s) {
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            data[i][j] = s* data[i][j];
+      Parallel.forRows(rows, columns, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.scale(s, data[i], data[i], columns);
          }
-      }
+      });
       return this;
    }
 
@@ -742,24 +751,167 @@ public class Matrix implements Cloneable, java.io.Serializable {
          throw new IllegalArgumentException("Matrix inner dimensions must agree.");
       }
       Matrix X = new Matrix(rows,B.columns);
-      double[][] C = X.getArray();
-      double[] Bcolj = new double[columns];
-      for (int j = 0; j < B.columns; j++) {
-         for (int k = 0; k < columns; k++) {
-            Bcolj[k] = B.data[k][j];
-         }
-         for (int i = 0; i < rows; i++) {
-            double[] Arowi = data[i];
-            double s = 0;
-            for (int k = 0; k < columns; k++) {
-               s += Arowi[k]*Bcolj[k];
+      if (rows == columns && B.columns == columns && Fixed.supports(rows)) {
+         Fixed.multiply(data, B.data, X.getArray(), rows);
+      } else if (Strassen.isPreferred(rows, B.columns, columns)) {
+         Strassen.multiply(data, B.data, X.getArray(), rows, B.columns, columns);
+      } else {
+         Gemm.gemm(1.0, data, 0, 0, B.data, 0, 0, X.getArray(), 0, 0, rows, B.columns, columns);
+      }
+      return X;
+   }
+
+   /** Matrix-vector multiplication, A * x
+   <P>
+   Streams the rows of A through the {@link Gemv} kernel, in parallel for
+   tall matrices.  A row vector times A is times(Matrix) with a 1-by-m
+   matrix, which takes the same path.
+   @param x    vector of length n
+   @return     new vector of length m, A * x
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public double[] times (double[] x) {
+      if (x.length != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      return Gemv.multiply(data, x, rows, columns);
+   }
+
+   /** Multiplication by a sparse matrix, A * B
+   <P>
+   Each row of A scatters its nonzeros times the matching rows of B into
+   the row of the product, in parallel over the rows of A.
+   @param B    sparse matrix
+   @return     dense product, A * B
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public Matrix times (SparseMatrix B) {
+      if (B.getRowDimension() != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      Matrix X = new Matrix(rows,B.getColumnDimension());
+      SparseMatrix.times(data, B, X.getArray(), rows, columns);
+      return X;
+   }
+
+   /** Kronecker tensor product, kron(A,B)
+   <P>
+   Each row of the product is written directly as scaled copies of a row
+   of B; use {@link KroneckerProduct} to multiply by kron(A,B) without
+   forming it.
+   @param B    another matrix
+   @return     mp-by-nq block matrix with blocks A(i,j)*B
+   */
+
+   public Matrix kron (Matrix B) {
+      Matrix X = new Matrix(rows*B.rows,columns*B.columns);
+      Kronecker.kron(data, B.data, X.getArray(), 0, 0, rows, columns, B.rows, B.columns);
+      return X;
+   }
+
+   /** Multiplication by the transpose of A, A' * B
+   <P>
+   The transpose is applied while packing the operands, so A' is never
+   formed.
+   @param B    another matrix with as many rows as A
+   @return     Matrix product, A' * B
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public Matrix transposeTimes (Matrix B) {
+      if (B.rows != rows) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      Matrix X = new Matrix(columns,B.columns);
+      Gemm.gemm(true, false, 1.0, data, 0, 0, B.data, 0, 0, X.getArray(), 0, 0, columns, B.columns, rows);
+      return X;
+   }
+
+   /** Multiplication by the transpose of B, A * B'
+   @param B    another matrix with as many columns as A
+   @return     Matrix product, A * B'
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public Matrix timesTranspose (Matrix B) {
+      if (B.columns != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      Matrix X = new Matrix(rows,B.rows);
+      Gemm.gemm(false, true, 1.0, data, 0, 0, B.data, 0, 0, X.getArray(), 0, 0, rows, B.rows, columns);
+      return X;
+   }
+
+   /** Gram matrix, A' * A
+   <P>
+   Only the upper triangle is computed, as in the BLAS routine SYRK, and
+   then mirrored, which halves the work and makes the result exactly
+   symmetric.
+   @return     symmetric n-by-n matrix A' * A
+   */
+
+   public Matrix gram () {
+      final int n = columns;
+      Matrix X = new Matrix(n,n);
+      final double[][] C = X.getArray();
+      Gemm.syrk(1.0, data, 0, 0, C, 0, 0, n, rows);
+      Parallel.forRows(n, n, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            double[] Ci = C[i];
+            for (int j = 0; j < i; j++) {
+               Ci[j] = C[j][i];
             }
-            C[i][j] = s;
          }
+      });
+      return X;
+   }
+
+   /** Linear algebraic matrix multiplication by Strassen-Winograd, A * B
+   <P>
+   Uses about n^2.807 instead of n^3 multiply-adds for large products, at
+   the price of a weaker, normwise error bound; see {@link Strassen}.
+   @param B    another matrix
+   @return     Matrix product, A * B
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public Matrix strassen (Matrix B) {
+      if (B.rows != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
       }
+      Matrix X = new Matrix(rows,B.columns);
+      Strassen.multiply(data, B.data, X.getArray(), rows, B.columns, columns);
       return X;
    }
 
+   /** Product of a chain of matrices, A1 * A2 * ... * Aq
+   <P>
+   The factors are multiplied in the order that needs the fewest scalar
+   multiplications, so a chain ending in a vector costs a sequence of
+   matrix-vector products; see {@link Chain}.
+   @param factors  one or more matrices with agreeing inner dimensions
+   @return     Matrix product; a copy of the factor if there is only one
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public static Matrix multiply (Matrix... factors) {
+      int q = factors.length;
+      int[] m = new int[q], n = new int[q];
+      double[][][] arrays = new double[q][][];
+      for (int i = 0; i < q; i++) {
+         m[i] = factors[i].rows;
+         n[i] = factors[i].columns;
+         arrays[i] = factors[i].data;
+      }
+      int[] p = Chain.dimensions(m, n);
+      if (q == 1) {
+         return new Matrix(factors[0].getArrayCopy(), p[0], p[1]);
+      }
+      return new Matrix(Chain.multiply(arrays, p), p[0], p[q]);
+   }
+
    /** LU Decomposition
    @return     LUDecomposition
    @see LUDecomposition
@@ -811,7 +963,27 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix solve (Matrix B) {
-      return (rows == columns ? (new LUDecomposition(this)).solve(B) :
+      return solve(B, false);
+   }
+
+   /** Solve A*X = B, optionally in mixed precision
+   <P>
+   With mixed precision a square A is factored in float and the solution
+   refined in double, falling back to the double factorization when the
+   refinement does not converge; see {@link MixedPrecision}.
+   @param B    right hand side
+   @param mixedPrecision  Factor a square A in float and refine the solution.
+   @return     solution if A is square, least squares solution otherwise
+   */
+
+   public Matrix solve (Matrix B, boolean mixedPrecision) {
+      if (rows == columns && B.rows == rows && Fixed.supports(rows)) {
+         Matrix X = new Matrix(rows, B.columns);
+         if (Fixed.solve(data, B.data, X.getArray(), rows, B.columns)) {
+            return X;
+         }
+      }
+      return (rows == columns ? (new LUDecomposition(this, mixedPrecision)).solve(B) :
                        (new QRDecomposition(this)).solve(B));
    }
 
@@ -829,6 +1001,12 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix inverse () {
+      if (rows == columns && Fixed.supports(rows)) {
+         Matrix X = new Matrix(rows, rows);
+         if (Fixed.inverse(data, X.getArray(), rows)) {
+            return X;
+         }
+      }
       return solve(identity(rows, rows));
    }
 
@@ -837,6 +1015,9 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public double det () {
+      if (rows == columns && Fixed.supports(rows)) {
+         return Fixed.det(data, rows);
+      }
       return new LUDecomposition(this).det();
    }
 
@@ -868,21 +1049,412 @@ public class Matrix implements Cloneable, java.io.Serializable {
       return t;
    }
 
+   /** Sum of all elements, with compensated summation.
+   @return     sum(A(:))
+   */
+
+   public double sum () {
+      return Reductions.sum(data, rows, columns);
+   }
+
+   /** Sums along a dimension, with compensated summation.
+   @param dim  1 for column sums, 2 for row sums.
+   @return     1-by-n row of column sums, or m-by-1 column of row sums.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix sum (int dim) {
+      return alongDimension(Reductions.sum(data, rows, columns, dim), dim);
+   }
+
+   /** Mean of all elements.
+   @return     mean(A(:))
+   */
+
+   public double mean () {
+      return Reductions.mean(data, rows, columns);
+   }
+
+   /** Means along a dimension.
+   @param dim  1 for column means, 2 for row means.
+   @return     mean(A,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix mean (int dim) {
+      return alongDimension(Reductions.mean(data, rows, columns, dim), dim);
+   }
+
+   /** Product of all elements.
+   @return     prod(A(:))
+   */
+
+   public double prod () {
+      return Reductions.prod(data, rows, columns);
+   }
+
+   /** Products along a dimension.
+   @param dim  1 for column products, 2 for row products.
+   @return     prod(A,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix prod (int dim) {
+      return alongDimension(Reductions.prod(data, rows, columns, dim), dim);
+   }
+
+   /** Sample variance of all elements, normalized by N-1.
+   @return     var(A(:))
+   */
+
+   public double var () {
+      return Reductions.var(data, rows, columns);
+   }
+
+   /** Sample variances along a dimension, normalized by N-1.
+   @param dim  1 for column variances, 2 for row variances.
+   @return     var(A,0,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix var (int dim) {
+      return alongDimension(Reductions.var(data, rows, columns, dim), dim);
+   }
+
+   /** Sample standard deviation of all elements.
+   @return     std(A(:))
+   */
+
+   public double std () {
+      return Reductions.std(data, rows, columns);
+   }
+
+   /** Sample standard deviations along a dimension.
+   @param dim  1 for column deviations, 2 for row deviations.
+   @return     std(A,0,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix std (int dim) {
+      return alongDimension(Reductions.std(data, rows, columns, dim), dim);
+   }
+
+   /** Smallest element, ignoring NaN.
+   @return     min(A(:))
+   */
+
+   public double min () {
+      return Reductions.min(data, rows, columns);
+   }
+
+   /** Smallest elements along a dimension, ignoring NaN.
+   @param dim  1 for column minima, 2 for row minima.
+   @return     min(A,[],dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix min (int dim) {
+      return alongDimension(Reductions.min(data, rows, columns, dim), dim);
+   }
+
+   /** Largest element, ignoring NaN.
+   @return     max(A(:))
+   */
+
+   public double max () {
+      return Reductions.max(data, rows, columns);
+   }
+
+   /** Largest elements along a dimension, ignoring NaN.
+   @param dim  1 for column maxima, 2 for row maxima.
+   @return     max(A,[],dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix max (int dim) {
+      return alongDimension(Reductions.max(data, rows, columns, dim), dim);
+   }
+
+   /** Position of the first smallest element.
+   @return     {i, j} with A(i,j) = min(A(:)).
+   */
+
+   public int[] argmin () {
+      return Reductions.argmin(data, rows, columns);
+   }
+
+   /** Indices of the first smallest elements along a dimension.
+   @param dim  1 for a row index per column, 2 for a column index per row.
+   @return     Zero-based indices.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public int[] argmin (int dim) {
+      return Reductions.argmin(data, rows, columns, dim);
+   }
+
+   /** Position of the first largest element.
+   @return     {i, j} with A(i,j) = max(A(:)).
+   */
+
+   public int[] argmax () {
+      return Reductions.argmax(data, rows, columns);
+   }
+
+   /** Indices of the first largest elements along a dimension.
+   @param dim  1 for a row index per column, 2 for a column index per row.
+   @return     Zero-based indices.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public int[] argmax (int dim) {
+      return Reductions.argmax(data, rows, columns, dim);
+   }
+
+   /** Cumulative sums along a dimension.
+   <P>
+   Long scans run as a blocked parallel prefix scan; see {@link Scans}.
+   @param dim  1 to scan down columns, 2 along rows.
+   @return     cumsum(A,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix cumsum (int dim) {
+      Matrix X = new Matrix(rows,columns);
+      Scans.cumsum(data, X.getArray(), rows, columns, dim);
+      return X;
+   }
+
+   /** Cumulative sums along a dimension in place, A = cumsum(A,dim)
+   @param dim  1 to scan down columns, 2 along rows.
+   @return     A
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix cumsumEquals (int dim) {
+      Scans.cumsum(data, data, rows, columns, dim);
+      return this;
+   }
+
+   /** Cumulative products along a dimension.
+   @param dim  1 to scan down columns, 2 along rows.
+   @return     cumprod(A,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix cumprod (int dim) {
+      Matrix X = new Matrix(rows,columns);
+      Scans.cumprod(data, X.getArray(), rows, columns, dim);
+      return X;
+   }
+
+   /** Cumulative products along a dimension in place, A = cumprod(A,dim)
+   @param dim  1 to scan down columns, 2 along rows.
+   @return     A
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix cumprodEquals (int dim) {
+      Scans.cumprod(data, data, rows, columns, dim);
+      return this;
+   }
+
+   /** Cumulative maxima along a dimension, ignoring NaN.
+   @param dim  1 to scan down columns, 2 along rows.
+   @return     cummax(A,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix cummax (int dim) {
+      Matrix X = new Matrix(rows,columns);
+      Scans.cummax(data, X.getArray(), rows, columns, dim);
+      return X;
+   }
+
+   /** Cumulative maxima along a dimension in place, ignoring NaN, A = cummax(A,dim)
+   @param dim  1 to scan down columns, 2 along rows.
+   @return     A
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix cummaxEquals (int dim) {
+      Scans.cummax(data, data, rows, columns, dim);
+      return this;
+   }
+
+   /** Sort along a dimension in ascending order.
+   @param dim  1 to sort each column, 2 to sort each row.
+   @return     sort(A,dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix sort (int dim) {
+      return sort(dim, false);
+   }
+
+   /** Sort along a dimension.
+   <P>
+   NaN sorts after every number, so it comes last in ascending and first
+   in descending order.
+   @param dim      1 to sort each column, 2 to sort each row.
+   @param descend  true for descending order.
+   @return         sort(A,dim,'descend') if descend, sort(A,dim) otherwise.
+   @exception      IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public Matrix sort (int dim, boolean descend) {
+      return new Matrix(Sorting.sort(data, rows, columns, dim, descend), rows, columns);
+   }
+
+   /** Stable sorting permutation along a dimension.
+   @param dim      1 to sort each column, 2 to sort each row.
+   @param descend  true for descending order.
+   @return         Zero-based indices I of [~,I] = sort(A,dim).
+   @exception      IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public int[][] argsort (int dim, boolean descend) {
+      return Sorting.argsort(data, rows, columns, dim, descend);
+   }
+
+   /** The k largest elements along a dimension, largest first.
+   @param k    Number of elements.
+   @param dim  1 for each column, 2 for each row.
+   @return     maxk(A,k,dim), k-by-n (dim 1) or m-by-k (dim 2).
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   @exception  IllegalArgumentException k out of range.
+   */
+
+   public Matrix topK (int k, int dim) {
+      double[][] V = Sorting.take(data, topKIndices(k, dim), dim);
+      return new Matrix(V, dim == 1 ? k : rows, dim == 1 ? columns : k);
+   }
+
+   /** Indices of the k largest elements along a dimension.
+   <P>
+   Selects in expected linear time and sorts only the k selected, so the
+   top 100 of a long row cost little more than one pass over it.
+   @param k    Number of elements.
+   @param dim  1 for each column, 2 for each row.
+   @return     Zero-based indices I of [~,I] = maxk(A,k,dim).
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   @exception  IllegalArgumentException k out of range.
+   */
+
+   public int[][] topKIndices (int k, int dim) {
+      return Sorting.topK(data, rows, columns, k, dim);
+   }
+
+   /** Discrete Fourier transform along a dimension.
+   <P>
+   Real rows are transformed two at a time as one complex row; see
+   {@link FFT}.  Plans for each length are built once and cached.
+   @param dim  1 to transform each column, 2 each row.
+   @return     fft(A,[],dim)
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public ComplexMatrix fft (int dim) {
+      ComplexMatrix X = new ComplexMatrix(rows,columns);
+      FFT.transformReal(data, X.getReal().getArray(), X.getImaginary().getArray(), rows, columns, dim);
+      return X;
+   }
+
+   /** Two-dimensional discrete Fourier transform.
+   @return     fft2(A)
+   */
+
+   public ComplexMatrix fft2 () {
+      ComplexMatrix X = fft(2);
+      FFT.transform(X.getReal().getArray(), X.getImaginary().getArray(), rows, columns, 1, false);
+      return X;
+   }
+
+   /** Two-dimensional convolution, conv2(A,B)
+   @param B    kernel
+   @return     full convolution, (m+p-1)-by-(n+q-1) for a p-by-q B
+   */
+
+   public Matrix conv2 (Matrix B) {
+      return conv2(B, "full");
+   }
+
+   /** Two-dimensional convolution with a shape, conv2(A,B,shape)
+   <P>
+   The direct sum costs mnpq multiply-adds, the transforms about
+   N log N for the padded size N; the cheaper one is used, so small
+   kernels are convolved directly and large ones by FFT.
+   @param B       kernel
+   @param shape   "full", "same" (central part of the size of A) or
+                  "valid" (only parts computed without zero padding).
+   @return        conv2(A,B,shape)
+   @exception     IllegalArgumentException Shape must be full, same or valid.
+   */
+
+   public Matrix conv2 (Matrix B, String shape) {
+      int p = B.rows, q = B.columns;
+      int i0, j0, m, n;
+      if ("full".equals(shape)) {
+         i0 = 0; j0 = 0; m = rows + p - 1; n = columns + q - 1;
+      } else if ("same".equals(shape)) {
+         i0 = p / 2; j0 = q / 2; m = rows; n = columns;
+      } else if ("valid".equals(shape)) {
+         i0 = p - 1; j0 = q - 1; m = Math.max(0, rows - p + 1); n = Math.max(0, columns - q + 1);
+      } else {
+         throw new IllegalArgumentException("Shape must be full, same or valid.");
+      }
+      double[][] C = FFT.convolve(data, B.data, rows, columns, p, q);
+      if (i0 == 0 && j0 == 0 && m == C.length) {
+         return new Matrix(C, m, Math.max(0, n));
+      }
+      Matrix X = new Matrix(m,n);
+      double[][] D = X.getArray();
+      for (int i = 0; i < m; i++) {
+         System.arraycopy(C[i0+i], j0, D[i], 0, n);
+      }
+      return X;
+   }
+
+   /** Two-dimensional cross-correlation, xcorr2(A,B)
+   <P>
+   The convolution of A with B rotated by 180 degrees.
+   @param B    template
+   @return     full cross-correlation, (m+p-1)-by-(n+q-1) for a p-by-q B
+   */
+
+   public Matrix xcorr2 (Matrix B) {
+      int p = B.rows, q = B.columns;
+      Matrix R = new Matrix(p,q);
+      for (int i = 0; i < p; i++) {
+         for (int j = 0; j < q; j++) {
+            R.data[p-1-i][q-1-j] = B.data[i][j];
+         }
+      }
+      return conv2(R);
+   }
+
    /** Generate matrix with random elements
    @param m    Number of rows.
    @param n    Number of columns.
    @return     An m-by-n matrix with uniformly distributed random elements.
+   @see        MatrixRandom
    */
 
    public static Matrix random (int m, int n) {
-      Matrix A = new Matrix(m,n);
-      double[][] X = A.getArray();
-      for (int i = 0; i < m; i++) {
-         for (int j = 0; j < n; j++) {
-            X[i][j] = Math.random();
-         }
-      }
-      return A;
+      return new MatrixRandom().uniform(m, n);
+   }
+
+   /** Generate a reproducible matrix with random elements
+   @param m       Number of rows.
+   @param n       Number of columns.
+   @param seed    Seed of the generator.
+   @return        An m-by-n matrix with uniformly distributed random elements,
+                  the same for the same seed.
+   @see           MatrixRandom
+   */
+
+   public static Matrix random (int m, int n, long seed) {
+      return new MatrixRandom(seed).uniform(m, n);
    }
 
    /** Generate identity matrix
@@ -894,11 +1466,13 @@ public class Matrix implements Cloneable, java.io.Serializable {
    public static Matrix identity (int m, int n) {
       Matrix A = new Matrix(m,n);
       double[][] X = A.getArray();
-      for (int i = 0; i < m; i++) {
-         for (int j = 0; j < n; j++) {
-            X[i][j] = (i == j ? 1.0 : 0.0);
+      Parallel.forRows(m, n, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            for (int j = 0; j < n; j++) {
+               X[i][j] = (i == j ? 1.0 : 0.0);
+            }
          }
-      }
+      });
       return A;
    }
 
@@ -1046,5 +1620,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
       }
    }
 
+   /** Shape the result of a reduction along dim as a row or a column. **/
+
+   private static Matrix alongDimension (double[] r, int dim) {
+      return dim == 1 ? new Matrix(new double[][] {r}, 1, r.length) : new Matrix(r, r.length);
+   }
+
   private static final long serialVersionUID = 1;
 }
@@ -0,0 +1,491 @@
+package net.iuyy.jmat.jama;
+
+import net.iuyy.jmat.jama.util.*;
+
+   /** A batch of equal-shape matrices stored contiguously.
+   <P>
+   Matrix b of a batch of count rows-by-columns matrices is stored row by
+   row in data[b*rows*columns, (b+1)*rows*columns), so a batch of millions
+   of small matrices is one array rather than millions of Matrix objects.
+   The operations work matrix by matrix and run in parallel across the
+   batch on the {@link Parallel} pool, with scratch space allocated once
+   per block of matrices rather than once per matrix.
+   <P>
+   Operations that take a second batch also accept a batch of a single
+   matrix on either side, which is then applied to every matrix of the
+   other batch; a single coefficient matrix is factored only once.
+   */
+
+public class MatrixBatch implements java.io.Serializable {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Array for internal storage of elements.
+   @serial internal array storage.
+   */
+   private double[] data;
+
+   /** Number of matrices, and row and column dimensions of each.
+   @serial number of matrices.
+   @serial row dimension.
+   @serial column dimension.
+   */
+   private int count, rows, columns;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+   /** Construct a batch of zero matrices.
+   @param count    Number of matrices.
+   @param rows     Number of rows of each matrix.
+   @param columns  Number of columns of each matrix.
+   */
+
+   public MatrixBatch (int count, int rows, int columns) {
+      this(new double[size(count, rows, columns)], count, rows, columns);
+   }
+
+   /** Construct a batch on an existing array, without copying.
+   @param data     Elements, matrix after matrix, each row by row.
+   @param count    Number of matrices.
+   @param rows     Number of rows of each matrix.
+   @param columns  Number of columns of each matrix.
+   @exception      IllegalArgumentException Array length must equal count*rows*columns.
+   */
+
+   public MatrixBatch (double[] data, int count, int rows, int columns) {
+      if (data.length != size(count, rows, columns)) {
+         throw new IllegalArgumentException("Array length must equal count*rows*columns.");
+      }
+      this.data = data;
+      this.count = count;
+      this.rows = rows;
+      this.columns = columns;
+   }
+
+   /** Construct a batch from a copy of equal-shape matrices.
+   @param matrices  One or more matrices of the same dimensions.
+   @return     A batch holding a copy of the matrices.
+   @exception  IllegalArgumentException All matrices must have the same dimensions.
+   */
+
+   public static MatrixBatch of (Matrix... matrices) {
+      if (matrices.length == 0) {
+         throw new IllegalArgumentException("At least one matrix is required.");
+      }
+      int m = matrices[0].getRowDimension(), n = matrices[0].getColumnDimension();
+      MatrixBatch X = new MatrixBatch(matrices.length, m, n);
+      for (int b = 0; b < matrices.length; b++) {
+         X.setMatrix(b, matrices[b]);
+      }
+      return X;
+   }
+
+   /** Construct a batch of identity matrices.
+   @param count    Number of matrices.
+   @param n        Dimension of each matrix.
+   @return     A batch of count n-by-n identity matrices.
+   */
+
+   public static MatrixBatch identity (int count, int n) {
+      MatrixBatch X = new MatrixBatch(count, n, n);
+      for (int b = 0; b < count; b++) {
+         for (int i = 0; i < n; i++) {
+            X.data[b*n*n + i*n + i] = 1.0;
+         }
+      }
+      return X;
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Access the internal array.
+   @return     Pointer to the contiguous array of elements.
+   */
+
+   public double[] getArray () {
+      return data;
+   }
+
+   /** Get the number of matrices.
+   @return     count, the number of matrices in the batch.
+   */
+
+   public int getCount () {
+      return count;
+   }
+
+   /** Get row dimension.
+   @return     rows, the number of rows of each matrix.
+   */
+
+   public int getRowDimension () {
+      return rows;
+   }
+
+   /** Get column dimension.
+   @return     columns, the number of columns of each matrix.
+   */
+
+   public int getColumnDimension () {
+      return columns;
+   }
+
+   /** Get a single element.
+   @param b    Matrix index.
+   @param i    Row index.
+   @param j    Column index.
+   @return     Element (i,j) of matrix b.
+   @exception  ArrayIndexOutOfBoundsException
+   */
+
+   public double get (int b, int i, int j) {
+      return data[offset(b, i, j)];
+   }
+
+   /** Set a single element.
+   @param b    Matrix index.
+   @param i    Row index.
+   @param j    Column index.
+   @param s    Element (i,j) of matrix b.
+   @exception  ArrayIndexOutOfBoundsException
+   */
+
+   public void set (int b, int i, int j, double s) {
+      data[offset(b, i, j)] = s;
+   }
+
+   /** Copy out one matrix.
+   @param b    Matrix index.
+   @return     A new Matrix holding matrix b.
+   @exception  ArrayIndexOutOfBoundsException Matrix index out of range.
+   */
+
+   public Matrix getMatrix (int b) {
+      checkIndex(b);
+      Matrix X = new Matrix(rows, columns);
+      double[][] C = X.getArray();
+      int o = b*rows*columns;
+      for (int i = 0; i < rows; i++) {
+         System.arraycopy(data, o + i*columns, C[i], 0, columns);
+      }
+      return X;
+   }
+
+   /** Copy a matrix into the batch.
+   @param b    Matrix index.
+   @param X    Matrix of the batch dimensions.
+   @exception  IllegalArgumentException Matrix dimensions must agree.
+   */
+
+   public void setMatrix (int b, Matrix X) {
+      checkIndex(b);
+      if (X.getRowDimension() != rows || X.getColumnDimension() != columns) {
+         throw new IllegalArgumentException("Matrix dimensions must agree.");
+      }
+      double[][] A = X.getArray();
+      int o = b*rows*columns;
+      for (int i = 0; i < rows; i++) {
+         System.arraycopy(A[i], 0, data, o + i*columns, columns);
+      }
+   }
+
+   /** Make a deep copy of the batch.
+   @return     A new batch with a copy of the elements.
+   */
+
+   public MatrixBatch copy () {
+      return new MatrixBatch(data.clone(), count, rows, columns);
+   }
+
+   /** Matrix by matrix multiplication, C[b] = A[b] * B[b]
+   @param B    another batch, of the same count, or either batch of a single matrix
+   @return     batch of products
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   @exception  IllegalArgumentException Batch counts must agree.
+   */
+
+   public MatrixBatch times (MatrixBatch B) {
+      if (B.rows != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      final int total = checkCount(B);
+      final int m = rows, n = B.columns, k = columns;
+      final int sa = count == 1 ? 0 : m*k, sb = B.count == 1 ? 0 : k*n, sc = m*n;
+      final double[] a = data, bb = B.data;
+      MatrixBatch X = new MatrixBatch(total, m, n);
+      final double[] c = X.data;
+      Parallel.forRows(total, m*n*k, (b0, b1) -> {
+         for (int b = b0; b < b1; b++) {
+            multiply(a, b*sa, bb, b*sb, c, b*sc, m, n, k);
+         }
+      });
+      return X;
+   }
+
+   /** Matrix by matrix determinants.
+   @return     array of count determinants
+   @exception  IllegalArgumentException Matrix must be square.
+   */
+
+   public double[] det () {
+      checkSquare();
+      final int n = rows;
+      final double[] d = new double[count];
+      Parallel.forRows(count, n*n*n, (b0, b1) -> {
+         double[] lu = new double[n*n];
+         int[] piv = new int[n];
+         for (int b = b0; b < b1; b++) {
+            System.arraycopy(data, b*n*n, lu, 0, n*n);
+            double t = factor(lu, piv, n);
+            for (int j = 0; j < n; j++) {
+               t *= lu[j*n+j];
+            }
+            d[b] = t;
+         }
+      });
+      return d;
+   }
+
+   /** Solve A[b]*X[b] = B[b] for every matrix of the batch
+   @param B    right hand sides, of the same count, or either batch of a single matrix
+   @return     batch of solutions
+   @exception  IllegalArgumentException Matrix must be square.
+   @exception  IllegalArgumentException Matrix row dimensions must agree.
+   @exception  IllegalArgumentException Batch counts must agree.
+   @exception  RuntimeException  Matrix is singular.
+   */
+
+   public MatrixBatch solve (MatrixBatch B) {
+      checkSquare();
+      if (B.rows != rows) {
+         throw new IllegalArgumentException("Matrix row dimensions must agree.");
+      }
+      final int total = checkCount(B);
+      final int n = rows, nx = B.columns;
+      final int sb = B.count == 1 ? 0 : n*nx;
+      final double[] bb = B.data;
+      MatrixBatch X = new MatrixBatch(total, n, nx);
+      final double[] x = X.data;
+      if (count == 1 && total > 1) {
+         final double[] lu = data.clone();
+         final int[] piv = new int[n];
+         factor(lu, piv, n);
+         if (!isNonsingular(lu, n)) {
+            throw new RuntimeException("Matrix 0 is singular.");
+         }
+         Parallel.forRows(total, n*nx, (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+               substitute(lu, piv, n, bb, b*sb, x, b*n*nx, nx);
+            }
+         });
+         return X;
+      }
+      Parallel.forRows(total, n*n*(n + nx), (b0, b1) -> {
+         double[] lu = new double[n*n];
+         int[] piv = new int[n];
+         for (int b = b0; b < b1; b++) {
+            System.arraycopy(data, b*n*n, lu, 0, n*n);
+            factor(lu, piv, n);
+            if (!isNonsingular(lu, n)) {
+               throw new RuntimeException("Matrix " + b + " is singular.");
+            }
+            substitute(lu, piv, n, bb, b*sb, x, b*n*nx, nx);
+         }
+      });
+      return X;
+   }
+
+   /** Matrix by matrix inverses.
+   @return     batch of inverses
+   @exception  IllegalArgumentException Matrix must be square.
+   @exception  RuntimeException  Matrix is singular.
+   */
+
+   public MatrixBatch inverse () {
+      return solve(identity(1, rows));
+   }
+
+   /** Multi-channel 2D convolution, as in a convolutional layer.
+   <P>
+   The batch holds the C channels of an image, each rows-by-columns.  The
+   weights hold K filters of C kernels each, the kernel of filter k for
+   channel c being matrix k*C+c.  Output channel k is the sum over c of
+   channel c correlated with its kernel, without flipping the kernel,
+   sampled every stride pixels of the input padded with zeros.  Computed
+   by im2col and matrix multiplication, see {@link Im2col}.
+   @param W        weights, a batch of K*C kh-by-kw kernels.
+   @param stride   step between output pixels, positive.
+   @param padding  zeros added on every side, nonnegative.
+   @return         batch of K channels, each (rows+2*padding-kh)/stride+1 by
+                   (columns+2*padding-kw)/stride+1.
+   @exception      IllegalArgumentException Weight count must be a multiple of the channel count.
+   @exception      IllegalArgumentException Stride must be positive and padding nonnegative.
+   @exception      IllegalArgumentException Kernel larger than the padded input.
+   */
+
+   public MatrixBatch conv2d (MatrixBatch W, int stride, int padding) {
+      final int C = count, kh = W.rows, kw = W.columns;
+      if (C == 0 || W.count % C != 0) {
+         throw new IllegalArgumentException("Weight count must be a multiple of the channel count.");
+      }
+      if (stride < 1 || padding < 0) {
+         throw new IllegalArgumentException("Stride must be positive and padding nonnegative.");
+      }
+      if (rows + 2*padding < kh || columns + 2*padding < kw) {
+         throw new IllegalArgumentException("Kernel larger than the padded input.");
+      }
+      final int K = W.count / C, depth = C*kh*kw;
+      int ho = Im2col.outputSize(rows, kh, stride, padding);
+      int wo = Im2col.outputSize(columns, kw, stride, padding);
+      double[][] F = new double[K][depth];
+      for (int k = 0; k < K; k++) {
+         System.arraycopy(W.data, k*depth, F[k], 0, depth);
+      }
+      MatrixBatch Y = new MatrixBatch(K, ho, wo);
+      Im2col.convolve(data, C, rows, columns, F, K, kh, kw, stride, padding, Y.data);
+      return Y;
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   private static int size (int count, int rows, int columns) {
+      long s = (long) count * rows * columns;
+      if (count < 0 || rows < 0 || columns < 0 || s > Integer.MAX_VALUE) {
+         throw new IllegalArgumentException("Batch dimensions out of range.");
+      }
+      return (int) s;
+   }
+
+   private int offset (int b, int i, int j) {
+      checkIndex(b);
+      if (i < 0 || i >= rows || j < 0 || j >= columns) {
+         throw new ArrayIndexOutOfBoundsException("Element index out of range.");
+      }
+      return (b*rows + i)*columns + j;
+   }
+
+   private void checkIndex (int b) {
+      if (b < 0 || b >= count) {
+         throw new ArrayIndexOutOfBoundsException("Matrix index out of range.");
+      }
+   }
+
+   /** Count of the result of an operation with B, broadcasting a single matrix. **/
+
+   private int checkCount (MatrixBatch B) {
+      if (B.count != count && B.count != 1 && count != 1) {
+         throw new IllegalArgumentException("Batch counts must agree.");
+      }
+      return Math.max(count, B.count);
+   }
+
+   private void checkSquare () {
+      if (rows != columns) {
+         throw new IllegalArgumentException("Matrix must be square.");
+      }
+   }
+
+   /** c = a*b for an m-by-k and a k-by-n matrix at the given offsets. **/
+
+   private static void multiply (double[] a, int ao, double[] b, int bo, double[] c, int co,
+                                 int m, int n, int k) {
+      for (int i = 0; i < m; i++) {
+         int ci = co + i*n;
+         for (int p = 0; p < k; p++) {
+            double aip = a[ao + i*k + p];
+            int bp = bo + p*n;
+            for (int j = 0; j < n; j++) {
+               c[ci+j] += aip*b[bp+j];
+            }
+         }
+      }
+   }
+
+   /** LU factorization with partial pivoting of an n-by-n matrix in place.
+   @return     the sign of the permutation, +1 or -1.
+   **/
+
+   private static double factor (double[] lu, int[] piv, int n) {
+      double sign = 1.0;
+      for (int i = 0; i < n; i++) {
+         piv[i] = i;
+      }
+      for (int j = 0; j < n; j++) {
+         int p = j;
+         for (int i = j+1; i < n; i++) {
+            if (Math.abs(lu[i*n+j]) > Math.abs(lu[p*n+j])) {
+               p = i;
+            }
+         }
+         if (p != j) {
+            for (int c = 0; c < n; c++) {
+               double t = lu[p*n+c]; lu[p*n+c] = lu[j*n+c]; lu[j*n+c] = t;
+            }
+            int t = piv[p]; piv[p] = piv[j]; piv[j] = t;
+            sign = -sign;
+         }
+         double d = lu[j*n+j];
+         if (d == 0.0) {
+            continue;
+         }
+         for (int i = j+1; i < n; i++) {
+            double l = lu[i*n+j] /= d;
+            for (int c = j+1; c < n; c++) {
+               lu[i*n+c] -= l*lu[j*n+c];
+            }
+         }
+      }
+      return sign;
+   }
+
+   /** Are all pivots of a factored n-by-n matrix nonzero? Unlike the
+       determinant this does not underflow for tiny nonsingular matrices. **/
+
+   private static boolean isNonsingular (double[] lu, int n) {
+      for (int j = 0; j < n; j++) {
+         if (lu[j*n+j] == 0.0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /** x = U \ (L \ b(piv,:)) for nx right hand sides. **/
+
+   private static void substitute (double[] lu, int[] piv, int n, double[] b, int bo,
+                                   double[] x, int xo, int nx) {
+      for (int i = 0; i < n; i++) {
+         System.arraycopy(b, bo + piv[i]*nx, x, xo + i*nx, nx);
+      }
+      for (int k = 0; k < n; k++) {
+         for (int i = k+1; i < n; i++) {
+            double l = lu[i*n+k];
+            for (int c = 0; c < nx; c++) {
+               x[xo + i*nx + c] -= x[xo + k*nx + c]*l;
+            }
+         }
+      }
+      for (int k = n-1; k >= 0; k--) {
+         double d = lu[k*n+k];
+         for (int c = 0; c < nx; c++) {
+            x[xo + k*nx + c] /= d;
+         }
+         for (int i = 0; i < k; i++) {
+            double u = lu[i*n+k];
+            for (int c = 0; c < nx; c++) {
+               x[xo + i*nx + c] -= x[xo + k*nx + c]*u;
+            }
+         }
+      }
+   }
+
+  private static final long serialVersionUID = 1;
+}
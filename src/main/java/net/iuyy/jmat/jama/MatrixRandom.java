@@ -0,0 +1,285 @@
+package net.iuyy.jmat.jama;
+
+import java.util.SplittableRandom;
+
+import net.iuyy.jmat.jama.util.*;
+
+   /** Reproducible random matrices, generated in parallel.
+   <P>
+   Math.random is one generator shared by all threads through an atomic
+   seed, so parallel fills that draw from it contend on it, and no fill can
+   be repeated.  A MatrixRandom owns a SplittableRandom; Matrix.random fills
+   from a fresh unseeded one.  Each fill cuts the m*n elements, row by row,
+   into fixed chunks, splits one generator per chunk off its own in order,
+   and fills the chunks on the {@link Parallel} pool without sharing any
+   state.  The chunks depend only on the size of the matrix, so the same
+   seed gives the same matrices whatever the number of threads.
+   <P>
+   Successive fills continue the sequence of the generator.  Like
+   SplittableRandom, an instance is not meant to be shared by threads; use
+   {@link #split} to hand an independent generator to another thread.
+   */
+
+public class MatrixRandom {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Number of elements drawn from one split generator. **/
+   private static final int CHUNK = 1 << 14;
+
+   private static final int UNIFORM = 0, NORMAL = 1, BERNOULLI = 2, INTEGER = 3;
+
+   /** Generator the chunk generators are split from. **/
+   private SplittableRandom random;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+   /** Construct a generator with a seed.
+   @param seed  Initial seed; equal seeds give equal sequences of matrices.
+   */
+
+   public MatrixRandom (long seed) {
+      this(new SplittableRandom(seed));
+   }
+
+   /** Construct a generator that is unlikely to repeat any other.
+   */
+
+   public MatrixRandom () {
+      this(new SplittableRandom());
+   }
+
+   private MatrixRandom (SplittableRandom random) {
+      this.random = random;
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Split off an independent generator.
+   @return     a new generator, determined by the state of this one.
+   */
+
+   public MatrixRandom split () {
+      return new MatrixRandom(random.split());
+   }
+
+   /** Uniformly distributed elements in [0, 1).
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     m-by-n matrix.
+   */
+
+   public Matrix uniform (int m, int n) {
+      return uniform(m, n, 0.0, 1.0);
+   }
+
+   /** Uniformly distributed elements in [a, b).
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param a    Lower bound.
+   @param b    Upper bound.
+   @return     m-by-n matrix.
+   @exception  IllegalArgumentException Bounds must be finite with a < b.
+   */
+
+   public Matrix uniform (int m, int n, double a, double b) {
+      if (!(a < b) || Double.isInfinite(b - a)) {
+         throw new IllegalArgumentException("Bounds must be finite with a < b.");
+      }
+      return fill(m, n, UNIFORM, a, b);
+   }
+
+   /** Standard normally distributed elements.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     m-by-n matrix.
+   */
+
+   public Matrix normal (int m, int n) {
+      return normal(m, n, 0.0, 1.0);
+   }
+
+   /** Normally distributed elements.
+   @param m       Number of rows.
+   @param n       Number of columns.
+   @param mu      Mean.
+   @param sigma   Standard deviation, nonnegative.
+   @return        m-by-n matrix.
+   @exception     IllegalArgumentException Standard deviation must be nonnegative.
+   */
+
+   public Matrix normal (int m, int n, double mu, double sigma) {
+      if (!(sigma >= 0.0)) {
+         throw new IllegalArgumentException("Standard deviation must be nonnegative.");
+      }
+      return fill(m, n, NORMAL, mu, sigma);
+   }
+
+   /** Elements that are 1 with probability p and 0 otherwise.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param p    Probability of a one.
+   @return     m-by-n matrix of zeros and ones.
+   @exception  IllegalArgumentException Probability must be in [0, 1].
+   */
+
+   public Matrix bernoulli (int m, int n, double p) {
+      if (!(p >= 0.0 && p <= 1.0)) {
+         throw new IllegalArgumentException("Probability must be in [0, 1].");
+      }
+      return fill(m, n, BERNOULLI, p, 0.0);
+   }
+
+   /** Uniformly distributed integers in [lo, hi], like randi([lo hi],m,n).
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param lo   Smallest value.
+   @param hi   Largest value.
+   @return     m-by-n matrix of integers.
+   @exception  IllegalArgumentException Bounds must satisfy lo <= hi.
+   */
+
+   public Matrix integers (int m, int n, int lo, int hi) {
+      if (lo > hi) {
+         throw new IllegalArgumentException("Bounds must satisfy lo <= hi.");
+      }
+      return fill(m, n, INTEGER, lo, hi);
+   }
+
+   /** Samples of a multivariate normal distribution, like mvnrnd.
+   <P>
+   With the Cholesky factor Sigma = L*L', each sample is mu + L*z for a
+   standard normal z, computed for all samples at once as Z*L'.
+   @param mu       Mean, a vector of length d.
+   @param Sigma    d-by-d covariance, symmetric positive definite.
+   @param count    Number of samples.
+   @return         count-by-d matrix with one sample per row.
+   @exception      IllegalArgumentException Matrix dimensions must agree.
+   @exception      IllegalArgumentException Matrix is not symmetric positive definite.
+   */
+
+   public Matrix multivariateNormal (double[] mu, Matrix Sigma, int count) {
+      final int d = mu.length;
+      if (Sigma.getRowDimension() != d || Sigma.getColumnDimension() != d) {
+         throw new IllegalArgumentException("Matrix dimensions must agree.");
+      }
+      CholeskyDecomposition chol = new CholeskyDecomposition(Sigma);
+      if (!chol.isSPD()) {
+         throw new IllegalArgumentException("Matrix is not symmetric positive definite.");
+      }
+      Matrix X = normal(count, d).times(chol.getL().transpose());
+      final double[][] x = X.getArray();
+      Parallel.forRows(count, d, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            Kernels.add(x[i], mu, x[i], d);
+         }
+      });
+      return X;
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Fill an m-by-n matrix chunk by chunk, each chunk with its own generator. **/
+
+   private Matrix fill (int m, int n, int kind, double a, double b) {
+      Matrix X = new Matrix(m,n);
+      final double[][] x = X.getArray();
+      long size = (long) m * n;
+      if (size == 0) {
+         return X;
+      }
+      int chunks = (int) ((size + CHUNK - 1) / CHUNK);
+      final SplittableRandom[] g = new SplittableRandom[chunks];
+      for (int c = 0; c < chunks; c++) {
+         g[c] = random.split();
+      }
+      Parallel.forRows(chunks, CHUNK, (c0, c1) -> {
+         for (int c = c0; c < c1; c++) {
+            long e0 = (long) c * CHUNK, e1 = Math.min(size, e0 + CHUNK);
+            int i = (int) (e0 / n), j = (int) (e0 % n);
+            Sampler s = new Sampler(g[c], kind, a, b);
+            for (long e = e0; e < e1; ) {
+               int len = (int) Math.min(n - j, e1 - e);
+               s.next(x[i], j, j + len);
+               e += len;
+               i++;
+               j = 0;
+            }
+         }
+      });
+      return X;
+   }
+
+   /** Draws of one distribution from one generator. **/
+
+   private static final class Sampler {
+      private final SplittableRandom r;
+      private final int kind;
+      private final double a, b;
+
+      /** Second normal deviate of the last polar pair, if not yet used. **/
+      private double spare;
+      private boolean hasSpare;
+
+      Sampler (SplittableRandom r, int kind, double a, double b) {
+         this.r = r;
+         this.kind = kind;
+         this.a = a;
+         this.b = b;
+      }
+
+      /** y(j0..j1-1) = fresh draws. **/
+
+      void next (double[] y, int j0, int j1) {
+         switch (kind) {
+            case UNIFORM:
+               for (int j = j0; j < j1; j++) {
+                  y[j] = a + (b - a) * r.nextDouble();
+               }
+               break;
+            case NORMAL:
+               for (int j = j0; j < j1; j++) {
+                  y[j] = a + b * gaussian();
+               }
+               break;
+            case BERNOULLI:
+               for (int j = j0; j < j1; j++) {
+                  y[j] = r.nextDouble() < a ? 1.0 : 0.0;
+               }
+               break;
+            default:
+               long lo = (long) a, hi = (long) b + 1;
+               for (int j = j0; j < j1; j++) {
+                  y[j] = r.nextLong(lo, hi);
+               }
+         }
+      }
+
+      /** Standard normal deviate by the Marsaglia polar method. **/
+
+      private double gaussian () {
+         if (hasSpare) {
+            hasSpare = false;
+            return spare;
+         }
+         double u, v, s;
+         do {
+            u = 2.0 * r.nextDouble() - 1.0;
+            v = 2.0 * r.nextDouble() - 1.0;
+            s = u*u + v*v;
+         } while (s >= 1.0 || s == 0.0);
+         double f = Math.sqrt(-2.0 * Math.log(s) / s);
+         spare = v * f;
+         hasSpare = true;
+         return u * f;
+      }
+   }
+}
@@ -0,0 +1,470 @@
+package net.iuyy.jmat.jama;
+
+import java.util.Arrays;
+import net.iuyy.jmat.jama.util.*;
+
+   /** Sparse matrix in compressed sparse row (CSR) form.
+   <P>
+   The nonzeros of row i are values[rowPtr[i] .. rowPtr[i+1]-1], in
+   columns colIdx[rowPtr[i] .. rowPtr[i+1]-1], sorted increasing within
+   each row.  Explicit zeros may be stored.  The structure is fixed once
+   constructed; set() may only change elements that are stored.
+   <P>
+   Products run in parallel over the rows of the result on the
+   {@link Parallel} pool.  Sparse times sparse uses Gustavson's row-by-row
+   algorithm in two passes: a symbolic pass counts the nonzeros of each
+   row of the product with a marker array, so the result is allocated
+   exactly once, and a numeric pass accumulates each row in a dense work
+   array and gathers it in sorted column order.
+   */
+
+public class SparseMatrix implements java.io.Serializable {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Row and column dimensions.
+   @serial row dimension.
+   @serial column dimension.
+   */
+   private int rows, columns;
+
+   /** Row pointers, of length rows+1.
+   @serial row pointers.
+   */
+   private int[] rowPtr;
+
+   /** Column indices of the nonzeros.
+   @serial column indices.
+   */
+   private int[] colIdx;
+
+   /** Values of the nonzeros.
+   @serial values.
+   */
+   private double[] values;
+
+/* ------------------------
+   Constructors
+ * ------------------------ */
+
+   /** Construct a sparse matrix from CSR arrays, without copying.
+   @param rows     Number of rows.
+   @param columns  Number of columns.
+   @param rowPtr   Row pointers, of length rows+1, nondecreasing from 0.
+   @param colIdx   Column indices, sorted within each row.
+   @param values   Values of the nonzeros.
+   @exception      IllegalArgumentException Invalid CSR structure.
+   */
+
+   public SparseMatrix (int rows, int columns, int[] rowPtr, int[] colIdx, double[] values) {
+      if (rows < 0 || columns < 0 || rowPtr.length != rows + 1 || rowPtr[0] != 0
+          || colIdx.length < rowPtr[rows] || values.length < rowPtr[rows]) {
+         throw new IllegalArgumentException("Invalid CSR structure.");
+      }
+      for (int i = 0; i < rows; i++) {
+         if (rowPtr[i+1] < rowPtr[i] || rowPtr[i+1] > rowPtr[rows]) {
+            throw new IllegalArgumentException("Invalid CSR structure.");
+         }
+         for (int p = rowPtr[i]; p < rowPtr[i+1]; p++) {
+            if (colIdx[p] < 0 || colIdx[p] >= columns || (p > rowPtr[i] && colIdx[p] <= colIdx[p-1])) {
+               throw new IllegalArgumentException("Invalid CSR structure.");
+            }
+         }
+      }
+      this.rows = rows;
+      this.columns = columns;
+      this.rowPtr = rowPtr;
+      this.colIdx = colIdx;
+      this.values = values;
+   }
+
+   /** Construct a sparse matrix from the nonzeros of a dense matrix.
+   @param A    Dense matrix.
+   */
+
+   public SparseMatrix (Matrix A) {
+      rows = A.getRowDimension();
+      columns = A.getColumnDimension();
+      double[][] D = A.getArray();
+      rowPtr = new int[rows+1];
+      for (int i = 0; i < rows; i++) {
+         int c = 0;
+         for (int j = 0; j < columns; j++) {
+            if (D[i][j] != 0.0) {
+               c++;
+            }
+         }
+         rowPtr[i+1] = rowPtr[i] + c;
+      }
+      colIdx = new int[rowPtr[rows]];
+      values = new double[rowPtr[rows]];
+      for (int i = 0, p = 0; i < rows; i++) {
+         for (int j = 0; j < columns; j++) {
+            if (D[i][j] != 0.0) {
+               colIdx[p] = j;
+               values[p++] = D[i][j];
+            }
+         }
+      }
+   }
+
+   /** Construct a sparse matrix from coordinate triplets.
+   Duplicate entries are summed.
+   @param rows     Number of rows.
+   @param columns  Number of columns.
+   @param r        Row index of each entry.
+   @param c        Column index of each entry.
+   @param v        Value of each entry.
+   @return         A(r[t], c[t]) = sum of v[t] over duplicates.
+   @exception      IllegalArgumentException Triplet arrays must have the same length.
+   @exception      ArrayIndexOutOfBoundsException Index out of range.
+   */
+
+   public static SparseMatrix triplets (int rows, int columns, int[] r, int[] c, double[] v) {
+      if (r.length != c.length || r.length != v.length) {
+         throw new IllegalArgumentException("Triplet arrays must have the same length.");
+      }
+      int[] count = new int[rows+1];
+      for (int t = 0; t < r.length; t++) {
+         if (r[t] < 0 || r[t] >= rows || c[t] < 0 || c[t] >= columns) {
+            throw new ArrayIndexOutOfBoundsException("Index out of range.");
+         }
+         count[r[t]+1]++;
+      }
+      for (int i = 0; i < rows; i++) {
+         count[i+1] += count[i];
+      }
+      int[] next = Arrays.copyOf(count, rows);
+      int[] ci = new int[r.length];
+      double[] cv = new double[r.length];
+      for (int t = 0; t < r.length; t++) {
+         int p = next[r[t]]++;
+         ci[p] = c[t];
+         cv[p] = v[t];
+      }
+
+      // Sort each row and sum duplicates through a dense work row.
+      int[] ptr = new int[rows+1];
+      double[] w = new double[columns];
+      int[] mark = new int[columns];
+      Arrays.fill(mark, -1);
+      int nz = 0;
+      for (int i = 0; i < rows; i++) {
+         int start = nz;
+         for (int p = count[i]; p < count[i+1]; p++) {
+            int j = ci[p];
+            if (mark[j] != i) {
+               mark[j] = i;
+               w[j] = cv[p];
+               ci[nz++] = j;
+            } else {
+               w[j] += cv[p];
+            }
+         }
+         Arrays.sort(ci, start, nz);
+         for (int p = start; p < nz; p++) {
+            cv[p] = w[ci[p]];
+         }
+         ptr[i+1] = nz;
+      }
+      return new SparseMatrix(rows, columns, ptr, Arrays.copyOf(ci, nz), Arrays.copyOf(cv, nz));
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Get row dimension.
+   @return     m, the number of rows.
+   */
+
+   public int getRowDimension () {
+      return rows;
+   }
+
+   /** Get column dimension.
+   @return     n, the number of columns.
+   */
+
+   public int getColumnDimension () {
+      return columns;
+   }
+
+   /** Number of stored elements.
+   @return     nnz, including explicit zeros.
+   */
+
+   public int getNonzeroCount () {
+      return rowPtr[rows];
+   }
+
+   /** Access the row pointers.
+   @return     Pointer to the internal array of length m+1.
+   */
+
+   public int[] getRowPointers () {
+      return rowPtr;
+   }
+
+   /** Access the column indices.
+   @return     Pointer to the internal array.
+   */
+
+   public int[] getColumnIndices () {
+      return colIdx;
+   }
+
+   /** Access the values.
+   @return     Pointer to the internal array.
+   */
+
+   public double[] getValues () {
+      return values;
+   }
+
+   /** Get a single element.
+   @param i    Row index.
+   @param j    Column index.
+   @return     A(i,j), zero if not stored.
+   @exception  ArrayIndexOutOfBoundsException
+   */
+
+   public double get (int i, int j) {
+      int p = find(i, j);
+      return p >= 0 ? values[p] : 0.0;
+   }
+
+   /** Set a stored element.
+   @param i    Row index.
+   @param j    Column index.
+   @param s    A(i,j).
+   @exception  ArrayIndexOutOfBoundsException
+   @exception  IllegalArgumentException Element is not stored.
+   */
+
+   public void set (int i, int j, double s) {
+      int p = find(i, j);
+      if (p < 0) {
+         throw new IllegalArgumentException("Element is not stored.");
+      }
+      values[p] = s;
+   }
+
+   /** Convert to a dense matrix.
+   @return     Dense copy of A.
+   */
+
+   public Matrix toMatrix () {
+      Matrix X = new Matrix(rows, columns);
+      double[][] C = X.getArray();
+      for (int i = 0; i < rows; i++) {
+         for (int p = rowPtr[i]; p < rowPtr[i+1]; p++) {
+            C[i][colIdx[p]] = values[p];
+         }
+      }
+      return X;
+   }
+
+   /** Sparse matrix transpose.
+   @return    A'
+   */
+
+   public SparseMatrix transpose () {
+      int nz = rowPtr[rows];
+      int[] ptr = new int[columns+1];
+      for (int p = 0; p < nz; p++) {
+         ptr[colIdx[p]+1]++;
+      }
+      for (int j = 0; j < columns; j++) {
+         ptr[j+1] += ptr[j];
+      }
+      int[] next = Arrays.copyOf(ptr, columns);
+      int[] ci = new int[nz];
+      double[] cv = new double[nz];
+      for (int i = 0; i < rows; i++) {
+         for (int p = rowPtr[i]; p < rowPtr[i+1]; p++) {
+            int q = next[colIdx[p]]++;
+            ci[q] = i;
+            cv[q] = values[p];
+         }
+      }
+      return new SparseMatrix(columns, rows, ptr, ci, cv);
+   }
+
+   /** Sparse matrix-vector multiplication, A * x
+   @param x    vector of length n
+   @return     new vector of length m, A * x
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public double[] times (double[] x) {
+      if (x.length != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      double[] y = new double[rows];
+      Parallel.forRows(rows, averageRow(), (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            double s = 0.0;
+            for (int p = rowPtr[i]; p < rowPtr[i+1]; p++) {
+               s += values[p]*x[colIdx[p]];
+            }
+            y[i] = s;
+         }
+      });
+      return y;
+   }
+
+   /** Sparse times dense multiplication, A * B
+   <P>
+   Each row of the product is a combination of the rows of B selected by
+   the nonzeros of the row of A, added with the axpy kernel.
+   @param B    dense matrix
+   @return     dense product, A * B
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public Matrix times (Matrix B) {
+      if (B.getRowDimension() != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      final int n = B.getColumnDimension();
+      final double[][] D = B.getArray();
+      Matrix X = new Matrix(rows, n);
+      final double[][] C = X.getArray();
+      Parallel.forRows(rows, averageRow() * n, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            double[] Ci = C[i];
+            for (int p = rowPtr[i]; p < rowPtr[i+1]; p++) {
+               Kernels.axpy(values[p], D[colIdx[p]], 0, Ci, 0, n);
+            }
+         }
+      });
+      return X;
+   }
+
+   /** Sparse times sparse multiplication, A * B
+   @param B    sparse matrix
+   @return     sparse product, A * B, with sorted column indices
+   @exception  IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public SparseMatrix times (SparseMatrix B) {
+      if (B.rows != columns) {
+         throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+      }
+      final int m = rows, n = B.columns;
+      final int[] bp = B.rowPtr, bi = B.colIdx;
+      final double[] bv = B.values;
+
+      // Average multiply-adds per row, as the cost estimate for splitting.
+      long flops = 0;
+      for (int p = 0; p < rowPtr[m]; p++) {
+         flops += bp[colIdx[p]+1] - bp[colIdx[p]];
+      }
+      int cost = (int) Math.min(Integer.MAX_VALUE, Math.max(1, flops / Math.max(1, m)));
+
+      // Symbolic pass: nonzeros per row of the product.
+      final int[] ptr = new int[m+1];
+      Parallel.forRows(m, cost, (i0, i1) -> {
+         int[] mark = new int[n];
+         Arrays.fill(mark, -1);
+         for (int i = i0; i < i1; i++) {
+            int c = 0;
+            for (int p = rowPtr[i]; p < rowPtr[i+1]; p++) {
+               int k = colIdx[p];
+               for (int q = bp[k]; q < bp[k+1]; q++) {
+                  if (mark[bi[q]] != i) {
+                     mark[bi[q]] = i;
+                     c++;
+                  }
+               }
+            }
+            ptr[i+1] = c;
+         }
+      });
+      for (int i = 0; i < m; i++) {
+         ptr[i+1] += ptr[i];
+      }
+
+      // Numeric pass: accumulate each row densely, gather in column order.
+      final int[] ci = new int[ptr[m]];
+      final double[] cv = new double[ptr[m]];
+      Parallel.forRows(m, cost, (i0, i1) -> {
+         int[] mark = new int[n];
+         double[] w = new double[n];
+         Arrays.fill(mark, -1);
+         for (int i = i0; i < i1; i++) {
+            int nz = ptr[i];
+            for (int p = rowPtr[i]; p < rowPtr[i+1]; p++) {
+               int k = colIdx[p];
+               double a = values[p];
+               for (int q = bp[k]; q < bp[k+1]; q++) {
+                  int j = bi[q];
+                  if (mark[j] != i) {
+                     mark[j] = i;
+                     w[j] = a*bv[q];
+                     ci[nz++] = j;
+                  } else {
+                     w[j] += a*bv[q];
+                  }
+               }
+            }
+            Arrays.sort(ci, ptr[i], nz);
+            for (int q = ptr[i]; q < nz; q++) {
+               cv[q] = w[ci[q]];
+            }
+         }
+      });
+      return new SparseMatrix(m, n, ptr, ci, cv);
+   }
+
+   /** Dense times sparse multiplication, C += A * B, row-parallel over A.
+   @param A    m-by-k dense array.
+   @param B    k-by-n sparse matrix.
+   @param C    m-by-n dense array, updated in place.
+   @param m    Number of rows of A.
+   @param k    Number of columns of A.
+   */
+
+   static void times (double[][] A, SparseMatrix B, double[][] C, int m, int k) {
+      final int[] bp = B.rowPtr, bi = B.colIdx;
+      final double[] bv = B.values;
+      Parallel.forRows(m, Math.max(1, B.getNonzeroCount()), (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A[i], Ci = C[i];
+            for (int p = 0; p < k; p++) {
+               double a = Ai[p];
+               if (a != 0.0) {
+                  for (int q = bp[p]; q < bp[p+1]; q++) {
+                     Ci[bi[q]] += a*bv[q];
+                  }
+               }
+            }
+         }
+      });
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Position of A(i,j) in the arrays, or -1 if not stored. **/
+
+   private int find (int i, int j) {
+      if (i < 0 || i >= rows || j < 0 || j >= columns) {
+         throw new ArrayIndexOutOfBoundsException("Index out of range.");
+      }
+      int p = Arrays.binarySearch(colIdx, rowPtr[i], rowPtr[i+1], j);
+      return p >= 0 ? p : -1;
+   }
+
+   /** Average number of stored elements per row, at least one. **/
+
+   private int averageRow () {
+      return Math.max(1, rowPtr[rows] / Math.max(1, rows));
+   }
+
+  private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,160 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+   /** Product of a chain of matrices in the cheapest order.
+   <P>
+   The order is found by the classic O(q^3) dynamic program over the
+   dimensions p[0..q] of the q factors, minimizing the number of scalar
+   multiplications p[i]*p[k+1]*p[j+1] summed over all splits.  A vector
+   factor (one row or one column) makes every product touching it cheap,
+   so the plan naturally multiplies vectors in first; such products use
+   the matrix-vector paths of {@link Gemm}.  Intermediate results are
+   returned to a pool once consumed and reused for later intermediates of
+   the same shape.
+   */
+
+public final class Chain {
+
+   private Chain () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Dimensions of a chain.
+   @param rows     Row count of each factor.
+   @param columns  Column count of each factor.
+   @return         p with factor i of size p[i]-by-p[i+1].
+   @exception      IllegalArgumentException Matrix inner dimensions must agree.
+   */
+
+   public static int[] dimensions (int[] rows, int[] columns) {
+      int q = rows.length;
+      if (q == 0) {
+         throw new IllegalArgumentException("At least one matrix is required.");
+      }
+      int[] p = new int[q+1];
+      p[0] = rows[0];
+      for (int i = 0; i < q; i++) {
+         if (rows[i] != p[i]) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+         }
+         p[i+1] = columns[i];
+      }
+      return p;
+   }
+
+   /** Optimal split points.
+   @param p    Dimensions, factor i is p[i]-by-p[i+1].
+   @return     s with s[i][j] the last factor of the left part of the best split of factors i..j.
+   */
+
+   public static int[][] plan (int[] p) {
+      int q = p.length - 1;
+      double[][] cost = new double[q][q];
+      int[][] s = new int[q][q];
+      for (int len = 2; len <= q; len++) {
+         for (int i = 0; i + len - 1 < q; i++) {
+            int j = i + len - 1;
+            cost[i][j] = Double.POSITIVE_INFINITY;
+            for (int k = i; k < j; k++) {
+               double c = cost[i][k] + cost[k+1][j] + (double) p[i] * p[k+1] * p[j+1];
+               if (c < cost[i][j]) {
+                  cost[i][j] = c;
+                  s[i][j] = k;
+               }
+            }
+         }
+      }
+      return s;
+   }
+
+   /** Number of scalar multiplications of the optimal order.
+   @param p    Dimensions, factor i is p[i]-by-p[i+1].
+   @return     minimal cost, as a double to avoid overflow.
+   */
+
+   public static double cost (int[] p) {
+      return cost(p, plan(p), 0, p.length - 2);
+   }
+
+   /** Multiply a chain of arrays in the optimal order.
+   @param factors  Factor i of size p[i]-by-p[i+1].
+   @param p        Dimensions.
+   @return         The product, a new array unless the chain has a single factor.
+   */
+
+   public static double[][] multiply (double[][][] factors, int[] p) {
+      int q = factors.length;
+      if (q == 1) {
+         return factors[0];
+      }
+      return new Run(factors, p, plan(p)).product(0, q - 1);
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   private static double cost (int[] p, int[][] s, int i, int j) {
+      if (i == j) {
+         return 0.0;
+      }
+      int k = s[i][j];
+      return cost(p, s, i, k) + cost(p, s, k+1, j) + (double) p[i] * p[k+1] * p[j+1];
+   }
+
+   /** Execution of one plan with a pool of free intermediates. **/
+
+   private static final class Run {
+      final double[][][] factors;
+      final int[] p;
+      final int[][] s;
+      final List<double[][]> free = new ArrayList<double[][]>();
+
+      Run (double[][][] factors, int[] p, int[][] s) {
+         this.factors = factors;
+         this.p = p;
+         this.s = s;
+      }
+
+      /** Product of factors i..j; intermediates are owned by this run. **/
+
+      double[][] product (int i, int j) {
+         if (i == j) {
+            return factors[i];
+         }
+         int k = s[i][j];
+         double[][] L = product(i, k);
+         double[][] R = product(k+1, j);
+         double[][] C = acquire(p[i], p[j+1]);
+         Gemm.gemm(1.0, L, 0, 0, R, 0, 0, C, 0, 0, p[i], p[j+1], p[k+1]);
+         if (k > i) {
+            free.add(L);
+         }
+         if (k+1 < j) {
+            free.add(R);
+         }
+         return C;
+      }
+
+      /** A zeroed m-by-n array, reused from the pool when one of that shape is free. **/
+
+      double[][] acquire (int m, int n) {
+         for (int t = free.size() - 1; t >= 0; t--) {
+            double[][] X = free.get(t);
+            if (X.length == m && (m == 0 || X[0].length == n)) {
+               free.remove(t);
+               for (double[] row : X) {
+                  Arrays.fill(row, 0.0);
+               }
+               return X;
+            }
+         }
+         return new double[m][n];
+      }
+   }
+}
@@ -0,0 +1,157 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+
+   /** Pairwise distances between the rows of two dense arrays.
+   <P>
+   For rows a of an m-by-d A and b of a p-by-d B,
+   <PRE>
+      ||a - b||^2 = ||a||^2 + ||b||^2 - 2 a.b,     cos(a,b) = a.b / (||a|| ||b||),
+   </PRE>
+   so all m*p distances come from the squared norms of the rows and the
+   single product A*B', which {@link Gemm} computes at full speed with B
+   used transposed in place.  A parallel pass then turns each dot product
+   into a distance.  Cancellation can leave a squared distance slightly
+   negative, or a cosine distance slightly outside [0, 2], so results are
+   clamped into range; the distance of a row to itself is zero up to
+   rounding.  Cosine distances involving a zero row are NaN.
+   <P>
+   The tiled form never holds more than one tile of the result: it walks
+   the tiles row band by row band, computes each into one reused buffer and
+   hands it to a callback, so the distances of 100k by 100k rows can be
+   reduced without the 80 GB matrix.
+   */
+
+public final class Distances {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Metrics: Euclidean, squared Euclidean and cosine distance 1 - cos(a,b). **/
+   public static final int EUCLIDEAN = 0, SQUARED_EUCLIDEAN = 1, COSINE = 2;
+
+   private Distances () {}
+
+   /** Receiver of the tiles of a distance matrix. **/
+
+   public interface Tile {
+      /** D(0:rows-1, 0:columns-1) are the distances of rows i0.. of A to rows j0.. of B.
+      The array is reused for the next tile once this returns.
+      */
+      void apply (int i0, int j0, double[][] D, int rows, int columns);
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** All pairwise distances.
+   @param A       m-by-d array, one point per row.
+   @param B       p-by-d array, one point per row.
+   @param m       Number of rows of A.
+   @param p       Number of rows of B.
+   @param d       Number of columns of A and B.
+   @param metric  EUCLIDEAN, SQUARED_EUCLIDEAN or COSINE.
+   @return        m-by-p array with the distance of A(i,:) to B(j,:) at (i,j).
+   @exception     IllegalArgumentException Unknown metric.
+   */
+
+   public static double[][] pairwise (double[][] A, double[][] B, int m, int p, int d, int metric) {
+      checkMetric(metric);
+      double[][] D = new double[m][p];
+      double[] na = norms(A, m, d), nb = norms(B, p, d);
+      Gemm.gemm(false, true, 1.0, A, 0, 0, B, 0, 0, D, 0, 0, m, p, d);
+      finish(D, na, nb, 0, 0, m, p, metric);
+      return D;
+   }
+
+   /** Pairwise distances, tile by tile.
+   @param A            m-by-d array, one point per row.
+   @param B            p-by-d array, one point per row.
+   @param m            Number of rows of A.
+   @param p            Number of rows of B.
+   @param d            Number of columns of A and B.
+   @param metric       EUCLIDEAN, SQUARED_EUCLIDEAN or COSINE.
+   @param tileRows     Rows of A per tile.
+   @param tileColumns  Rows of B per tile.
+   @param tile         Called with every tile, in row major order of the tiles.
+   @exception          IllegalArgumentException Unknown metric.
+   @exception          IllegalArgumentException Tile dimensions must be positive.
+   */
+
+   public static void pairwise (double[][] A, double[][] B, int m, int p, int d, int metric,
+                                int tileRows, int tileColumns, Tile tile) {
+      checkMetric(metric);
+      if (tileRows < 1 || tileColumns < 1) {
+         throw new IllegalArgumentException("Tile dimensions must be positive.");
+      }
+      double[] na = norms(A, m, d), nb = norms(B, p, d);
+      int tr = Math.min(tileRows, m), tc = Math.min(tileColumns, p);
+      double[][] T = new double[tr][tc];
+      for (int i0 = 0; i0 < m; i0 += tr) {
+         int r = Math.min(tr, m - i0);
+         for (int j0 = 0; j0 < p; j0 += tc) {
+            int c = Math.min(tc, p - j0);
+            for (int i = 0; i < r; i++) {
+               Arrays.fill(T[i], 0, c, 0.0);
+            }
+            Gemm.gemm(false, true, 1.0, A, i0, 0, B, j0, 0, T, 0, 0, r, c, d);
+            finish(T, na, nb, i0, j0, r, c, metric);
+            tile.apply(i0, j0, T, r, c);
+         }
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   private static void checkMetric (int metric) {
+      if (metric != EUCLIDEAN && metric != SQUARED_EUCLIDEAN && metric != COSINE) {
+         throw new IllegalArgumentException("Unknown metric.");
+      }
+   }
+
+   /** Squared norms of the rows. **/
+
+   private static double[] norms (double[][] A, int m, int d) {
+      double[] s = new double[m];
+      Parallel.forRows(m, d, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            s[i] = Kernels.dot(A[i], 0, A[i], 0, d);
+         }
+      });
+      return s;
+   }
+
+   /** Turn the dot products in D(0:r-1, 0:c-1) of rows i0.. and j0.. into distances. **/
+
+   private static void finish (double[][] D, double[] na, double[] nb, int i0, int j0,
+                               int r, int c, int metric) {
+      Parallel.forRows(r, c, (t0, t1) -> {
+         for (int t = t0; t < t1; t++) {
+            double[] Dt = D[t];
+            double a = na[i0 + t];
+            switch (metric) {
+               case EUCLIDEAN:
+                  for (int j = 0; j < c; j++) {
+                     Dt[j] = Math.sqrt(Math.max(0.0, a + nb[j0 + j] - 2.0 * Dt[j]));
+                  }
+                  break;
+               case SQUARED_EUCLIDEAN:
+                  for (int j = 0; j < c; j++) {
+                     Dt[j] = Math.max(0.0, a + nb[j0 + j] - 2.0 * Dt[j]);
+                  }
+                  break;
+               default:
+                  double ra = 1.0 / Math.sqrt(a);
+                  for (int j = 0; j < c; j++) {
+                     double cos = Dt[j] * ra / Math.sqrt(nb[j0 + j]);
+                     Dt[j] = 1.0 - Math.max(-1.0, Math.min(1.0, cos));
+                  }
+            }
+         }
+      });
+   }
+}
@@ -0,0 +1,414 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+   /** Fast Fourier transforms and FFT-based convolution.
+   <P>
+   Complex data is kept split, real and imaginary parts in separate
+   arrays.  The forward transform is X(k) = sum x(j) exp(-2 pi i jk/n)
+   and the inverse includes the factor 1/n, as in MATLAB fft and ifft.
+   <P>
+   A {@link Plan} holds everything that depends only on the length: for a
+   power of two the bit reversal permutation and the twiddle factors of an
+   iterative radix-2 transform, for any other length the chirp of
+   Bluestein's algorithm, which turns the transform into a convolution
+   done by a power-of-two plan.  Plans are immutable and cached by length,
+   so repeated transforms of the same size build them once.
+   <P>
+   Transforms along a dimension run over rows on the {@link Parallel}
+   pool; columns are transposed into rows first.  Two real rows are
+   transformed together as the real and imaginary part of one complex row
+   and separated by conjugate symmetry, which halves the work for real
+   input.  Convolution chooses between the direct sum and the product of
+   transforms by comparing their operation counts.
+   */
+
+public final class FFT {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Plans by length. **/
+   private static final ConcurrentHashMap<Integer, Plan> PLANS = new ConcurrentHashMap<Integer, Plan>();
+
+   /** FFT convolution is used once the direct sum needs this many times
+   more multiply-adds than n log2(n) for the padded size n. **/
+   static final int CROSSOVER = 10;
+
+   private FFT () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Plan for transforms of length n, from the cache.
+   @param n    Length.
+   @return     the shared plan.
+   @exception  IllegalArgumentException Length must be positive.
+   */
+
+   public static Plan plan (int n) {
+      if (n < 1) {
+         throw new IllegalArgumentException("Length must be positive.");
+      }
+      Plan p = PLANS.get(n);
+      if (p == null) {
+         p = new Plan(n);
+         Plan q = PLANS.putIfAbsent(n, p);
+         if (q != null) {
+            p = q;
+         }
+      }
+      return p;
+   }
+
+   /** Drop all cached plans. **/
+
+   public static void clearCache () {
+      PLANS.clear();
+   }
+
+   /** Complex transform along a dimension, in place.
+   @param re       m-by-n real parts.
+   @param im       m-by-n imaginary parts.
+   @param m        Number of rows.
+   @param n        Number of columns.
+   @param dim      1 to transform each column, 2 each row.
+   @param inverse  true for the inverse transform.
+   @exception      IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static void transform (double[][] re, double[][] im, int m, int n, int dim, boolean inverse) {
+      Reductions.checkDimension(dim);
+      if (m == 0 || n == 0) {
+         return;
+      }
+      if (dim == 2) {
+         Plan p = plan(n);
+         Parallel.forRows(m, cost(n), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+               p.transform(re[i], im[i], inverse);
+            }
+         });
+         return;
+      }
+      double[][] tr = new double[n][m], ti = new double[n][m];
+      Transpose.transpose(re, tr, m, n);
+      Transpose.transpose(im, ti, m, n);
+      transform(tr, ti, n, m, 2, inverse);
+      Transpose.transpose(tr, re, n, m);
+      Transpose.transpose(ti, im, n, m);
+   }
+
+   /** Transform of real data along a dimension.
+   @param x    m-by-n real array, unchanged.
+   @param re   m-by-n real parts of the result, overwritten.
+   @param im   m-by-n imaginary parts of the result, overwritten.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param dim  1 to transform each column, 2 each row.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static void transformReal (double[][] x, double[][] re, double[][] im, int m, int n, int dim) {
+      Reductions.checkDimension(dim);
+      if (m == 0 || n == 0) {
+         return;
+      }
+      if (dim == 1) {
+         double[][] xt = new double[n][m], tr = new double[n][m], ti = new double[n][m];
+         Transpose.transpose(x, xt, m, n);
+         transformReal(xt, tr, ti, n, m, 2);
+         Transpose.transpose(tr, re, n, m);
+         Transpose.transpose(ti, im, n, m);
+         return;
+      }
+      Plan p = plan(n);
+      int pairs = (m + 1) / 2;
+      Parallel.forRows(pairs, 2 * cost(n), (k0, k1) -> {
+         for (int k = k0; k < k1; k++) {
+            int a = 2*k, b = a + 1;
+            if (b == m) {
+               System.arraycopy(x[a], 0, re[a], 0, n);
+               Arrays.fill(im[a], 0, n, 0.0);
+               p.transform(re[a], im[a], false);
+               continue;
+            }
+            double[] zr = re[a], zi = im[a];
+            System.arraycopy(x[a], 0, zr, 0, n);
+            System.arraycopy(x[b], 0, zi, 0, n);
+            p.transform(zr, zi, false);
+            double[] br = re[b], bi = im[b];
+            for (int j = 0; j <= n / 2; j++) {
+               int r = (n - j) % n;
+               double pr = zr[j], pi = zi[j], qr = zr[r], qi = zi[r];
+               zr[j] = (pr + qr)/2; zi[j] = (pi - qi)/2;
+               br[j] = (pi + qi)/2; bi[j] = (qr - pr)/2;
+               zr[r] = zr[j]; zi[r] = -zi[j];
+               br[r] = br[j]; bi[r] = -bi[j];
+            }
+         }
+      });
+   }
+
+   /** Would FFT convolution beat the direct sum for these sizes?
+   @param ma   Rows of A.
+   @param na   Columns of A.
+   @param mb   Rows of B.
+   @param nb   Columns of B.
+   @return     true if the padded transforms cost less.
+   */
+
+   public static boolean isPreferred (int ma, int na, int mb, int nb) {
+      long size = (long) size(ma + mb - 1) * size(na + nb - 1);
+      double direct = (double) ma * na * mb * nb;
+      return direct > CROSSOVER * size * Math.max(1, 64 - Long.numberOfLeadingZeros(size));
+   }
+
+   /** Full two-dimensional convolution, conv2(A,B).
+   @param A    ma-by-na array.
+   @param B    mb-by-nb array.
+   @param ma   Rows of A.
+   @param na   Columns of A.
+   @param mb   Rows of B.
+   @param nb   Columns of B.
+   @return     (ma+mb-1)-by-(na+nb-1) array, by transforms if {@link #isPreferred}.
+   */
+
+   public static double[][] convolve (double[][] A, double[][] B, int ma, int na, int mb, int nb) {
+      if (ma == 0 || na == 0 || mb == 0 || nb == 0) {
+         return new double[Math.max(0, ma + mb - 1)][Math.max(0, na + nb - 1)];
+      }
+      return isPreferred(ma, na, mb, nb) ? convolveFFT(A, B, ma, na, mb, nb)
+                                         : convolveDirect(A, B, ma, na, mb, nb);
+   }
+
+   /** Full convolution by the direct sum, in parallel over output rows. **/
+
+   public static double[][] convolveDirect (double[][] A, double[][] B, int ma, int na, int mb, int nb) {
+      int m = ma + mb - 1, n = na + nb - 1;
+      double[][] C = new double[m][n];
+      Parallel.forRows(m, na * mb * nb, (r0, r1) -> {
+         for (int r = r0; r < r1; r++) {
+            double[] Cr = C[r];
+            for (int p = Math.max(0, r - ma + 1); p <= Math.min(r, mb - 1); p++) {
+               double[] Ai = A[r - p], Bp = B[p];
+               for (int j = 0; j < na; j++) {
+                  Kernels.axpy(Ai[j], Bp, 0, Cr, j, nb);
+               }
+            }
+         }
+      });
+      return C;
+   }
+
+   /** Full convolution by transforms.
+   <P>
+   A and B are packed as the real and imaginary part of one array Z and
+   padded to powers of two, so a single forward transform serves both;
+   with F the transform, F(A)F(B) = (Z(k)^2 - conj(Z(-k))^2) / 4i.
+   */
+
+   public static double[][] convolveFFT (double[][] A, double[][] B, int ma, int na, int mb, int nb) {
+      int m = ma + mb - 1, n = na + nb - 1;
+      int P = size(m), Q = size(n);
+      double[][] zr = new double[P][Q], zi = new double[P][Q];
+      for (int i = 0; i < ma; i++) {
+         System.arraycopy(A[i], 0, zr[i], 0, na);
+      }
+      for (int i = 0; i < mb; i++) {
+         System.arraycopy(B[i], 0, zi[i], 0, nb);
+      }
+      transform(zr, zi, P, Q, 2, false);
+      transform(zr, zi, P, Q, 1, false);
+      double[][] wr = new double[P][Q], wi = new double[P][Q];
+      Parallel.forRows(P, Q, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            double[] Zr = zr[i], Zi = zi[i], Yr = zr[(P - i) % P], Yi = zi[(P - i) % P];
+            for (int j = 0; j < Q; j++) {
+               int l = (Q - j) % Q;
+               double ar = Zr[j], ai = Zi[j], br = Yr[l], bi = Yi[l];
+               double dr = ar*ar - ai*ai - br*br + bi*bi;
+               double di = 2*(ar*ai + br*bi);
+               wr[i][j] = di/4;
+               wi[i][j] = -dr/4;
+            }
+         }
+      });
+      transform(wr, wi, P, Q, 1, true);
+      transform(wr, wi, P, Q, 2, true);
+      double[][] C = new double[m][];
+      for (int i = 0; i < m; i++) {
+         C[i] = Arrays.copyOf(wr[i], n);
+      }
+      return C;
+   }
+
+   /** Length-n transform.
+   <P>
+   Powers of two use an iterative radix-2 transform.  Other lengths use
+   Bluestein's algorithm: with w(k) = exp(-i pi k^2/n), X(k) = w(k) times
+   the convolution of x(j)w(j) with conj(w), done by a power-of-two plan
+   of length at least 2n-1 with the transform of conj(w) precomputed.
+   */
+
+   public static final class Plan {
+
+      /** Length. **/
+      private final int n;
+
+      /** Bit reversal permutation, for powers of two. **/
+      private final int[] rev;
+
+      /** cos and sin of 2 pi k/n for k < n/2, for powers of two. **/
+      private final double[] cos, sin;
+
+      /** Bluestein chirp w(k) and transform of conj(w), otherwise. **/
+      private final double[] wr, wi, br, bi;
+
+      /** Power-of-two plan for the Bluestein convolution. **/
+      private final Plan inner;
+
+      private Plan (int n) {
+         this.n = n;
+         if ((n & (n - 1)) == 0) {
+            int bits = Integer.numberOfTrailingZeros(n);
+            rev = new int[n];
+            for (int k = 0; k < n; k++) {
+               rev[k] = bits == 0 ? 0 : Integer.reverse(k) >>> (32 - bits);
+            }
+            cos = new double[n / 2];
+            sin = new double[n / 2];
+            for (int k = 0; k < n / 2; k++) {
+               double t = 2 * Math.PI * k / n;
+               cos[k] = Math.cos(t);
+               sin[k] = Math.sin(t);
+            }
+            wr = wi = br = bi = null;
+            inner = null;
+         } else {
+            int M = Integer.highestOneBit(2*n - 1) << 1;
+            inner = plan(M);
+            wr = new double[n];
+            wi = new double[n];
+            for (int k = 0; k < n; k++) {
+               // k^2 mod 2n keeps the angle small and exact.
+               double t = Math.PI * (int) (((long) k * k) % (2L * n)) / n;
+               wr[k] = Math.cos(t);
+               wi[k] = -Math.sin(t);
+            }
+            br = new double[M];
+            bi = new double[M];
+            br[0] = wr[0];
+            bi[0] = -wi[0];
+            for (int k = 1; k < n; k++) {
+               br[k] = br[M-k] = wr[k];
+               bi[k] = bi[M-k] = -wi[k];
+            }
+            inner.transform(br, bi, false);
+            rev = null;
+            cos = sin = null;
+         }
+      }
+
+      /** Length of the transform.
+      @return     n
+      */
+
+      public int size () {
+         return n;
+      }
+
+      /** Transform the first n elements in place.
+      @param re       Real parts.
+      @param im       Imaginary parts.
+      @param inverse  true for the inverse transform, scaled by 1/n.
+      */
+
+      public void transform (double[] re, double[] im, boolean inverse) {
+         if (rev != null) {
+            radix2(re, im, inverse);
+         } else if (inverse) {
+            for (int k = 0; k < n; k++) {
+               im[k] = -im[k];
+            }
+            bluestein(re, im);
+            for (int k = 0; k < n; k++) {
+               im[k] = -im[k];
+            }
+         } else {
+            bluestein(re, im);
+         }
+         if (inverse) {
+            double s = 1.0 / n;
+            for (int k = 0; k < n; k++) {
+               re[k] *= s;
+               im[k] *= s;
+            }
+         }
+      }
+
+      private void radix2 (double[] re, double[] im, boolean inverse) {
+         for (int k = 0; k < n; k++) {
+            int r = rev[k];
+            if (r > k) {
+               double t = re[k]; re[k] = re[r]; re[r] = t;
+               t = im[k]; im[k] = im[r]; im[r] = t;
+            }
+         }
+         for (int size = 2; size <= n; size <<= 1) {
+            int half = size >>> 1, step = n / size;
+            for (int i = 0; i < n; i += size) {
+               for (int j = 0, k = 0; j < half; j++, k += step) {
+                  double c = cos[k], s = inverse ? sin[k] : -sin[k];
+                  int a = i + j, b = a + half;
+                  double tr = re[b]*c - im[b]*s;
+                  double ti = re[b]*s + im[b]*c;
+                  re[b] = re[a] - tr;
+                  im[b] = im[a] - ti;
+                  re[a] += tr;
+                  im[a] += ti;
+               }
+            }
+         }
+      }
+
+      private void bluestein (double[] re, double[] im) {
+         int M = br.length;
+         double[] ar = new double[M], ai = new double[M];
+         for (int k = 0; k < n; k++) {
+            ar[k] = re[k]*wr[k] - im[k]*wi[k];
+            ai[k] = re[k]*wi[k] + im[k]*wr[k];
+         }
+         inner.transform(ar, ai, false);
+         for (int k = 0; k < M; k++) {
+            double r = ar[k]*br[k] - ai[k]*bi[k];
+            ai[k] = ar[k]*bi[k] + ai[k]*br[k];
+            ar[k] = r;
+         }
+         inner.transform(ar, ai, true);
+         for (int k = 0; k < n; k++) {
+            re[k] = ar[k]*wr[k] - ai[k]*wi[k];
+            im[k] = ar[k]*wi[k] + ai[k]*wr[k];
+         }
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Smallest power of two not below n. **/
+
+   private static int size (int n) {
+      return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+   }
+
+   /** Work estimate for one transform of length n, in elements. **/
+
+   private static int cost (int n) {
+      return n * Math.max(1, 32 - Integer.numberOfLeadingZeros(n));
+   }
+}
@@ -0,0 +1,299 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+
+   /** Unrolled kernels for 2-by-2, 3-by-3 and 4-by-4 matrices.
+   <P>
+   Straight-line code with every element in a local variable, so a tiny
+   product, determinant or inverse costs a few dozen flops instead of the
+   loop, allocation and pivoting overhead of the general algorithms.
+   Determinants use cofactor expansion (for 4-by-4 through the six 2-by-2
+   minors of the top and bottom row pairs) and inverses the adjugate
+   divided by the determinant.
+   <P>
+   Without pivoting the closed forms are less robust than LU for badly
+   scaled or nearly singular matrices, so {@link #inverse} declines,
+   returning false, when the determinant is zero or not finite, and
+   {@link #solve} does not use them at all: it eliminates with partial
+   pivoting, unrolled only by the compiler, since solving through the
+   inverse is not backward stable.  Callers fall back to the general path,
+   which also reports singular matrices.
+   */
+
+public final class Fixed {
+
+   private Fixed () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Is there a fixed-size kernel for n-by-n matrices?
+   @param n    Dimension.
+   @return     true for n = 2, 3, 4.
+   */
+
+   public static boolean supports (int n) {
+      return n >= 2 && n <= 4;
+   }
+
+   /** C = A*B for n-by-n arrays.
+   @param A    n-by-n array.
+   @param B    n-by-n array.
+   @param C    n-by-n array, overwritten; must not be A or B.
+   @param n    Dimension, 2, 3 or 4.
+   */
+
+   public static void multiply (double[][] A, double[][] B, double[][] C, int n) {
+      switch (n) {
+         case 2: multiply2(A, B, C); break;
+         case 3: multiply3(A, B, C); break;
+         case 4: multiply4(A, B, C); break;
+         default: throw new IllegalArgumentException("Dimension must be 2, 3 or 4.");
+      }
+   }
+
+   /** Determinant of an n-by-n array.
+   @param A    n-by-n array.
+   @param n    Dimension, 2, 3 or 4.
+   @return     det(A)
+   */
+
+   public static double det (double[][] A, int n) {
+      switch (n) {
+         case 2: return det2(A);
+         case 3: return det3(A);
+         case 4: return det4(A);
+         default: throw new IllegalArgumentException("Dimension must be 2, 3 or 4.");
+      }
+   }
+
+   /** X = inv(A) for an n-by-n array.
+   @param A    n-by-n array.
+   @param X    n-by-n array, overwritten; may be A.
+   @param n    Dimension, 2, 3 or 4.
+   @return     false, leaving X untouched, if det(A) is zero or not finite.
+   */
+
+   public static boolean inverse (double[][] A, double[][] X, int n) {
+      switch (n) {
+         case 2: return inverse2(A, X);
+         case 3: return inverse3(A, X);
+         case 4: return inverse4(A, X);
+         default: throw new IllegalArgumentException("Dimension must be 2, 3 or 4.");
+      }
+   }
+
+   /** X = A\B for an n-by-n array A and nx right hand sides.
+   <P>
+   Gaussian elimination with partial pivoting on a local copy of A, the
+   arithmetic of {@link net.iuyy.jmat.jama.LUDecomposition} without its
+   allocations, so the solution is backward stable; the closed form
+   inverse is not used here.
+   @param A    n-by-n array.
+   @param B    n-by-nx array.
+   @param X    n-by-nx array, overwritten; must not be B.  Its row arrays may be permuted.
+   @param n    Dimension, 2, 3 or 4.
+   @param nx   Number of right hand sides.
+   @return     false if a pivot is exactly zero, that is A is singular.
+   */
+
+   public static boolean solve (double[][] A, double[][] B, double[][] X, int n, int nx) {
+      double[][] LU = new double[n][];
+      for (int i = 0; i < n; i++) {
+         LU[i] = Arrays.copyOf(A[i], n);
+         System.arraycopy(B[i], 0, X[i], 0, nx);
+      }
+      for (int k = 0; k < n; k++) {
+         int p = k;
+         double max = Math.abs(LU[k][k]);
+         for (int i = k+1; i < n; i++) {
+            double a = Math.abs(LU[i][k]);
+            if (a > max) {
+               max = a;
+               p = i;
+            }
+         }
+         if (p != k) {
+            double[] t = LU[p]; LU[p] = LU[k]; LU[k] = t;
+            t = X[p]; X[p] = X[k]; X[k] = t;
+         }
+         double[] Uk = LU[k], Xk = X[k];
+         double d = Uk[k];
+         if (d == 0.0) {
+            return false;
+         }
+         for (int i = k+1; i < n; i++) {
+            double[] Li = LU[i], Xi = X[i];
+            double l = Li[k] /= d;
+            for (int j = k+1; j < n; j++) {
+               Li[j] -= l*Uk[j];
+            }
+            for (int c = 0; c < nx; c++) {
+               Xi[c] -= l*Xk[c];
+            }
+         }
+      }
+      for (int k = n-1; k >= 0; k--) {
+         double[] Xk = X[k];
+         double d = LU[k][k];
+         for (int c = 0; c < nx; c++) {
+            Xk[c] /= d;
+         }
+         for (int i = 0; i < k; i++) {
+            double u = LU[i][k];
+            double[] Xi = X[i];
+            for (int c = 0; c < nx; c++) {
+               Xi[c] -= Xk[c]*u;
+            }
+         }
+      }
+      return true;
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   private static void multiply2 (double[][] A, double[][] B, double[][] C) {
+      double a00 = A[0][0], a01 = A[0][1], a10 = A[1][0], a11 = A[1][1];
+      double b00 = B[0][0], b01 = B[0][1], b10 = B[1][0], b11 = B[1][1];
+      C[0][0] = a00*b00 + a01*b10; C[0][1] = a00*b01 + a01*b11;
+      C[1][0] = a10*b00 + a11*b10; C[1][1] = a10*b01 + a11*b11;
+   }
+
+   private static void multiply3 (double[][] A, double[][] B, double[][] C) {
+      double[] B0 = B[0], B1 = B[1], B2 = B[2];
+      double b00 = B0[0], b01 = B0[1], b02 = B0[2];
+      double b10 = B1[0], b11 = B1[1], b12 = B1[2];
+      double b20 = B2[0], b21 = B2[1], b22 = B2[2];
+      for (int i = 0; i < 3; i++) {
+         double[] Ai = A[i], Ci = C[i];
+         double a0 = Ai[0], a1 = Ai[1], a2 = Ai[2];
+         Ci[0] = a0*b00 + a1*b10 + a2*b20;
+         Ci[1] = a0*b01 + a1*b11 + a2*b21;
+         Ci[2] = a0*b02 + a1*b12 + a2*b22;
+      }
+   }
+
+   private static void multiply4 (double[][] A, double[][] B, double[][] C) {
+      double[] B0 = B[0], B1 = B[1], B2 = B[2], B3 = B[3];
+      double b00 = B0[0], b01 = B0[1], b02 = B0[2], b03 = B0[3];
+      double b10 = B1[0], b11 = B1[1], b12 = B1[2], b13 = B1[3];
+      double b20 = B2[0], b21 = B2[1], b22 = B2[2], b23 = B2[3];
+      double b30 = B3[0], b31 = B3[1], b32 = B3[2], b33 = B3[3];
+      for (int i = 0; i < 4; i++) {
+         double[] Ai = A[i], Ci = C[i];
+         double a0 = Ai[0], a1 = Ai[1], a2 = Ai[2], a3 = Ai[3];
+         Ci[0] = a0*b00 + a1*b10 + a2*b20 + a3*b30;
+         Ci[1] = a0*b01 + a1*b11 + a2*b21 + a3*b31;
+         Ci[2] = a0*b02 + a1*b12 + a2*b22 + a3*b32;
+         Ci[3] = a0*b03 + a1*b13 + a2*b23 + a3*b33;
+      }
+   }
+
+   private static double det2 (double[][] A) {
+      return A[0][0]*A[1][1] - A[0][1]*A[1][0];
+   }
+
+   private static double det3 (double[][] A) {
+      double[] A0 = A[0], A1 = A[1], A2 = A[2];
+      return A0[0]*(A1[1]*A2[2] - A1[2]*A2[1])
+           - A0[1]*(A1[0]*A2[2] - A1[2]*A2[0])
+           + A0[2]*(A1[0]*A2[1] - A1[1]*A2[0]);
+   }
+
+   private static double det4 (double[][] A) {
+      double[] A0 = A[0], A1 = A[1], A2 = A[2], A3 = A[3];
+      double s0 = A0[0]*A1[1] - A0[1]*A1[0];
+      double s1 = A0[0]*A1[2] - A0[2]*A1[0];
+      double s2 = A0[0]*A1[3] - A0[3]*A1[0];
+      double s3 = A0[1]*A1[2] - A0[2]*A1[1];
+      double s4 = A0[1]*A1[3] - A0[3]*A1[1];
+      double s5 = A0[2]*A1[3] - A0[3]*A1[2];
+      double c5 = A2[2]*A3[3] - A2[3]*A3[2];
+      double c4 = A2[1]*A3[3] - A2[3]*A3[1];
+      double c3 = A2[1]*A3[2] - A2[2]*A3[1];
+      double c2 = A2[0]*A3[3] - A2[3]*A3[0];
+      double c1 = A2[0]*A3[2] - A2[2]*A3[0];
+      double c0 = A2[0]*A3[1] - A2[1]*A3[0];
+      return s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+   }
+
+   private static boolean invertible (double d) {
+      return d != 0.0 && !Double.isNaN(d) && !Double.isInfinite(d);
+   }
+
+   private static boolean inverse2 (double[][] A, double[][] X) {
+      double a00 = A[0][0], a01 = A[0][1], a10 = A[1][0], a11 = A[1][1];
+      double d = a00*a11 - a01*a10;
+      if (!invertible(d)) {
+         return false;
+      }
+      double r = 1.0/d;
+      X[0][0] =  a11*r; X[0][1] = -a01*r;
+      X[1][0] = -a10*r; X[1][1] =  a00*r;
+      return true;
+   }
+
+   private static boolean inverse3 (double[][] A, double[][] X) {
+      double a00 = A[0][0], a01 = A[0][1], a02 = A[0][2];
+      double a10 = A[1][0], a11 = A[1][1], a12 = A[1][2];
+      double a20 = A[2][0], a21 = A[2][1], a22 = A[2][2];
+      double c00 = a11*a22 - a12*a21;
+      double c01 = a12*a20 - a10*a22;
+      double c02 = a10*a21 - a11*a20;
+      double d = a00*c00 + a01*c01 + a02*c02;
+      if (!invertible(d)) {
+         return false;
+      }
+      double r = 1.0/d;
+      double[] X0 = X[0], X1 = X[1], X2 = X[2];
+      X0[0] = c00*r; X0[1] = (a02*a21 - a01*a22)*r; X0[2] = (a01*a12 - a02*a11)*r;
+      X1[0] = c01*r; X1[1] = (a00*a22 - a02*a20)*r; X1[2] = (a02*a10 - a00*a12)*r;
+      X2[0] = c02*r; X2[1] = (a01*a20 - a00*a21)*r; X2[2] = (a00*a11 - a01*a10)*r;
+      return true;
+   }
+
+   private static boolean inverse4 (double[][] A, double[][] X) {
+      double a00 = A[0][0], a01 = A[0][1], a02 = A[0][2], a03 = A[0][3];
+      double a10 = A[1][0], a11 = A[1][1], a12 = A[1][2], a13 = A[1][3];
+      double a20 = A[2][0], a21 = A[2][1], a22 = A[2][2], a23 = A[2][3];
+      double a30 = A[3][0], a31 = A[3][1], a32 = A[3][2], a33 = A[3][3];
+      double s0 = a00*a11 - a01*a10;
+      double s1 = a00*a12 - a02*a10;
+      double s2 = a00*a13 - a03*a10;
+      double s3 = a01*a12 - a02*a11;
+      double s4 = a01*a13 - a03*a11;
+      double s5 = a02*a13 - a03*a12;
+      double c5 = a22*a33 - a23*a32;
+      double c4 = a21*a33 - a23*a31;
+      double c3 = a21*a32 - a22*a31;
+      double c2 = a20*a33 - a23*a30;
+      double c1 = a20*a32 - a22*a30;
+      double c0 = a20*a31 - a21*a30;
+      double d = s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+      if (!invertible(d)) {
+         return false;
+      }
+      double r = 1.0/d;
+      double[] X0 = X[0], X1 = X[1], X2 = X[2], X3 = X[3];
+      X0[0] = ( a11*c5 - a12*c4 + a13*c3)*r;
+      X0[1] = (-a01*c5 + a02*c4 - a03*c3)*r;
+      X0[2] = ( a31*s5 - a32*s4 + a33*s3)*r;
+      X0[3] = (-a21*s5 + a22*s4 - a23*s3)*r;
+      X1[0] = (-a10*c5 + a12*c2 - a13*c1)*r;
+      X1[1] = ( a00*c5 - a02*c2 + a03*c1)*r;
+      X1[2] = (-a30*s5 + a32*s2 - a33*s1)*r;
+      X1[3] = ( a20*s5 - a22*s2 + a23*s1)*r;
+      X2[0] = ( a10*c4 - a11*c2 + a13*c0)*r;
+      X2[1] = (-a00*c4 + a01*c2 - a03*c0)*r;
+      X2[2] = ( a30*s4 - a31*s2 + a33*s0)*r;
+      X2[3] = (-a20*s4 + a21*s2 - a23*s0)*r;
+      X3[0] = (-a10*c3 + a11*c1 - a12*c0)*r;
+      X3[1] = ( a00*c3 - a01*c1 + a02*c0)*r;
+      X3[2] = (-a30*s3 + a31*s1 - a32*s0)*r;
+      X3[3] = ( a20*s3 - a21*s1 + a22*s0)*r;
+      return true;
+   }
+}
@@ -0,0 +1,598 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+   /** Cache-blocked general matrix multiply, C += alpha*A*B.
+   <P>
+   The loops follow the layout of Goto and van de Geijn.  A KC-by-NC panel
+   of B is packed once and stays in the L3 cache, an MC-by-KC block of A is
+   packed and stays in L2, and each KC-by-NR sliver of the B panel streams
+   through L1 while the {@link Kernels#gemm} micro-kernel accumulates an
+   MR-by-NR block of C in registers.  Packing copies the operands into
+   contiguous, zero-padded slivers in the order the micro-kernel reads
+   them, so the kernel never sees a row stride or a ragged edge.
+   <P>
+   Products too small to amortize the packing use a row-oriented axpy loop.
+   Products with a single row or column are matrix-vector products and go
+   to the streaming kernels of {@link Gemv}.
+   <P>
+   Large products split C into a 2D grid of tiles, each a multiple of the
+   register block, and run the tiles on the {@link Parallel} pool by
+   recursive halving of the tile range, so idle workers steal tiles from
+   busy ones.  Each worker packs into its own thread-local buffers, which
+   are never handed to forked tasks; the panel that {@link #syrk} shares
+   among its workers is allocated by the call.  Every element of C is
+   computed by exactly one tile with the same blocking as the serial loop,
+   so the result does not depend on the number of threads.  The degree of
+   parallelism is that of the configured pool ({@link Parallel#setPool});
+   products below the parallel threshold stay serial.
+   <P>
+   Either operand may be used transposed.  The transpose is applied while
+   packing, which reads a transposed A row by row and a transposed B column
+   by column, so A'*B and A*B' cost the same as A*B and never form the
+   transpose.  {@link #syrk} computes one triangle of A'*A, skipping the
+   register blocks below the diagonal.
+   */
+
+public final class Gemm {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Rows of the packed A block, sized for L2. **/
+   static final int MC = 128;
+
+   /** Depth of the packed panels, sized so a B sliver fits in L1. **/
+   static final int KC = 256;
+
+   /** Columns of the packed B panel, sized for L3. **/
+   static final int NC = 2048;
+
+   /** Products with fewer multiply-adds than this skip packing. **/
+   static final long SMALL = 32L * 32 * 32;
+
+   /** Number of tiles to aim for per worker, for load balance. **/
+   static final int TILES_PER_WORKER = 4;
+
+   /** Products with at least this many multiply-adds run in parallel. **/
+   private static volatile long threshold = 1L << 21;
+
+   /** Packing buffers of the current thread. **/
+   private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<Buffers>() {
+      @Override
+      protected Buffers initialValue () {
+         return new Buffers();
+      }
+   };
+
+   private Gemm () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Get the parallel threshold.
+   @return     number of multiply-adds (m*n*k) from which products run in parallel.
+   */
+
+   public static long getThreshold () {
+      return threshold;
+   }
+
+   /** Set the parallel threshold.
+   Use Long.MAX_VALUE to keep every product serial.
+   @param t    number of multiply-adds (m*n*k) from which products run in parallel.
+   @exception  IllegalArgumentException Threshold must not be negative.
+   */
+
+   public static void setThreshold (long t) {
+      if (t < 0) {
+         throw new IllegalArgumentException("Threshold must not be negative.");
+      }
+      threshold = t;
+   }
+
+   /** C = A*B for whole arrays.
+   @param A    m-by-k array.
+   @param B    k-by-n array.
+   @param m    Number of rows of A and C.
+   @param n    Number of columns of B and C.
+   @param k    Inner dimension.
+   @return     New m-by-n array holding A*B.
+   */
+
+   public static double[][] multiply (double[][] A, double[][] B, int m, int n, int k) {
+      double[][] C = new double[m][n];
+      gemm(1.0, A, 0, 0, B, 0, 0, C, 0, 0, m, n, k);
+      return C;
+   }
+
+   /** C(ci:ci+m-1, cj:cj+n-1) += alpha * A(ai:ai+m-1, aj:aj+k-1) * B(bi:bi+k-1, bj:bj+n-1).
+   Same as gemm(false, false, ...).
+   @param alpha  Scalar multiplier.
+   @param A      Left operand.
+   @param ai     First row of A.
+   @param aj     First column of A.
+   @param B      Right operand.
+   @param bi     First row of B.
+   @param bj     First column of B.
+   @param C      Result, updated in place.  Must not share rows with A or B.
+   @param ci     First row of C.
+   @param cj     First column of C.
+   @param m      Number of rows of the product.
+   @param n      Number of columns of the product.
+   @param k      Inner dimension.
+   */
+
+   public static void gemm (double alpha, double[][] A, int ai, int aj, double[][] B, int bi, int bj,
+                            double[][] C, int ci, int cj, int m, int n, int k) {
+      gemm(false, false, alpha, A, ai, aj, B, bi, bj, C, ci, cj, m, n, k);
+   }
+
+   /** C(ci:ci+m-1, cj:cj+n-1) += alpha * op(A) * op(B), op(X) = X or X'.
+   @param transA  Use A transposed: op(A)(i,p) = A(ai+p, aj+i), A holds a k-by-m block.
+   @param transB  Use B transposed: op(B)(p,j) = B(bi+j, bj+p), B holds an n-by-k block.
+   @param alpha   Scalar multiplier.
+   @param A       Left operand.
+   @param ai      First row of the block of A.
+   @param aj      First column of the block of A.
+   @param B       Right operand.
+   @param bi      First row of the block of B.
+   @param bj      First column of the block of B.
+   @param C       Result, updated in place.  Must not share rows with A or B.
+   @param ci      First row of C.
+   @param cj      First column of C.
+   @param m       Number of rows of the product.
+   @param n       Number of columns of the product.
+   @param k       Inner dimension.
+   */
+
+   public static void gemm (boolean transA, boolean transB, double alpha,
+                            double[][] A, int ai, int aj, double[][] B, int bi, int bj,
+                            double[][] C, int ci, int cj, int m, int n, int k) {
+      if (m == 0 || n == 0 || k == 0 || alpha == 0.0) {
+         return;
+      }
+      if (n == 1) {
+         column(transA, transB, alpha, A, ai, aj, B, bi, bj, C, ci, cj, m, k);
+         return;
+      }
+      if (m == 1) {
+         row(transA, transB, alpha, A, ai, aj, B, bi, bj, C, ci, cj, n, k);
+         return;
+      }
+      if ((long) m * n * k < SMALL) {
+         small(transA, transB, alpha, A, ai, aj, B, bi, bj, C, ci, cj, m, n, k);
+         return;
+      }
+      ForkJoinPool pool = Parallel.getPool();
+      int workers = pool.getParallelism();
+      if ((long) m * n * k < threshold || workers < 2) {
+         blocked(transA, transB, alpha, A, ai, aj, B, bi, bj, C, ci, cj, m, n, k, BUFFERS.get());
+         return;
+      }
+
+      // Halve the larger tile side until there are enough tiles to share.
+      int tm = Math.max(MC, roundUp(m, Kernels.MR));
+      int tn = roundUp(n, Kernels.NR);
+      long want = (long) TILES_PER_WORKER * workers;
+      while (tiles(m, tm) * tiles(n, tn) < want) {
+         if (tm >= tn && tm > MC) {
+            tm = roundUp(tm / 2, MC);
+         } else if (tn > 4 * Kernels.NR) {
+            tn = roundUp(tn / 2, Kernels.NR);
+         } else if (tm > 4 * Kernels.MR) {
+            tm = roundUp(tm / 2, Kernels.MR);
+         } else {
+            break;
+         }
+      }
+      Tiles grid = new Tiles(transA, transB, alpha, A, ai, aj, B, bi, bj, C, ci, cj, m, n, k, tm, tn);
+      pool.invoke(new TileTask(grid, 0, (int) (tiles(m, tm) * tiles(n, tn))));
+   }
+
+   /** Upper triangle of C(ci:ci+n-1, cj:cj+n-1) += alpha * A' * A, A(ai:ai+k-1, aj:aj+n-1).
+   Register blocks of C entirely below the diagonal are skipped, so about
+   half the work of the full product is done; elements below the diagonal
+   inside the remaining blocks are updated too, all others are left alone.
+   Each panel of A is packed once and serves as both operands.
+   @param alpha  Scalar multiplier.
+   @param A      k-by-n block.
+   @param ai     First row of A.
+   @param aj     First column of A.
+   @param C      Result, updated in place.  Must not share rows with A.
+   @param ci     First row of C.
+   @param cj     First column of C.
+   @param n      Number of columns of A, order of C.
+   @param k      Number of rows of A.
+   */
+
+   public static void syrk (double alpha, double[][] A, int ai, int aj,
+                            double[][] C, int ci, int cj, int n, int k) {
+      if (n == 0 || k == 0 || alpha == 0.0) {
+         return;
+      }
+      if ((long) n * n * k < SMALL) {
+         small(true, false, alpha, A, ai, aj, A, ai, aj, C, ci, cj, n, n, k);
+         return;
+      }
+      ForkJoinPool pool = Parallel.getPool();
+      int workers = pool.getParallelism();
+      boolean parallel = (long) n * n * k / 2 >= threshold && workers >= 2;
+
+      // Row blocks of each panel, small enough to share among the workers.
+      int rb = MC;
+      if (parallel) {
+         rb = Math.max(4 * Kernels.MR, Math.min(MC, roundUp(n / (TILES_PER_WORKER * workers), Kernels.MR)));
+      }
+      // The panel is read by every worker, so a parallel call packs it into
+      // a buffer of its own: while this thread waits for the row blocks it
+      // may run stolen work that repacks its thread-local buffers.
+      double[] Bp;
+      if (parallel) {
+         Bp = new double[roundUp(Math.min(NC, n), Kernels.NR) * Math.min(KC, k)];
+      } else {
+         Buffers buf = BUFFERS.get();
+         buf.reserve(Math.min(MC, n), Math.min(NC, n), Math.min(KC, k));
+         Bp = buf.Bp;
+      }
+      for (int jc = 0; jc < n; jc += NC) {
+         int nc = Math.min(NC, n - jc);
+         for (int pc = 0; pc < k; pc += KC) {
+            int kc = Math.min(KC, k - pc);
+            packB(A, ai + pc, aj + jc, kc, nc, Bp);
+            Upper panel = new Upper(alpha, A, ai + pc, aj, Bp, C, ci, cj, jc, nc, kc, rb);
+            int blocks = (int) tiles(jc + nc, rb);
+            if (parallel) {
+               pool.invoke(new TileTask(panel, 0, blocks));
+            } else {
+               for (int t = 0; t < blocks; t++) {
+                  panel.run(t);
+               }
+            }
+         }
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Serial blocked product with the given packing buffers. **/
+
+   static void blocked (boolean transA, boolean transB, double alpha,
+                        double[][] A, int ai, int aj, double[][] B, int bi, int bj,
+                        double[][] C, int ci, int cj, int m, int n, int k, Buffers buf) {
+      buf.reserve(Math.min(MC, m), Math.min(NC, n), Math.min(KC, k));
+      for (int jc = 0; jc < n; jc += NC) {
+         int nc = Math.min(NC, n - jc);
+         for (int pc = 0; pc < k; pc += KC) {
+            int kc = Math.min(KC, k - pc);
+            if (transB) {
+               packBT(B, bi + jc, bj + pc, kc, nc, buf.Bp);
+            } else {
+               packB(B, bi + pc, bj + jc, kc, nc, buf.Bp);
+            }
+            for (int ic = 0; ic < m; ic += MC) {
+               int mc = Math.min(MC, m - ic);
+               if (transA) {
+                  packAT(alpha, A, ai + pc, aj + ic, mc, kc, buf.Ap);
+               } else {
+                  packA(alpha, A, ai + ic, aj + pc, mc, kc, buf.Ap);
+               }
+               macro(buf.Ap, buf.Bp, C, ci + ic, cj + jc, mc, nc, kc, buf.T);
+            }
+         }
+      }
+   }
+
+
+   static long tiles (int x, int t) {
+      return (x + t - 1) / t;
+   }
+
+   static int roundUp (int x, int r) {
+      return (x + r - 1) / r * r;
+   }
+
+   /** C(:,cj) += alpha*op(A)*op(B)(:,0) for a single column, through contiguous copies of the columns. **/
+
+   static void column (boolean transA, boolean transB, double alpha,
+                       double[][] A, int ai, int aj, double[][] B, int bi, int bj,
+                       double[][] C, int ci, int cj, int m, int k) {
+      double[] x;
+      int xo;
+      if (transB) {
+         x = B[bi];
+         xo = bj;
+      } else {
+         x = new double[k];
+         xo = 0;
+         for (int p = 0; p < k; p++) {
+            x[p] = B[bi+p][bj];
+         }
+      }
+      double[] y = new double[m];
+      if (transA) {
+         Gemv.gevm(alpha, x, xo, A, ai, aj, y, 0, k, m);
+      } else {
+         Gemv.gemv(alpha, A, ai, aj, x, xo, y, 0, m, k);
+      }
+      for (int i = 0; i < m; i++) {
+         C[ci+i][cj] += y[i];
+      }
+   }
+
+   /** C(ci,:) += alpha*op(A)(0,:)*op(B) for a single row. **/
+
+   static void row (boolean transA, boolean transB, double alpha,
+                    double[][] A, int ai, int aj, double[][] B, int bi, int bj,
+                    double[][] C, int ci, int cj, int n, int k) {
+      double[] x;
+      int xo;
+      if (transA) {
+         x = new double[k];
+         xo = 0;
+         for (int p = 0; p < k; p++) {
+            x[p] = A[ai+p][aj];
+         }
+      } else {
+         x = A[ai];
+         xo = aj;
+      }
+      if (transB) {
+         Gemv.gemv(alpha, B, bi, bj, x, xo, C[ci], cj, n, k);
+      } else {
+         Gemv.gevm(alpha, x, xo, B, bi, bj, C[ci], cj, k, n);
+      }
+   }
+
+   /** Unpacked C += alpha*op(A)*op(B) for small products: axpy on rows of B, or dot products when only B is transposed. **/
+
+   static void small (boolean transA, boolean transB, double alpha,
+                      double[][] A, int ai, int aj, double[][] B, int bi, int bj,
+                      double[][] C, int ci, int cj, int m, int n, int k) {
+      for (int i = 0; i < m; i++) {
+         double[] Ci = C[ci+i];
+         if (transB && !transA) {
+            double[] Ai = A[ai+i];
+            for (int j = 0; j < n; j++) {
+               Ci[cj+j] += alpha * Kernels.dot(Ai, aj, B[bi+j], bj, k);
+            }
+            continue;
+         }
+         for (int p = 0; p < k; p++) {
+            double a = alpha * (transA ? A[ai+p][aj+i] : A[ai+i][aj+p]);
+            if (transB) {
+               for (int j = 0; j < n; j++) {
+                  Ci[cj+j] += a * B[bi+j][bj+p];
+               }
+            } else {
+               Kernels.axpy(a, B[bi+p], bj, Ci, cj, n);
+            }
+         }
+      }
+   }
+
+   /** Pack an mc-by-kc block of A, scaled by alpha, into MR-row slivers: Ap[s*MR*kc + p*MR + r]. **/
+
+   static void packA (double alpha, double[][] A, int i0, int p0, int mc, int kc, double[] Ap) {
+      final int MR = Kernels.MR;
+      for (int s = 0; s < mc; s += MR) {
+         int base = s * kc;
+         int rows = Math.min(MR, mc - s);
+         for (int r = 0; r < MR; r++) {
+            if (r < rows) {
+               double[] Ar = A[i0+s+r];
+               for (int p = 0; p < kc; p++) {
+                  Ap[base + p*MR + r] = alpha * Ar[p0+p];
+               }
+            } else {
+               for (int p = 0; p < kc; p++) {
+                  Ap[base + p*MR + r] = 0.0;
+               }
+            }
+         }
+      }
+   }
+
+   /** Pack an mc-by-kc block of A', scaled by alpha, from the kc-by-mc block A(p0.., i0..) into MR-row slivers. **/
+
+   static void packAT (double alpha, double[][] A, int p0, int i0, int mc, int kc, double[] Ap) {
+      final int MR = Kernels.MR;
+      for (int p = 0; p < kc; p++) {
+         double[] Ap0 = A[p0+p];
+         for (int s = 0; s < mc; s += MR) {
+            int o = s * kc + p*MR;
+            int rows = Math.min(MR, mc - s);
+            for (int r = 0; r < rows; r++) {
+               Ap[o + r] = alpha * Ap0[i0+s+r];
+            }
+            for (int r = rows; r < MR; r++) {
+               Ap[o + r] = 0.0;
+            }
+         }
+      }
+   }
+
+   /** Pack a kc-by-nc panel of B' from the nc-by-kc block B(j0.., p0..) into NR-column slivers. **/
+
+   static void packBT (double[][] B, int j0, int p0, int kc, int nc, double[] Bp) {
+      final int NR = Kernels.NR;
+      for (int s = 0; s < nc; s += NR) {
+         int base = s * kc;
+         int cols = Math.min(NR, nc - s);
+         for (int c = 0; c < NR; c++) {
+            if (c < cols) {
+               double[] Bc = B[j0+s+c];
+               for (int p = 0; p < kc; p++) {
+                  Bp[base + p*NR + c] = Bc[p0+p];
+               }
+            } else {
+               for (int p = 0; p < kc; p++) {
+                  Bp[base + p*NR + c] = 0.0;
+               }
+            }
+         }
+      }
+   }
+
+   /** Pack a kc-by-nc panel of B into NR-column slivers: Bp[s*kc + p*NR + c]. **/
+
+   static void packB (double[][] B, int p0, int j0, int kc, int nc, double[] Bp) {
+      final int NR = Kernels.NR;
+      for (int s = 0; s < nc; s += NR) {
+         int base = s * kc;
+         int cols = Math.min(NR, nc - s);
+         for (int p = 0; p < kc; p++) {
+            double[] Bp0 = B[p0+p];
+            int o = base + p*NR;
+            System.arraycopy(Bp0, j0+s, Bp, o, cols);
+            for (int c = cols; c < NR; c++) {
+               Bp[o+c] = 0.0;
+            }
+         }
+      }
+   }
+
+   /** Multiply a packed A block by a packed B panel into C(ci.., cj..). **/
+
+   static void macro (double[] Ap, double[] Bp, double[][] C, int ci, int cj, int mc, int nc, int kc, double[] T) {
+      macro(Ap, Bp, C, ci, cj, mc, nc, kc, T, Integer.MIN_VALUE);
+   }
+
+   /** As macro, skipping register blocks whose columns all lie left of their rows, for a block whose first row is d past its first column. **/
+
+   static void macro (double[] Ap, double[] Bp, double[][] C, int ci, int cj, int mc, int nc, int kc, double[] T, int d) {
+      final int MR = Kernels.MR, NR = Kernels.NR;
+      for (int jr = 0; jr < nc; jr += NR) {
+         int cols = Math.min(NR, nc - jr);
+         for (int ir = 0; ir < mc; ir += MR) {
+            if (jr + cols <= ir + d) {
+               continue;
+            }
+            int rows = Math.min(MR, mc - ir);
+            Arrays.fill(T, 0.0);
+            Kernels.gemm(kc, Ap, ir * kc, Bp, jr * kc, T, 0, NR);
+            for (int r = 0; r < rows; r++) {
+               double[] Cr = C[ci+ir+r];
+               int o = cj + jr;
+               for (int c = 0; c < cols; c++) {
+                  Cr[o+c] += T[r*NR + c];
+               }
+            }
+         }
+      }
+   }
+
+   /** Thread-local packing buffers. **/
+
+   static final class Buffers {
+      double[] Ap = new double[0];
+      double[] Bp = new double[0];
+      final double[] T = new double[Kernels.MR * Kernels.NR];
+
+      /** Grow the buffers to hold an mc-by-kc block of A and a kc-by-nc panel of B. **/
+
+      void reserve (int mc, int nc, int kc) {
+         int a = roundUp(mc, Kernels.MR) * kc;
+         int b = roundUp(nc, Kernels.NR) * kc;
+         if (Ap.length < a) {
+            Ap = new double[a];
+         }
+         if (Bp.length < b) {
+            Bp = new double[b];
+         }
+      }
+   }
+
+   /** Independent units of work numbered from zero. **/
+
+   private interface Grid {
+      void run (int t);
+   }
+
+   /** A product split into a grid of tm-by-tn tiles of C, numbered row by row. **/
+
+   private static final class Tiles implements Grid {
+      final boolean transA, transB;
+      final double alpha;
+      final double[][] A, B, C;
+      final int ai, aj, bi, bj, ci, cj, m, n, k, tm, tn, across;
+
+      Tiles (boolean transA, boolean transB, double alpha, double[][] A, int ai, int aj,
+             double[][] B, int bi, int bj, double[][] C, int ci, int cj, int m, int n, int k, int tm, int tn) {
+         this.transA = transA;
+         this.transB = transB;
+         this.alpha = alpha;
+         this.A = A; this.ai = ai; this.aj = aj;
+         this.B = B; this.bi = bi; this.bj = bj;
+         this.C = C; this.ci = ci; this.cj = cj;
+         this.m = m; this.n = n; this.k = k;
+         this.tm = tm; this.tn = tn;
+         this.across = (int) tiles(n, tn);
+      }
+
+      public void run (int t) {
+         int i0 = (t / across) * tm;
+         int j0 = (t % across) * tn;
+         blocked(transA, transB, alpha,
+                 A, transA ? ai : ai + i0, transA ? aj + i0 : aj,
+                 B, transB ? bi + j0 : bi, transB ? bj : bj + j0,
+                 C, ci + i0, cj + j0, Math.min(tm, m - i0), Math.min(tn, n - j0), k, BUFFERS.get());
+      }
+   }
+
+   /** One packed panel of A'*A, split into row blocks of C up to the last column of the panel. **/
+
+   private static final class Upper implements Grid {
+      final double alpha;
+      final double[][] A, C;
+      final double[] Bp;
+      final int p0, aj, ci, cj, jc, nc, kc, rb;
+
+      Upper (double alpha, double[][] A, int p0, int aj, double[] Bp, double[][] C, int ci, int cj,
+             int jc, int nc, int kc, int rb) {
+         this.alpha = alpha;
+         this.A = A; this.p0 = p0; this.aj = aj;
+         this.Bp = Bp;
+         this.C = C; this.ci = ci; this.cj = cj;
+         this.jc = jc; this.nc = nc; this.kc = kc; this.rb = rb;
+      }
+
+      public void run (int t) {
+         int ic = t * rb;
+         int mc = Math.min(rb, jc + nc - ic);
+         Buffers buf = BUFFERS.get();
+         buf.reserve(mc, 0, kc);
+         packAT(alpha, A, p0, aj + ic, mc, kc, buf.Ap);
+         macro(buf.Ap, Bp, C, ci + ic, cj + jc, mc, nc, kc, buf.T, ic - jc);
+      }
+   }
+
+   private static final class TileTask extends RecursiveAction {
+      private final Grid grid;
+      private final int t0, t1;
+
+      TileTask (Grid grid, int t0, int t1) {
+         this.grid = grid;
+         this.t0 = t0;
+         this.t1 = t1;
+      }
+
+      @Override
+      protected void compute () {
+         if (t1 - t0 == 1) {
+            grid.run(t0);
+            return;
+         }
+         int mid = (t0 + t1) >>> 1;
+         invokeAll(new TileTask(grid, t0, mid), new TileTask(grid, mid, t1));
+      }
+
+      private static final long serialVersionUID = 1;
+   }
+}
@@ -0,0 +1,111 @@
+package net.iuyy.jmat.jama.util;
+
+   /** Matrix-vector products, y += alpha*A*x and y += alpha*x'*A.
+   <P>
+   A matrix-vector product reads every element of A once and does one
+   multiply-add with it, so it is bound by memory bandwidth, not by
+   arithmetic.  These kernels therefore stream A row by row, the order it
+   is stored in, and never pack or copy it.  A*x takes one dot product per
+   row of A; x'*A adds scaled rows of A into the result.
+   <P>
+   Tall matrices run in parallel on the {@link Parallel} pool.  A*x splits
+   the rows, each worker writing its own elements of y.  x'*A also splits
+   the rows of A, each block summing into a private copy of y, and the
+   copies are added in the fixed order of the split tree, so the result
+   does not depend on the number of threads.
+   */
+
+public final class Gemv {
+
+   private Gemv () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** y(yo:yo+m-1) += alpha * A(ai:ai+m-1, aj:aj+n-1) * x(xo:xo+n-1).
+   @param alpha  Scalar multiplier.
+   @param A      Matrix.
+   @param ai     First row of A.
+   @param aj     First column of A.
+   @param x      Vector of length n.
+   @param xo     Offset of x.
+   @param y      Result of length m, updated in place; must not be x.
+   @param yo     Offset of y.
+   @param m      Number of rows of A.
+   @param n      Number of columns of A.
+   */
+
+   public static void gemv (double alpha, double[][] A, int ai, int aj, double[] x, int xo,
+                            double[] y, int yo, int m, int n) {
+      if (m == 0 || n == 0 || alpha == 0.0) {
+         return;
+      }
+      Parallel.forRows(m, n, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            y[yo+i] += alpha * Kernels.dot(A[ai+i], aj, x, xo, n);
+         }
+      });
+   }
+
+   /** y(yo:yo+n-1) += alpha * x(xo:xo+m-1)' * A(ai:ai+m-1, aj:aj+n-1).
+   @param alpha  Scalar multiplier.
+   @param x      Vector of length m.
+   @param xo     Offset of x.
+   @param A      Matrix.
+   @param ai     First row of A.
+   @param aj     First column of A.
+   @param y      Result of length n, updated in place; must not be x.
+   @param yo     Offset of y.
+   @param m      Number of rows of A.
+   @param n      Number of columns of A.
+   */
+
+   public static void gevm (double alpha, double[] x, int xo, double[][] A, int ai, int aj,
+                            double[] y, int yo, int m, int n) {
+      if (m == 0 || n == 0 || alpha == 0.0) {
+         return;
+      }
+      // The split tree of reduce depends only on m and n, so the result does not
+      // depend on the number of threads; alpha is applied once, to the sum.
+      double[] s = Parallel.reduce(m, n, (i0, i1) -> {
+         double[] p = new double[n];
+         for (int i = i0; i < i1; i++) {
+            Kernels.axpy(x[xo+i], A[ai+i], aj, p, 0, n);
+         }
+         return p;
+      }, (l, r) -> {
+         Kernels.add(l, r, l, n);
+         return l;
+      });
+      Kernels.axpy(alpha, s, 0, y, yo, n);
+   }
+
+   /** A*x for a whole array.
+   @param A    m-by-n array.
+   @param x    Vector of length n.
+   @param m    Number of rows of A.
+   @param n    Number of columns of A.
+   @return     New vector of length m.
+   */
+
+   public static double[] multiply (double[][] A, double[] x, int m, int n) {
+      double[] y = new double[m];
+      gemv(1.0, A, 0, 0, x, 0, y, 0, m, n);
+      return y;
+   }
+
+   /** x'*A for a whole array.
+   @param x    Vector of length m.
+   @param A    m-by-n array.
+   @param m    Number of rows of A.
+   @param n    Number of columns of A.
+   @return     New vector of length n.
+   */
+
+   public static double[] multiply (double[] x, double[][] A, int m, int n) {
+      double[] y = new double[n];
+      gevm(1.0, x, 0, A, 0, 0, y, 0, m, n);
+      return y;
+   }
+}
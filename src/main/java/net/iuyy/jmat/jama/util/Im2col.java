@@ -0,0 +1,132 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+
+   /** Multi-channel 2D convolution by im2col and matrix multiplication.
+   <P>
+   Every output pixel of a filter is the dot product of the filter with
+   the C-by-kh-by-kw patch of the input under it.  Laying the patches out
+   as the columns of a (C*kh*kw)-by-pixels matrix (im2col) turns the
+   convolution with all K filters into a single product of the K-by-(C*kh*kw)
+   filter matrix with that patch matrix, which {@link Gemm} runs at full
+   speed with packing, register blocking and threads, instead of the few
+   multiply-adds per loaded element of nested loops.
+   <P>
+   The patch matrix has C*kh*kw times as many elements as the output, so
+   the output is produced in bands of rows whose patch matrix stays within
+   a fixed budget, reusing one patch buffer and one result buffer.  Rows of
+   the patch matrix are filled in parallel; with stride one each is a
+   shifted copy of an input row, copied with System.arraycopy between the
+   zeros of the padding.
+   <P>
+   As in convolutional layers the filters are not flipped, that is this is
+   cross-correlation; flip a kernel by 180 degrees for conv2 semantics.
+   */
+
+public final class Im2col {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Number of elements of the patch matrix of one band. **/
+   static final int BAND = 1 << 21;
+
+   private Im2col () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Length of the output along one dimension.
+   @param n        Input length.
+   @param k        Kernel length.
+   @param stride   Step between outputs.
+   @param pad      Zeros added on each side.
+   @return         (n + 2 pad - k) / stride + 1, or 0 if the kernel does not fit.
+   */
+
+   public static int outputSize (int n, int k, int stride, int pad) {
+      int span = n + 2*pad - k;
+      return span < 0 ? 0 : span / stride + 1;
+   }
+
+   /** Convolve C channels with K filters.
+   @param x        Input, C channels of H-by-W, each row by row.
+   @param C        Number of input channels.
+   @param H        Input height.
+   @param W        Input width.
+   @param F        K-by-(C*kh*kw) filters, filter k holding channel after channel, row by row.
+   @param K        Number of filters.
+   @param kh       Kernel height.
+   @param kw       Kernel width.
+   @param stride   Step between outputs in both directions.
+   @param pad      Zeros added on every side.
+   @param y        Output, K channels of Ho-by-Wo, overwritten.
+   */
+
+   public static void convolve (double[] x, int C, int H, int W, double[][] F, int K, int kh, int kw,
+                                int stride, int pad, double[] y) {
+      int Ho = outputSize(H, kh, stride, pad), Wo = outputSize(W, kw, stride, pad);
+      int depth = C*kh*kw;
+      if (Ho == 0 || Wo == 0 || K == 0) {
+         return;
+      }
+      if (depth == 0) {
+         Arrays.fill(y, 0, K*Ho*Wo, 0.0);
+         return;
+      }
+      int band = Math.max(1, Math.min(Ho, BAND / Math.max(1, depth * Wo)));
+      double[][] P = new double[depth][band * Wo];
+      double[][] R = new double[K][band * Wo];
+      for (int y0 = 0; y0 < Ho; y0 += band) {
+         int rows = Math.min(band, Ho - y0), pixels = rows * Wo;
+         final int o0 = y0;
+         Parallel.forRows(depth, pixels, (r0, r1) -> {
+            for (int r = r0; r < r1; r++) {
+               fill(x, H, W, r, kh, kw, stride, pad, o0, rows, Wo, P[r]);
+            }
+         });
+         for (int k = 0; k < K; k++) {
+            Arrays.fill(R[k], 0, pixels, 0.0);
+         }
+         Gemm.gemm(1.0, F, 0, 0, P, 0, 0, R, 0, 0, K, pixels, depth);
+         for (int k = 0; k < K; k++) {
+            System.arraycopy(R[k], 0, y, (k*Ho + y0)*Wo, pixels);
+         }
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Row r of the patch matrix for output rows o0..o0+rows-1. **/
+
+   private static void fill (double[] x, int H, int W, int r, int kh, int kw, int stride, int pad,
+                             int o0, int rows, int Wo, double[] p) {
+      int c = r / (kh*kw), u = (r / kw) % kh, v = r % kw;
+
+      // Outputs ox in [lo, hi) read inside the row: 0 <= ox*stride - pad + v < W.
+      int lo = Math.max(0, (pad - v + stride - 1) / stride);
+      int hi = Math.min(Wo, (W - 1 + pad - v) < 0 ? 0 : (W - 1 + pad - v) / stride + 1);
+      lo = Math.min(lo, hi);
+      for (int t = 0; t < rows; t++) {
+         int iy = (o0 + t)*stride - pad + u, q = t*Wo;
+         if (iy < 0 || iy >= H) {
+            Arrays.fill(p, q, q + Wo, 0.0);
+            continue;
+         }
+         int base = (c*H + iy)*W - pad + v;
+         Arrays.fill(p, q, q + lo, 0.0);
+         if (stride == 1 && lo < hi) {
+            System.arraycopy(x, base + lo, p, q + lo, hi - lo);
+         } else {
+            for (int ox = lo; ox < hi; ox++) {
+               p[q + ox] = x[base + ox*stride];
+            }
+         }
+         Arrays.fill(p, q + hi, q + Wo, 0.0);
+      }
+   }
+}
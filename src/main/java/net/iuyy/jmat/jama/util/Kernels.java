@@ -0,0 +1,104 @@
+package net.iuyy.jmat.jama.util;
+
+   /** Inner-loop primitives shared by the dense matrix code.
+   <P>
+   This is the Java 8 layer of a multi-release jar and always uses the
+   portable scalar loops.  On Java 17 and later the jar supplies a version
+   of this class that runs the same primitives with the incubating Vector
+   API when the JVM is started with --add-modules jdk.incubator.vector,
+   and falls back to the scalar loops otherwise.  Results of the vector
+   kernels may differ from the scalar ones in the last bits, because lanes
+   are summed in a different order.
+   */
+
+public final class Kernels {
+
+   /** Rows of the register block computed by {@link #gemm}. **/
+   public static final int MR = 4;
+
+   /** Columns of the register block computed by {@link #gemm}. **/
+   public static final int NR = 8;
+
+   private Kernels () {}
+
+   /** Is the Vector API layer in use?
+   @return     false in this layer.
+   */
+
+   public static boolean isVectorized () {
+      return false;
+   }
+
+   /** Dot product.
+   @return     sum of x[xo+i]*y[yo+i] for i in [0, n).
+   */
+
+   public static double dot (double[] x, int xo, double[] y, int yo, int n) {
+      return ScalarKernels.dot(x, xo, y, yo, n);
+   }
+
+   /** y[yo+i] += a*x[xo+i] for i in [0, n). **/
+
+   public static void axpy (double a, double[] x, int xo, double[] y, int yo, int n) {
+      ScalarKernels.axpy(a, x, xo, y, yo, n);
+   }
+
+   /** z = x + y on the first n elements; z may alias x or y. **/
+
+   public static void add (double[] x, double[] y, double[] z, int n) {
+      ScalarKernels.add(x, y, z, n);
+   }
+
+   /** z = x - y on the first n elements; z may alias x or y. **/
+
+   public static void subtract (double[] x, double[] y, double[] z, int n) {
+      ScalarKernels.subtract(x, y, z, n);
+   }
+
+   /** z = x .* y on the first n elements; z may alias x or y. **/
+
+   public static void multiply (double[] x, double[] y, double[] z, int n) {
+      ScalarKernels.multiply(x, y, z, n);
+   }
+
+   /** z = x ./ y on the first n elements; z may alias x or y. **/
+
+   public static void divide (double[] x, double[] y, double[] z, int n) {
+      ScalarKernels.divide(x, y, z, n);
+   }
+
+   /** z = a*x on the first n elements; z may alias x. **/
+
+   public static void scale (double a, double[] x, double[] z, int n) {
+      ScalarKernels.scale(a, x, z, n);
+   }
+
+   /** Compensated sum.
+   @return     sum of x[xo+i] for i in [0, n).
+   */
+
+   public static double sum (double[] x, int xo, int n) {
+      return ScalarKernels.sum(x, xo, n);
+   }
+
+   /** Add x into the compensated running sums (s, c), element by element. **/
+
+   public static void accumulate (double[] s, double[] c, double[] x, int n) {
+      ScalarKernels.accumulate(s, c, x, n);
+   }
+
+   /** GEMM micro-kernel, C(0:MR-1,0:NR-1) += A*B for packed panels.
+   @param kc   Depth of the panels.
+   @param a    MR-by-kc panel of A, column by column: a[ao + p*MR + i].
+   @param ao   Offset of the A panel.
+   @param b    kc-by-NR panel of B, row by row: b[bo + p*NR + j].
+   @param bo   Offset of the B panel.
+   @param c    Row-major block of C: c[co + i*ldc + j].
+   @param co   Offset of the C block.
+   @param ldc  Row stride of C.
+   */
+
+   public static void gemm (int kc, double[] a, int ao, double[] b, int bo, double[] c, int co, int ldc) {
+      ScalarKernels.gemm(kc, a, ao, b, bo, c, co, ldc);
+   }
+}
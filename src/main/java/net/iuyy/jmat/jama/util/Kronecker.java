@@ -0,0 +1,96 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+
+   /** Kronecker product kernels.
+   <P>
+   For an m-by-n A and a p-by-q B, kron(A,B) is the mp-by-nq block matrix
+   whose (i,j) block is A(i,j)*B.  Row i*p+r of the product is the
+   concatenation over j of A(i,j) times row r of B, so it is written
+   straight into the output row by row, without forming the blocks
+   separately.  Rows of the output are split on the {@link Parallel} pool.
+   <P>
+   The product of kron(A,B) and a vector never needs the mnpq elements of
+   kron(A,B): with vec stacking the columns of a matrix,
+   <PRE>
+      kron(A,B) * vec(X) = vec(B * X * A')
+   </PRE>
+   which is two matrix products on arrays of the size of A, B and X.
+   */
+
+public final class Kronecker {
+
+   private Kronecker () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** C(ci:ci+m*p-1, cj:cj+n*q-1) = kron(A,B).
+   @param A    m-by-n array.
+   @param B    p-by-q array.
+   @param C    Output with at least ci+m*p rows and cj+n*q columns, overwritten.
+   @param ci   First row of C.
+   @param cj   First column of C.
+   @param m    Number of rows of A.
+   @param n    Number of columns of A.
+   @param p    Number of rows of B.
+   @param q    Number of columns of B.
+   */
+
+   public static void kron (double[][] A, double[][] B, double[][] C, int ci, int cj,
+                            int m, int n, int p, int q) {
+      if (m == 0 || n == 0 || p == 0 || q == 0) {
+         return;
+      }
+      Parallel.forRows(m * p, n * q, (r0, r1) -> {
+         for (int r = r0; r < r1; r++) {
+            double[] Ai = A[r / p], Br = B[r % p], Cr = C[ci + r];
+            for (int j = 0, o = cj; j < n; j++, o += q) {
+               double a = Ai[j];
+               for (int k = 0; k < q; k++) {
+                  Cr[o+k] = a*Br[k];
+               }
+            }
+         }
+      });
+   }
+
+   /** y = kron(A,B) * x, computed as vec(B * X * A').
+   <P>
+   The transpose of X is read from x row by row and the transpose of the
+   result, A * X' * B', is written back the same way, so neither reshape
+   copies across rows.  The two products are associated in the cheaper
+   order.
+   @param A    m-by-n array.
+   @param B    p-by-q array.
+   @param x    Vector of length n*q.
+   @param m    Number of rows of A.
+   @param n    Number of columns of A.
+   @param p    Number of rows of B.
+   @param q    Number of columns of B.
+   @return     New vector of length m*p.
+   */
+
+   public static double[] multiply (double[][] A, double[][] B, double[] x, int m, int n, int p, int q) {
+      double[][] Xt = new double[n][];
+      for (int c = 0; c < n; c++) {
+         Xt[c] = Arrays.copyOfRange(x, c*q, c*q + q);
+      }
+      double[][] Yt = new double[m][p];
+      if ((long) m*n*q + (long) m*q*p <= (long) n*q*p + (long) m*n*p) {
+         double[][] T = new double[m][q];
+         Gemm.gemm(1.0, A, 0, 0, Xt, 0, 0, T, 0, 0, m, q, n);
+         Gemm.gemm(false, true, 1.0, T, 0, 0, B, 0, 0, Yt, 0, 0, m, p, q);
+      } else {
+         double[][] T = new double[n][p];
+         Gemm.gemm(false, true, 1.0, Xt, 0, 0, B, 0, 0, T, 0, 0, n, p, q);
+         Gemm.gemm(1.0, A, 0, 0, T, 0, 0, Yt, 0, 0, m, p, n);
+      }
+      double[] y = new double[m*p];
+      for (int c = 0; c < m; c++) {
+         System.arraycopy(Yt[c], 0, y, c*p, p);
+      }
+      return y;
+   }
+}
@@ -0,0 +1,357 @@
+package net.iuyy.jmat.jama.util;
+
+   /** Mixed-precision linear solves with iterative refinement.
+   <P>
+   The matrix is factored in single precision, which moves half the bytes
+   and runs twice as many lanes per vector instruction as the double
+   factorization.  The solution is then refined in the manner of LAPACK
+   DSGESV and DSPOSV: with X from the float factors, the residual
+   R = B - A*X is formed in double precision, the correction A\R is solved
+   with the float factors, and X is updated, until for every column
+   <PRE>
+      max|R(:,j)| &lt;= max|X(:,j)| * normInf(A) * eps * sqrt(n)
+   </PRE>
+   with eps the double unit roundoff.  For matrices with condition number
+   well below 1/eps(float), about 10^7, this converges in a few steps to a
+   solution as accurate as the double solve.  If it does not converge in
+   the allowed number of iterations, or A does not fit the float range,
+   or the float factorization breaks down, the caller falls back to the
+   double factorization.
+   <P>
+   LUDecomposition and CholeskyDecomposition of square matrices use this
+   when constructed with mixed precision requested; they then factor in
+   float and keep a copy of A for the residuals.
+   */
+
+public final class MixedPrecision {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Maximum number of refinement steps. **/
+   private static volatile int maxIterations = 30;
+
+   private MixedPrecision () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Get the iteration limit.
+   @return     maximum number of refinement steps before falling back.
+   */
+
+   public static int getMaxIterations () {
+      return maxIterations;
+   }
+
+   /** Set the iteration limit.
+   @param k    maximum number of refinement steps before falling back.
+   @exception  IllegalArgumentException Iterations must be positive.
+   */
+
+   public static void setMaxIterations (int k) {
+      if (k < 1) {
+         throw new IllegalArgumentException("Iterations must be positive.");
+      }
+      maxIterations = k;
+   }
+
+   /** Solve A*X = B by refinement on float factors of A.
+   @param A    n-by-n array, in double precision.
+   @param B    n-by-nx right hand sides.
+   @param n    Order of A.
+   @param nx   Number of right hand sides.
+   @param F    Float factors of A.
+   @return     X, or null if the refinement did not converge.
+   */
+
+   public static double[][] solve (double[][] A, double[][] B, int n, int nx, Factor F) {
+      double anorm = 0.0;
+      for (int i = 0; i < n; i++) {
+         double s = 0.0;
+         for (int j = 0; j < n; j++) {
+            s += Math.abs(A[i][j]);
+         }
+         anorm = Math.max(anorm, s);
+      }
+      double cte = anorm * Math.ulp(1.0) / 2 * Math.sqrt(n);
+
+      double[][] X = copy(B, n, nx);
+      F.solve(X, nx);
+      double[][] R = new double[n][nx];
+      for (int iter = 0; ; iter++) {
+         for (int i = 0; i < n; i++) {
+            System.arraycopy(B[i], 0, R[i], 0, nx);
+         }
+         Gemm.gemm(-1.0, A, 0, 0, X, 0, 0, R, 0, 0, n, nx, n);
+         if (converged(X, R, n, nx, cte)) {
+            return X;
+         }
+         if (iter == maxIterations) {
+            return null;
+         }
+         F.solve(R, nx);
+         for (int i = 0; i < n; i++) {
+            Kernels.add(X[i], R[i], X[i], nx);
+         }
+      }
+   }
+
+   /** Factors that solve in single precision. **/
+
+   public interface Factor {
+
+      /** Overwrite the n-by-nx array R with A\R, computed in float. **/
+      void solve (double[][] R, int nx);
+   }
+
+   /** LU factors with partial pivoting in single precision, PA = LU. **/
+
+   public static final class LU implements Factor, java.io.Serializable {
+
+      /** @serial float factors, L below and U on and above the diagonal. **/
+      private final float[][] LU;
+
+      /** @serial pivot vector. **/
+      private final int[] piv;
+
+      private LU (float[][] LU, int[] piv) {
+         this.LU = LU;
+         this.piv = piv;
+      }
+
+      /** Factor A in single precision.
+      @param A    n-by-n array.
+      @param n    Order of A.
+      @return     the factors, or null if A does not fit the float range or a pivot is zero.
+      */
+
+      public static LU factor (double[][] A, int n) {
+         float[][] F = toFloat(A, n);
+         if (F == null) {
+            return null;
+         }
+         int[] piv = new int[n];
+         for (int i = 0; i < n; i++) {
+            piv[i] = i;
+         }
+         for (int k = 0; k < n; k++) {
+            int p = k;
+            for (int i = k+1; i < n; i++) {
+               if (Math.abs(F[i][k]) > Math.abs(F[p][k])) {
+                  p = i;
+               }
+            }
+            if (F[p][k] == 0.0f) {
+               return null;
+            }
+            if (p != k) {
+               float[] t = F[p]; F[p] = F[k]; F[k] = t;
+               int s = piv[p]; piv[p] = piv[k]; piv[k] = s;
+            }
+
+            // Right-looking rank-one update of the trailing rows.
+            final float[] Fk = F[k];
+            final int k0 = k, k1 = k + 1;
+            Parallel.forRows(n - k1, n - k1, (i0, i1) -> {
+               for (int i = k1 + i0; i < k1 + i1; i++) {
+                  float[] Fi = F[i];
+                  float l = Fi[k0] /= Fk[k0];
+                  for (int j = k1; j < n; j++) {
+                     Fi[j] -= l*Fk[j];
+                  }
+               }
+            });
+         }
+         return new LU(F, piv);
+      }
+
+      /** Are the float pivots nonzero?
+      @return     true if U, and hence A in float, is nonsingular.
+      */
+
+      public boolean isNonsingular () {
+         for (int j = 0; j < piv.length; j++) {
+            if (LU[j][j] == 0.0f) {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      public void solve (double[][] R, int nx) {
+         int n = piv.length;
+         float[][] X = new float[n][nx];
+         for (int i = 0; i < n; i++) {
+            double[] Ri = R[piv[i]];
+            for (int j = 0; j < nx; j++) {
+               X[i][j] = (float) Ri[j];
+            }
+         }
+         for (int k = 0; k < n; k++) {
+            for (int i = k+1; i < n; i++) {
+               float l = LU[i][k];
+               for (int j = 0; j < nx; j++) {
+                  X[i][j] -= X[k][j]*l;
+               }
+            }
+         }
+         for (int k = n-1; k >= 0; k--) {
+            for (int j = 0; j < nx; j++) {
+               X[k][j] /= LU[k][k];
+            }
+            for (int i = 0; i < k; i++) {
+               float u = LU[i][k];
+               for (int j = 0; j < nx; j++) {
+                  X[i][j] -= X[k][j]*u;
+               }
+            }
+         }
+         toDouble(X, R, n, nx);
+      }
+
+      private static final long serialVersionUID = 1;
+   }
+
+   /** Cholesky factor in single precision, A = L*L'. **/
+
+   public static final class Cholesky implements Factor, java.io.Serializable {
+
+      /** @serial float lower triangular factor. **/
+      private final float[][] L;
+
+      private Cholesky (float[][] L) {
+         this.L = L;
+      }
+
+      /** Factor A in single precision.
+      @param A    n-by-n array.
+      @param n    Order of A.
+      @return     the factor, or null if A is not symmetric, does not fit
+                  the float range, or is not positive definite in float.
+      */
+
+      public static Cholesky factor (double[][] A, int n) {
+         for (int j = 0; j < n; j++) {
+            for (int k = 0; k < j; k++) {
+               if (A[k][j] != A[j][k]) {
+                  return null;
+               }
+            }
+         }
+         float[][] L = toFloat(A, n);
+         if (L == null) {
+            return null;
+         }
+         for (int j = 0; j < n; j++) {
+            float[] Lj = L[j];
+            float d = 0.0f;
+            for (int k = 0; k < j; k++) {
+               float[] Lk = L[k];
+               float s = 0.0f;
+               for (int i = 0; i < k; i++) {
+                  s += Lk[i]*Lj[i];
+               }
+               Lj[k] = s = (Lj[k] - s)/Lk[k];
+               d += s*s;
+            }
+            d = Lj[j] - d;
+            if (!(d > 0.0f)) {
+               return null;
+            }
+            Lj[j] = (float) Math.sqrt(d);
+            for (int k = j+1; k < n; k++) {
+               Lj[k] = 0.0f;
+            }
+         }
+         return new Cholesky(L);
+      }
+
+      public void solve (double[][] R, int nx) {
+         int n = L.length;
+         float[][] X = new float[n][nx];
+         for (int i = 0; i < n; i++) {
+            for (int j = 0; j < nx; j++) {
+               X[i][j] = (float) R[i][j];
+            }
+         }
+         for (int k = 0; k < n; k++) {
+            for (int j = 0; j < nx; j++) {
+               float s = X[k][j];
+               for (int i = 0; i < k; i++) {
+                  s -= X[i][j]*L[k][i];
+               }
+               X[k][j] = s / L[k][k];
+            }
+         }
+         for (int k = n-1; k >= 0; k--) {
+            for (int j = 0; j < nx; j++) {
+               float s = X[k][j];
+               for (int i = k+1; i < n; i++) {
+                  s -= X[i][j]*L[i][k];
+               }
+               X[k][j] = s / L[k][k];
+            }
+         }
+         toDouble(X, R, n, nx);
+      }
+
+      private static final long serialVersionUID = 1;
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Round A to float, or null if an element is outside the float range. **/
+
+   private static float[][] toFloat (double[][] A, int n) {
+      float[][] F = new float[n][n];
+      for (int i = 0; i < n; i++) {
+         double[] Ai = A[i];
+         float[] Fi = F[i];
+         for (int j = 0; j < n; j++) {
+            double a = Ai[j];
+            if (!(Math.abs(a) <= Float.MAX_VALUE)) {
+               return null;
+            }
+            Fi[j] = (float) a;
+         }
+      }
+      return F;
+   }
+
+   private static void toDouble (float[][] X, double[][] R, int n, int nx) {
+      for (int i = 0; i < n; i++) {
+         for (int j = 0; j < nx; j++) {
+            R[i][j] = X[i][j];
+         }
+      }
+   }
+
+   private static double[][] copy (double[][] B, int n, int nx) {
+      double[][] X = new double[n][nx];
+      for (int i = 0; i < n; i++) {
+         System.arraycopy(B[i], 0, X[i], 0, nx);
+      }
+      return X;
+   }
+
+   /** Does every column satisfy max|R(:,j)| &lt;= max|X(:,j)| * cte? NaN fails. **/
+
+   private static boolean converged (double[][] X, double[][] R, int n, int nx, double cte) {
+      for (int j = 0; j < nx; j++) {
+         double x = 0.0, r = 0.0;
+         for (int i = 0; i < n; i++) {
+            x = Math.max(x, Math.abs(X[i][j]));
+            r = Math.max(r, Math.abs(R[i][j]));
+         }
+         if (!(r <= x * cte)) {
+            return false;
+         }
+      }
+      return true;
+   }
+}
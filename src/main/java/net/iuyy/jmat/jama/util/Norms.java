@@ -0,0 +1,238 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.SplittableRandom;
+
+   /** Matrix norms of a dense m-by-n array.
+   <P>
+   The Frobenius norm is a scaled sum of squares in one pass, by Blue's
+   algorithm as in the dnrm2 and dlassq of LAPACK 3.10: every element is
+   squared into one of three accumulators by magnitude, tiny elements
+   scaled up, huge ones scaled down and all others as they are, and the
+   three are combined at the end.  Nothing overflows or underflows before
+   the result would, and the common case costs a comparison and a
+   multiply-add rather than the division and square root of a hypot.
+   <P>
+   Every norm reads the array row by row.  The one norm accumulates the
+   absolute column sums of a block of rows in a vector and adds the
+   vectors of blocks, the infinity norm takes the largest absolute row sum.
+   All run as reductions over row blocks with {@link Parallel#reduce}, so
+   results do not depend on the number of threads.  The two norm estimate
+   is power iteration on A'*A, with products by {@link Gemv}.
+   */
+
+public final class Norms {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Blue's thresholds and scaling factors for double precision. **/
+   private static final double TSML = 0x1p-511, TBIG = 0x1p486, SSML = 0x1p537, SBIG = 0x1p-538;
+
+   private Norms () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Frobenius norm.
+   @param A    Array of elements.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     sqrt of sum of squares of all elements.
+   */
+
+   public static double normF (double[][] A, int m, int n) {
+      if (m == 0 || n == 0) {
+         return 0.0;
+      }
+      double[] s = Parallel.reduce(m, n, (i0, i1) -> {
+         double[] t = new double[3];
+         for (int i = i0; i < i1; i++) {
+            accumulate(A[i], n, t);
+         }
+         return t;
+      }, SQUARES);
+      return combine(s);
+   }
+
+   /** Euclidean norm of a vector, without overflow or underflow.
+   @param x    Vector.
+   @param n    Number of elements.
+   @return     sqrt of sum of squares of x(0:n-1).
+   */
+
+   public static double norm (double[] x, int n) {
+      double[] t = new double[3];
+      accumulate(x, n, t);
+      return combine(t);
+   }
+
+   /** One norm.
+   @param A    Array of elements.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     maximum absolute column sum.
+   */
+
+   public static double norm1 (double[][] A, int m, int n) {
+      double[] s = columnSums(A, m, n);
+      double f = 0;
+      for (int j = 0; j < n; j++) {
+         f = Math.max(f, s[j]);
+      }
+      return f;
+   }
+
+   /** Infinity norm.
+   @param A    Array of elements.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     maximum absolute row sum.
+   */
+
+   public static double normInf (double[][] A, int m, int n) {
+      double[] f = Parallel.reduce(m, n, (i0, i1) -> {
+         double t = 0;
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A[i];
+            double s = 0;
+            for (int j = 0; j < n; j++) {
+               s += Math.abs(Ai[j]);
+            }
+            t = Math.max(t, s);
+         }
+         return new double[] {t};
+      }, MAXIMA);
+      return f[0];
+   }
+
+   /** Estimate of the two norm by power iteration, like normest.
+   <P>
+   Starting from the absolute column sums, x is repeatedly replaced by
+   A'*A*x normalized; ||A'*A*x|| / ||A*x|| increases to the largest
+   singular value.  Each step costs two matrix-vector products, against
+   the O(mn min(m,n)) of a singular value decomposition.  Convergence is
+   linear in the ratio of the two largest singular values; after maxIter
+   steps the current estimate is returned.
+   @param A        Array of elements.
+   @param m        Number of rows.
+   @param n        Number of columns.
+   @param tol      Relative change between steps at which to stop.
+   @param maxIter  Largest number of steps.
+   @return         estimate of the maximum singular value, never above it but for rounding.
+   */
+
+   public static double normest (double[][] A, int m, int n, double tol, int maxIter) {
+      double[] x = columnSums(A, m, n);
+      double e = norm(x, n);
+      if (e == 0.0 || e != e) {
+         return e;
+      }
+      Kernels.scale(1.0 / e, x, x, n);
+      double e0 = 0.0;
+      for (int k = 0; k < maxIter && Math.abs(e - e0) > tol * e; k++) {
+         e0 = e;
+         double[] y = Gemv.multiply(A, x, m, n);
+         double ny = norm(y, m);
+         if (ny == 0.0) {
+            // x lies in the null space; restart from a fixed pseudo-random vector.
+            SplittableRandom r = new SplittableRandom(n);
+            for (int j = 0; j < n; j++) {
+               x[j] = r.nextDouble() - 0.5;
+            }
+            y = Gemv.multiply(A, x, m, n);
+            ny = norm(y, m);
+            if (ny == 0.0) {
+               return 0.0;
+            }
+         }
+         x = Gemv.multiply(y, A, m, n);
+         double nx = norm(x, n);
+         e = nx / ny;
+         Kernels.scale(1.0 / nx, x, x, n);
+      }
+      return e;
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Add the scaled squares of x(0:n-1) to the small, medium and big sums t. **/
+
+   private static void accumulate (double[] x, int n, double[] t) {
+      double asml = t[0], amed = t[1], abig = t[2];
+      for (int j = 0; j < n; j++) {
+         double a = Math.abs(x[j]);
+         if (a > TBIG) {
+            a *= SBIG;
+            abig += a*a;
+         } else if (a < TSML) {
+            a *= SSML;
+            asml += a*a;
+         } else {
+            amed += a*a;
+         }
+      }
+      t[0] = asml; t[1] = amed; t[2] = abig;
+   }
+
+   /** sqrt of the sum of squares held in the three accumulators. **/
+
+   private static double combine (double[] t) {
+      double asml = t[0], amed = t[1], abig = t[2];
+      if (abig > 0.0) {
+         // Medium values matter only if they could reach the big ones.
+         if (amed > 0.0 || amed != amed) {
+            abig += (amed * SBIG) * SBIG;
+         }
+         return Math.sqrt(abig) / SBIG;
+      }
+      if (asml > 0.0) {
+         if (amed > 0.0 || amed != amed) {
+            double ymed = Math.sqrt(amed), ysml = Math.sqrt(asml) / SSML;
+            double ymin = Math.min(ymed, ysml), ymax = Math.max(ymed, ysml);
+            double r = ymin / ymax;
+            return ymax * Math.sqrt(1.0 + r*r);
+         }
+         return Math.sqrt(asml) / SSML;
+      }
+      return Math.sqrt(amed);
+   }
+
+   /** Absolute column sums, accumulated row by row. **/
+
+   private static double[] columnSums (double[][] A, int m, int n) {
+      if (m == 0) {
+         return new double[n];
+      }
+      return Parallel.reduce(m, n, (i0, i1) -> {
+         double[] t = new double[n];
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A[i];
+            for (int j = 0; j < n; j++) {
+               t[j] += Math.abs(Ai[j]);
+            }
+         }
+         return t;
+      }, SUMS);
+   }
+
+   private static final Parallel.Merge<double[]> SQUARES = (left, right) -> {
+      left[0] += right[0];
+      left[1] += right[1];
+      left[2] += right[2];
+      return left;
+   };
+
+   private static final Parallel.Merge<double[]> SUMS = (left, right) -> {
+      Kernels.add(left, right, left, left.length);
+      return left;
+   };
+
+   private static final Parallel.Merge<double[]> MAXIMA = (left, right) -> {
+      left[0] = Math.max(left[0], right[0]);
+      return left;
+   };
+}
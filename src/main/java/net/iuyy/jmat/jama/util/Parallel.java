@@ -0,0 +1,211 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+   /** Fork/join helpers for row-blocked kernels.
+   <P>
+   Work is split into row blocks by recursive halving until a block holds
+   no more than GRAIN elements.  Problems below the threshold run on the
+   calling thread, larger ones in the configured pool.  The split tree
+   depends only on the problem size, never on the number of threads, so a
+   reduction combines its partial results in the same order whether it runs
+   serially or in parallel.
+   */
+
+public final class Parallel {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Number of elements handled by one leaf block. **/
+   static final int GRAIN = 1 << 14;
+
+   /** Pool that runs forked blocks.
+   Defaults to the common pool.
+   */
+   private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+   /** Number of elements from which blocks are forked.
+   Smaller problems run on the calling thread.
+   */
+   private static volatile long threshold = 1L << 18;
+
+   private Parallel () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Get the pool that runs parallel kernels.
+   @return     pool
+   */
+
+   public static ForkJoinPool getPool () {
+      return pool;
+   }
+
+   /** Set the pool that runs parallel kernels.
+   @param p    pool, for example one sized to the cores given to this library.
+   @exception  IllegalArgumentException Pool must not be null.
+   */
+
+   public static void setPool (ForkJoinPool p) {
+      if (p == null) {
+         throw new IllegalArgumentException("Pool must not be null.");
+      }
+      pool = p;
+   }
+
+   /** Get the parallel threshold.
+   @return     number of elements from which kernels run in parallel.
+   */
+
+   public static long getThreshold () {
+      return threshold;
+   }
+
+   /** Set the parallel threshold.
+   Use Long.MAX_VALUE to keep every kernel on the calling thread.
+   @param t    number of elements from which kernels run in parallel.
+   @exception  IllegalArgumentException Threshold must not be negative.
+   */
+
+   public static void setThreshold (long t) {
+      if (t < 0) {
+         throw new IllegalArgumentException("Threshold must not be negative.");
+      }
+      threshold = t;
+   }
+
+   /** Should a kernel over m*n elements run in parallel?
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     true if the problem reaches the threshold and more than one worker is available.
+   */
+
+   public static boolean isParallel (long m, long n) {
+      return m * n >= threshold && pool.getParallelism() > 1;
+   }
+
+   /** Partial result of a row block [i0, i1). **/
+
+   public interface Block<T> {
+      T apply (int i0, int i1);
+   }
+
+   /** Independent work on a row block [i0, i1). **/
+
+   public interface Rows {
+      void apply (int i0, int i1);
+   }
+
+   /** Combine the partial results of two adjacent row blocks, left first. **/
+
+   public interface Merge<T> {
+      T apply (T left, T right);
+   }
+
+   /** Reduce rows [0, m) of a matrix with n columns.
+   @param m       Number of rows.
+   @param n       Number of columns.
+   @param block   Reduction of one row block.
+   @param merge   Combination of two adjacent partial results.
+   @return        The combined result of all blocks.
+   */
+
+   public static <T> T reduce (int m, int n, Block<T> block, Merge<T> merge) {
+      int grain = grainRows(n);
+      if (!isParallel(m, n)) {
+         return reduce(0, m, grain, block, merge);
+      }
+      return pool.invoke(new ReduceTask<T>(0, m, grain, block, merge));
+   }
+
+   /** Run independent work on rows [0, m) of a matrix with n columns.
+   @param m       Number of rows.
+   @param n       Number of columns.
+   @param body    Work on one row block.
+   */
+
+   public static void forRows (int m, int n, Rows body) {
+      if (!isParallel(m, n)) {
+         body.apply(0, m);
+         return;
+      }
+      pool.invoke(new RowsTask(0, m, grainRows(n), body));
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Number of rows in a leaf block. **/
+
+   static int grainRows (int n) {
+      return Math.max(1, GRAIN / Math.max(n,1));
+   }
+
+   private static <T> T reduce (int i0, int i1, int grain, Block<T> block, Merge<T> merge) {
+      if (i1 - i0 <= grain) {
+         return block.apply(i0, i1);
+      }
+      int mid = (i0 + i1) >>> 1;
+      return merge.apply(reduce(i0, mid, grain, block, merge), reduce(mid, i1, grain, block, merge));
+   }
+
+   private static final class ReduceTask<T> extends RecursiveTask<T> {
+      private final int i0, i1, grain;
+      private final Block<T> block;
+      private final Merge<T> merge;
+
+      ReduceTask (int i0, int i1, int grain, Block<T> block, Merge<T> merge) {
+         this.i0 = i0;
+         this.i1 = i1;
+         this.grain = grain;
+         this.block = block;
+         this.merge = merge;
+      }
+
+      @Override
+      protected T compute () {
+         if (i1 - i0 <= grain) {
+            return block.apply(i0, i1);
+         }
+         int mid = (i0 + i1) >>> 1;
+         ReduceTask<T> left = new ReduceTask<T>(i0, mid, grain, block, merge);
+         ReduceTask<T> right = new ReduceTask<T>(mid, i1, grain, block, merge);
+         left.fork();
+         T r = right.compute();
+         return merge.apply(left.join(), r);
+      }
+
+      private static final long serialVersionUID = 1;
+   }
+
+   private static final class RowsTask extends RecursiveAction {
+      private final int i0, i1, grain;
+      private final Rows body;
+
+      RowsTask (int i0, int i1, int grain, Rows body) {
+         this.i0 = i0;
+         this.i1 = i1;
+         this.grain = grain;
+         this.body = body;
+      }
+
+      @Override
+      protected void compute () {
+         if (i1 - i0 <= grain) {
+            body.apply(i0, i1);
+            return;
+         }
+         int mid = (i0 + i1) >>> 1;
+         invokeAll(new RowsTask(i0, mid, grain, body), new RowsTask(mid, i1, grain, body));
+      }
+
+      private static final long serialVersionUID = 1;
+   }
+}
@@ -0,0 +1,696 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+
+   /** Reductions of a dense m-by-n array along a dimension.
+   <P>
+   Dimension 1 reduces down the columns and gives one value per column,
+   dimension 2 reduces across the rows and gives one value per row; the
+   overloads without a dimension reduce over all elements.  Sums use
+   Neumaier's compensated summation inside a row block
+   ({@link Kernels#sum}, {@link Kernels#accumulate}) and are merged
+   pairwise across blocks.  Variances use Welford's single pass update,
+   merged across blocks with the formula of Chan, Golub and LeVeque.
+   All reductions run over row blocks with {@link Parallel#reduce}, so the
+   result for a given input does not depend on the number of threads.
+   <P>
+   The reductions read the array a row at a time through {@link Rows}, so
+   an array of boxed elements is unboxed row by row inside the parallel
+   blocks, into one scratch row per block, rather than copied whole first.
+   */
+
+public final class Reductions {
+
+   private Reductions () {}
+
+   /** Source of the rows of an m-by-n array, as doubles. **/
+
+   public interface Rows {
+
+      /** Row i, either an array of the source or t filled with it.
+      @param i    Row index.
+      @param t    Scratch row of length n, owned by the calling block.
+      @return     Row i, not to be modified.
+      */
+      double[] row (int i, double[] t);
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Rows of a double array, read in place.
+   @param A    Array of elements.
+   @return     the rows of A.
+   */
+
+   public static Rows rows (double[][] A) {
+      return (i, t) -> A[i];
+   }
+
+   /** Rows of a Number array, unboxed with empty elements as 0.
+   @param A    Array of elements.
+   @return     the rows of A as doubles.
+   */
+
+   public static Rows rows (Number[][] A) {
+      return (i, t) -> {
+         Number[] Ai = A[i];
+         for (int j = 0; j < t.length; j++) {
+            Number cell = Ai[j];
+            t[j] = cell != null ? cell.doubleValue() : 0d;
+         }
+         return t;
+      };
+   }
+
+   /** Sum of all elements.
+   @param A    Array of elements.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     sum(A(:))
+   */
+
+   public static double sum (double[][] A, int m, int n) {
+      return sum(rows(A), m, n);
+   }
+
+   /** Sum of all elements.
+   @param A    Rows of the array.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @return     sum(A(:))
+   */
+
+   public static double sum (Rows A, int m, int n) {
+      if (m == 0 || n == 0) {
+         return 0.0;
+      }
+      Sums s = Parallel.reduce(m, n, (i0, i1) -> {
+         Sums t = new Sums(1);
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            t.add(0, Kernels.sum(A.row(i, x), 0, n));
+         }
+         return t;
+      }, SUMS);
+      return s.value(0);
+   }
+
+   /** Sums along a dimension.
+   @param A    Array of elements.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param dim  1 for column sums, 2 for row sums.
+   @return     sum(A,dim) as a packed array.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static double[] sum (double[][] A, int m, int n, int dim) {
+      return sum(rows(A), m, n, dim);
+   }
+
+   /** Sums along a dimension.
+   @param A    Rows of the array.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param dim  1 for column sums, 2 for row sums.
+   @return     sum(A,dim) as a packed array.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static double[] sum (Rows A, int m, int n, int dim) {
+      checkDimension(dim);
+      if (dim == 2) {
+         double[] r = new double[m];
+         Parallel.forRows(m, n, (i0, i1) -> {
+            double[] x = new double[n];
+            for (int i = i0; i < i1; i++) {
+               r[i] = Kernels.sum(A.row(i, x), 0, n);
+            }
+         });
+         return r;
+      }
+      Sums s = Parallel.reduce(m, n, (i0, i1) -> {
+         Sums t = new Sums(n);
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            Kernels.accumulate(t.s, t.c, A.row(i, x), n);
+         }
+         return t;
+      }, SUMS);
+      double[] r = new double[n];
+      for (int j = 0; j < n; j++) {
+         r[j] = s.value(j);
+      }
+      return r;
+   }
+
+   /** Mean of all elements.
+   @return     mean(A(:)), NaN for an empty array.
+   */
+
+   public static double mean (double[][] A, int m, int n) {
+      return mean(rows(A), m, n);
+   }
+
+   /** Mean of all elements.
+   @return     mean(A(:)), NaN for an empty array.
+   */
+
+   public static double mean (Rows A, int m, int n) {
+      return sum(A, m, n) / ((double) m * n);
+   }
+
+   /** Means along a dimension.
+   @return     mean(A,dim) as a packed array.
+   */
+
+   public static double[] mean (double[][] A, int m, int n, int dim) {
+      return mean(rows(A), m, n, dim);
+   }
+
+   /** Means along a dimension.
+   @return     mean(A,dim) as a packed array.
+   */
+
+   public static double[] mean (Rows A, int m, int n, int dim) {
+      double[] r = sum(A, m, n, dim);
+      double count = (dim == 1 ? m : n);
+      for (int k = 0; k < r.length; k++) {
+         r[k] /= count;
+      }
+      return r;
+   }
+
+   /** Product of all elements.
+   @return     prod(A(:))
+   */
+
+   public static double prod (double[][] A, int m, int n) {
+      return prod(rows(A), m, n);
+   }
+
+   /** Product of all elements.
+   @return     prod(A(:))
+   */
+
+   public static double prod (Rows A, int m, int n) {
+      double[] p = Parallel.reduce(m, n, (i0, i1) -> {
+         double t = 1.0;
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A.row(i, x);
+            for (int j = 0; j < n; j++) {
+               t *= Ai[j];
+            }
+         }
+         return new double[] {t};
+      }, PRODUCTS);
+      return p[0];
+   }
+
+   /** Products along a dimension.
+   @return     prod(A,dim) as a packed array.
+   */
+
+   public static double[] prod (double[][] A, int m, int n, int dim) {
+      return prod(rows(A), m, n, dim);
+   }
+
+   /** Products along a dimension.
+   @return     prod(A,dim) as a packed array.
+   */
+
+   public static double[] prod (Rows A, int m, int n, int dim) {
+      checkDimension(dim);
+      if (dim == 2) {
+         double[] r = new double[m];
+         Parallel.forRows(m, n, (i0, i1) -> {
+            double[] x = new double[n];
+            for (int i = i0; i < i1; i++) {
+               double t = 1.0;
+               double[] Ai = A.row(i, x);
+               for (int j = 0; j < n; j++) {
+                  t *= Ai[j];
+               }
+               r[i] = t;
+            }
+         });
+         return r;
+      }
+      return Parallel.reduce(m, n, (i0, i1) -> {
+         double[] t = new double[n];
+         Arrays.fill(t, 1.0);
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A.row(i, x);
+            for (int j = 0; j < n; j++) {
+               t[j] *= Ai[j];
+            }
+         }
+         return t;
+      }, PRODUCTS);
+   }
+
+   /** Sample variance of all elements, normalized by N-1.
+   @return     var(A(:)), zero for a single element, NaN for an empty array.
+   */
+
+   public static double var (double[][] A, int m, int n) {
+      return var(rows(A), m, n);
+   }
+
+   /** Sample variance of all elements, normalized by N-1.
+   @return     var(A(:)), zero for a single element, NaN for an empty array.
+   */
+
+   public static double var (Rows A, int m, int n) {
+      if (m == 0 || n == 0) {
+         return Double.NaN;
+      }
+      Moments s = Parallel.reduce(m, n, (i0, i1) -> {
+         Moments t = new Moments(1);
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A.row(i, x);
+            for (int j = 0; j < n; j++) {
+               t.add(0, Ai[j]);
+            }
+         }
+         return t;
+      }, MOMENTS);
+      return s.variance(0);
+   }
+
+   /** Sample variances along a dimension, normalized by N-1.
+   @return     var(A,dim) as a packed array.
+   */
+
+   public static double[] var (double[][] A, int m, int n, int dim) {
+      return var(rows(A), m, n, dim);
+   }
+
+   /** Sample variances along a dimension, normalized by N-1.
+   @return     var(A,dim) as a packed array.
+   */
+
+   public static double[] var (Rows A, int m, int n, int dim) {
+      checkDimension(dim);
+      if (dim == 2) {
+         double[] r = new double[m];
+         Parallel.forRows(m, n, (i0, i1) -> {
+            double[] x = new double[n];
+            for (int i = i0; i < i1; i++) {
+               Moments t = new Moments(1);
+               double[] Ai = A.row(i, x);
+               for (int j = 0; j < n; j++) {
+                  t.add(0, Ai[j]);
+               }
+               r[i] = t.variance(0);
+            }
+         });
+         return r;
+      }
+      Moments s = Parallel.reduce(m, n, (i0, i1) -> {
+         Moments t = new Moments(n);
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            t.addRow(A.row(i, x));
+         }
+         return t;
+      }, MOMENTS);
+      double[] r = new double[n];
+      for (int j = 0; j < n; j++) {
+         r[j] = s.variance(j);
+      }
+      return r;
+   }
+
+   /** Sample standard deviation of all elements.
+   @return     std(A(:))
+   */
+
+   public static double std (double[][] A, int m, int n) {
+      return std(rows(A), m, n);
+   }
+
+   /** Sample standard deviation of all elements.
+   @return     std(A(:))
+   */
+
+   public static double std (Rows A, int m, int n) {
+      return Math.sqrt(var(A, m, n));
+   }
+
+   /** Sample standard deviations along a dimension.
+   @return     std(A,dim) as a packed array.
+   */
+
+   public static double[] std (double[][] A, int m, int n, int dim) {
+      return std(rows(A), m, n, dim);
+   }
+
+   /** Sample standard deviations along a dimension.
+   @return     std(A,dim) as a packed array.
+   */
+
+   public static double[] std (Rows A, int m, int n, int dim) {
+      double[] r = var(A, m, n, dim);
+      for (int k = 0; k < r.length; k++) {
+         r[k] = Math.sqrt(r[k]);
+      }
+      return r;
+   }
+
+   /** Smallest element.
+   @return     min(A(:)), NaN for an empty array.  NaN elements are ignored.
+   */
+
+   public static double min (double[][] A, int m, int n) {
+      return min(rows(A), m, n);
+   }
+
+   /** Smallest element.
+   @return     min(A(:)), NaN for an empty array.  NaN elements are ignored.
+   */
+
+   public static double min (Rows A, int m, int n) {
+      return extreme(A, m, n, false).v[0];
+   }
+
+   /** Largest element.
+   @return     max(A(:)), NaN for an empty array.  NaN elements are ignored.
+   */
+
+   public static double max (double[][] A, int m, int n) {
+      return max(rows(A), m, n);
+   }
+
+   /** Largest element.
+   @return     max(A(:)), NaN for an empty array.  NaN elements are ignored.
+   */
+
+   public static double max (Rows A, int m, int n) {
+      return extreme(A, m, n, true).v[0];
+   }
+
+   /** Position of the first smallest element.
+   @return     {row, column}, or {-1, -1} for an empty array.
+   */
+
+   public static int[] argmin (double[][] A, int m, int n) {
+      return argmin(rows(A), m, n);
+   }
+
+   /** Position of the first smallest element.
+   @return     {row, column}, or {-1, -1} for an empty array.
+   */
+
+   public static int[] argmin (Rows A, int m, int n) {
+      return position(extreme(A, m, n, false).k[0], n);
+   }
+
+   /** Position of the first largest element.
+   @return     {row, column}, or {-1, -1} for an empty array.
+   */
+
+   public static int[] argmax (double[][] A, int m, int n) {
+      return argmax(rows(A), m, n);
+   }
+
+   /** Position of the first largest element.
+   @return     {row, column}, or {-1, -1} for an empty array.
+   */
+
+   public static int[] argmax (Rows A, int m, int n) {
+      return position(extreme(A, m, n, true).k[0], n);
+   }
+
+   /** Smallest elements along a dimension.
+   @return     min(A,[],dim) as a packed array.
+   */
+
+   public static double[] min (double[][] A, int m, int n, int dim) {
+      return min(rows(A), m, n, dim);
+   }
+
+   /** Smallest elements along a dimension.
+   @return     min(A,[],dim) as a packed array.
+   */
+
+   public static double[] min (Rows A, int m, int n, int dim) {
+      return extreme(A, m, n, dim, false).v;
+   }
+
+   /** Largest elements along a dimension.
+   @return     max(A,[],dim) as a packed array.
+   */
+
+   public static double[] max (double[][] A, int m, int n, int dim) {
+      return max(rows(A), m, n, dim);
+   }
+
+   /** Largest elements along a dimension.
+   @return     max(A,[],dim) as a packed array.
+   */
+
+   public static double[] max (Rows A, int m, int n, int dim) {
+      return extreme(A, m, n, dim, true).v;
+   }
+
+   /** Indices of the first smallest elements along a dimension.
+   @return     Row indices (dim 1) or column indices (dim 2).
+   */
+
+   public static int[] argmin (double[][] A, int m, int n, int dim) {
+      return argmin(rows(A), m, n, dim);
+   }
+
+   /** Indices of the first smallest elements along a dimension.
+   @return     Row indices (dim 1) or column indices (dim 2).
+   */
+
+   public static int[] argmin (Rows A, int m, int n, int dim) {
+      return indices(extreme(A, m, n, dim, false).k);
+   }
+
+   /** Indices of the first largest elements along a dimension.
+   @return     Row indices (dim 1) or column indices (dim 2).
+   */
+
+   public static int[] argmax (double[][] A, int m, int n, int dim) {
+      return argmax(rows(A), m, n, dim);
+   }
+
+   /** Indices of the first largest elements along a dimension.
+   @return     Row indices (dim 1) or column indices (dim 2).
+   */
+
+   public static int[] argmax (Rows A, int m, int n, int dim) {
+      return indices(extreme(A, m, n, dim, true).k);
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Check that dim is 1 or 2. **/
+
+   static void checkDimension (int dim) {
+      if (dim != 1 && dim != 2) {
+         throw new IllegalArgumentException("Dimension must be 1 or 2.");
+      }
+   }
+
+   private static Extremes extreme (Rows A, int m, int n, boolean max) {
+      if (m == 0 || n == 0) {
+         Extremes e = new Extremes(1);
+         e.v[0] = Double.NaN;
+         return e;
+      }
+      return Parallel.reduce(m, n, (i0, i1) -> {
+         Extremes t = new Extremes(1);
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A.row(i, x);
+            long base = (long) i * n;
+            for (int j = 0; j < n; j++) {
+               t.offer(0, Ai[j], base + j, max);
+            }
+         }
+         return t;
+      }, max ? MAXIMA : MINIMA);
+   }
+
+   private static Extremes extreme (Rows A, int m, int n, int dim, boolean max) {
+      checkDimension(dim);
+      if (dim == 2) {
+         Extremes r = new Extremes(m);
+         Parallel.forRows(m, n, (i0, i1) -> {
+            double[] x = new double[n];
+            for (int i = i0; i < i1; i++) {
+               double[] Ai = A.row(i, x);
+               for (int j = 0; j < n; j++) {
+                  r.offer(i, Ai[j], j, max);
+               }
+            }
+         });
+         return r;
+      }
+      return Parallel.reduce(m, n, (i0, i1) -> {
+         Extremes t = new Extremes(n);
+         double[] x = new double[n];
+         for (int i = i0; i < i1; i++) {
+            double[] Ai = A.row(i, x);
+            for (int j = 0; j < n; j++) {
+               t.offer(j, Ai[j], i, max);
+            }
+         }
+         return t;
+      }, max ? MAXIMA : MINIMA);
+   }
+
+   private static int[] position (long k, int n) {
+      return k < 0 ? new int[] {-1, -1} : new int[] {(int) (k / n), (int) (k % n)};
+   }
+
+   private static int[] indices (long[] k) {
+      int[] r = new int[k.length];
+      for (int j = 0; j < k.length; j++) {
+         r[j] = (int) k[j];
+      }
+      return r;
+   }
+
+   /** Neumaier compensated partial sums. **/
+
+   private static final class Sums {
+      final double[] s, c;
+
+      Sums (int n) {
+         s = new double[n];
+         c = new double[n];
+      }
+
+      void add (int j, double x) {
+         double t = s[j] + x;
+         if (Math.abs(s[j]) >= Math.abs(x)) {
+            c[j] += (s[j] - t) + x;
+         } else {
+            c[j] += (x - t) + s[j];
+         }
+         s[j] = t;
+      }
+
+      double value (int j) {
+         return s[j] + c[j];
+      }
+   }
+
+   /** Welford running means and sums of squared deviations. **/
+
+   private static final class Moments {
+      final double[] mean, m2;
+      long count;
+
+      Moments (int n) {
+         mean = new double[n];
+         m2 = new double[n];
+      }
+
+      void add (int j, double x) {
+         count++;
+         double d = x - mean[j];
+         mean[j] += d / count;
+         m2[j] += d * (x - mean[j]);
+      }
+
+      void addRow (double[] x) {
+         count++;
+         for (int j = 0; j < mean.length; j++) {
+            double d = x[j] - mean[j];
+            mean[j] += d / count;
+            m2[j] += d * (x[j] - mean[j]);
+         }
+      }
+
+      double variance (int j) {
+         if (count == 0) {
+            return Double.NaN;
+         }
+         return count > 1 ? m2[j] / (count - 1) : 0.0;
+      }
+   }
+
+   /** Running extreme values and the index where each was first seen. **/
+
+   private static final class Extremes {
+      final double[] v;
+      final long[] k;
+
+      Extremes (int n) {
+         v = new double[n];
+         k = new long[n];
+         Arrays.fill(v, Double.NaN);
+         Arrays.fill(k, -1);
+      }
+
+      void offer (int j, double x, long index, boolean max) {
+         if (x != x) {
+            return;
+         }
+         if (k[j] < 0 || (max ? x > v[j] : x < v[j])) {
+            v[j] = x;
+            k[j] = index;
+         }
+      }
+   }
+
+   private static final Parallel.Merge<Sums> SUMS = (left, right) -> {
+      for (int j = 0; j < left.s.length; j++) {
+         left.add(j, right.s[j]);
+         left.c[j] += right.c[j];
+      }
+      return left;
+   };
+
+   private static final Parallel.Merge<double[]> PRODUCTS = (left, right) -> {
+      for (int j = 0; j < left.length; j++) {
+         left[j] *= right[j];
+      }
+      return left;
+   };
+
+   private static final Parallel.Merge<Moments> MOMENTS = (left, right) -> {
+      if (right.count == 0) {
+         return left;
+      }
+      if (left.count == 0) {
+         return right;
+      }
+      double na = left.count, nb = right.count, n = na + nb;
+      for (int j = 0; j < left.mean.length; j++) {
+         double d = right.mean[j] - left.mean[j];
+         left.mean[j] += d * (nb / n);
+         left.m2[j] += right.m2[j] + d * d * (na * nb / n);
+      }
+      left.count += right.count;
+      return left;
+   };
+
+   private static final Parallel.Merge<Extremes> MINIMA = extremes(false);
+
+   private static final Parallel.Merge<Extremes> MAXIMA = extremes(true);
+
+   private static Parallel.Merge<Extremes> extremes (boolean max) {
+      return (left, right) -> {
+         for (int j = 0; j < left.v.length; j++) {
+            if (right.k[j] >= 0) {
+               left.offer(j, right.v[j], right.k[j], max);
+            }
+         }
+         return left;
+      };
+   }
+}
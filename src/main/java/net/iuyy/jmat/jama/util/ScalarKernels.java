@@ -0,0 +1,121 @@
+package net.iuyy.jmat.jama.util;
+
+   /** Portable implementations of the {@link Kernels} primitives.
+   <P>
+   These are the reference kernels: plain loops the JIT may auto-vectorize,
+   used on every JVM and as the fallback when the Vector API is absent.
+   */
+
+final class ScalarKernels {
+
+   private ScalarKernels () {}
+
+   static double dot (double[] x, int xo, double[] y, int yo, int n) {
+      double s = 0.0;
+      for (int i = 0; i < n; i++) {
+         s += x[xo+i]*y[yo+i];
+      }
+      return s;
+   }
+
+   static void axpy (double a, double[] x, int xo, double[] y, int yo, int n) {
+      for (int i = 0; i < n; i++) {
+         y[yo+i] += a*x[xo+i];
+      }
+   }
+
+   static void add (double[] x, double[] y, double[] z, int n) {
+      for (int i = 0; i < n; i++) {
+         z[i] = x[i] + y[i];
+      }
+   }
+
+   static void subtract (double[] x, double[] y, double[] z, int n) {
+      for (int i = 0; i < n; i++) {
+         z[i] = x[i] - y[i];
+      }
+   }
+
+   static void multiply (double[] x, double[] y, double[] z, int n) {
+      for (int i = 0; i < n; i++) {
+         z[i] = x[i] * y[i];
+      }
+   }
+
+   static void divide (double[] x, double[] y, double[] z, int n) {
+      for (int i = 0; i < n; i++) {
+         z[i] = x[i] / y[i];
+      }
+   }
+
+   static void scale (double a, double[] x, double[] z, int n) {
+      for (int i = 0; i < n; i++) {
+         z[i] = a * x[i];
+      }
+   }
+
+   static double sum (double[] x, int xo, int n) {
+      double s = 0.0, c = 0.0;
+      for (int i = 0; i < n; i++) {
+         double v = x[xo+i];
+         double t = s + v;
+         if (Math.abs(s) >= Math.abs(v)) {
+            c += (s - t) + v;
+         } else {
+            c += (v - t) + s;
+         }
+         s = t;
+      }
+      return s + c;
+   }
+
+   static void accumulate (double[] s, double[] c, double[] x, int n) {
+      for (int j = 0; j < n; j++) {
+         double v = x[j];
+         double t = s[j] + v;
+         if (Math.abs(s[j]) >= Math.abs(v)) {
+            c[j] += (s[j] - t) + v;
+         } else {
+            c[j] += (v - t) + s[j];
+         }
+         s[j] = t;
+      }
+   }
+
+   static void gemm (int kc, double[] a, int ao, double[] b, int bo, double[] c, int co, int ldc) {
+      double c00 = 0, c01 = 0, c02 = 0, c03 = 0, c04 = 0, c05 = 0, c06 = 0, c07 = 0;
+      double c10 = 0, c11 = 0, c12 = 0, c13 = 0, c14 = 0, c15 = 0, c16 = 0, c17 = 0;
+      double c20 = 0, c21 = 0, c22 = 0, c23 = 0, c24 = 0, c25 = 0, c26 = 0, c27 = 0;
+      double c30 = 0, c31 = 0, c32 = 0, c33 = 0, c34 = 0, c35 = 0, c36 = 0, c37 = 0;
+      for (int p = 0; p < kc; p++) {
+         int pa = ao + p*Kernels.MR;
+         int pb = bo + p*Kernels.NR;
+         double b0 = b[pb], b1 = b[pb+1], b2 = b[pb+2], b3 = b[pb+3];
+         double b4 = b[pb+4], b5 = b[pb+5], b6 = b[pb+6], b7 = b[pb+7];
+         double a0 = a[pa];
+         c00 += a0*b0; c01 += a0*b1; c02 += a0*b2; c03 += a0*b3;
+         c04 += a0*b4; c05 += a0*b5; c06 += a0*b6; c07 += a0*b7;
+         double a1 = a[pa+1];
+         c10 += a1*b0; c11 += a1*b1; c12 += a1*b2; c13 += a1*b3;
+         c14 += a1*b4; c15 += a1*b5; c16 += a1*b6; c17 += a1*b7;
+         double a2 = a[pa+2];
+         c20 += a2*b0; c21 += a2*b1; c22 += a2*b2; c23 += a2*b3;
+         c24 += a2*b4; c25 += a2*b5; c26 += a2*b6; c27 += a2*b7;
+         double a3 = a[pa+3];
+         c30 += a3*b0; c31 += a3*b1; c32 += a3*b2; c33 += a3*b3;
+         c34 += a3*b4; c35 += a3*b5; c36 += a3*b6; c37 += a3*b7;
+      }
+      int r = co;
+      c[r] += c00; c[r+1] += c01; c[r+2] += c02; c[r+3] += c03;
+      c[r+4] += c04; c[r+5] += c05; c[r+6] += c06; c[r+7] += c07;
+      r += ldc;
+      c[r] += c10; c[r+1] += c11; c[r+2] += c12; c[r+3] += c13;
+      c[r+4] += c14; c[r+5] += c15; c[r+6] += c16; c[r+7] += c17;
+      r += ldc;
+      c[r] += c20; c[r+1] += c21; c[r+2] += c22; c[r+3] += c23;
+      c[r+4] += c24; c[r+5] += c25; c[r+6] += c26; c[r+7] += c27;
+      r += ldc;
+      c[r] += c30; c[r+1] += c31; c[r+2] += c32; c[r+3] += c33;
+      c[r+4] += c34; c[r+5] += c35; c[r+6] += c36; c[r+7] += c37;
+   }
+}
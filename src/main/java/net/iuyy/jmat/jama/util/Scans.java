@@ -0,0 +1,261 @@
+package net.iuyy.jmat.jama.util;
+
+   /** Cumulative sums, products and maxima of a dense array along a dimension.
+   <P>
+   Dimension 1 scans down each column, dimension 2 along each row.  The
+   output may be the input array, so every scan can run in place.
+   <P>
+   A serial scan reads each element once.  Large scans run as a blocked
+   parallel prefix scan on the {@link Parallel} pool: the dimension is cut
+   into fixed blocks, the first pass reduces every block to its total in
+   parallel, a short serial pass turns the totals into the carry into each
+   block, and the second pass scans every block from its carry in
+   parallel.  That is about twice the work of the serial scan, split over
+   all workers, so it stays work-efficient however long the dimension is.
+   Down columns a block is a band of rows and the carries are row vectors;
+   along a row that is too long for one worker the row itself is cut.
+   <P>
+   Whether a scan is blocked, and the blocks, depend only on the size of
+   the array and the {@link Parallel#getThreshold threshold}, never on the
+   number of threads; with a single worker the blocks simply run in turn.
+   Cumulative maxima are exact either way; blocked sums and products
+   associate the block totals first and may differ from the unblocked scan
+   in the last bits.  NaN propagates through sums and products, and is
+   skipped by maxima, which stay NaN only until the first number.
+   */
+
+public final class Scans {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   private static final int SUM = 0, PROD = 1, MAX = 2;
+
+   private Scans () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Cumulative sums along a dimension.
+   @param A    Array of elements.
+   @param B    Output array of the same shape, may be A.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param dim  1 to scan down columns, 2 along rows.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static void cumsum (double[][] A, double[][] B, int m, int n, int dim) {
+      scan(A, B, m, n, dim, SUM);
+   }
+
+   /** Cumulative products along a dimension.
+   @param A    Array of elements.
+   @param B    Output array of the same shape, may be A.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param dim  1 to scan down columns, 2 along rows.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static void cumprod (double[][] A, double[][] B, int m, int n, int dim) {
+      scan(A, B, m, n, dim, PROD);
+   }
+
+   /** Cumulative maxima along a dimension, ignoring NaN.
+   @param A    Array of elements.
+   @param B    Output array of the same shape, may be A.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param dim  1 to scan down columns, 2 along rows.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static void cummax (double[][] A, double[][] B, int m, int n, int dim) {
+      scan(A, B, m, n, dim, MAX);
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   private static void scan (double[][] A, double[][] B, int m, int n, int dim, int op) {
+      Reductions.checkDimension(dim);
+      if (m == 0 || n == 0) {
+         return;
+      }
+      if (dim == 1) {
+         columns(A, B, m, n, op);
+      } else if (blocked(n)) {
+         for (int i = 0; i < m; i++) {
+            row(A[i], B[i], n, op);
+         }
+      } else {
+         Parallel.forRows(m, n, (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+               scan(A[i], B[i], 0, n, false, 0.0, op);
+            }
+         });
+      }
+   }
+
+   /** Is a scan over this many elements blocked?  Depends on the size only, never on
+       the pool, so the same array is scanned the same way with any number of threads. **/
+
+   private static boolean blocked (long size) {
+      return size >= Parallel.getThreshold();
+   }
+
+   /** Scan down the columns, by bands of rows when large. **/
+
+   private static void columns (double[][] A, double[][] B, int m, int n, int op) {
+      int grain = Parallel.grainRows(n);
+      int blocks = (m + grain - 1) / grain;
+      if (blocks == 1 || !blocked((long) m * n)) {
+         band(A, B, 0, m, null, n, op);
+         return;
+      }
+
+      // Totals of each band, then the exclusive prefix of the totals.
+      double[][] T = new double[blocks][];
+      Parallel.forRows(blocks, grain * n, (b0, b1) -> {
+         for (int b = b0; b < b1; b++) {
+            int i0 = b * grain, i1 = Math.min(m, i0 + grain);
+            double[] t = A[i0].clone();
+            for (int i = i0 + 1; i < i1; i++) {
+               combine(t, A[i], t, n, op);
+            }
+            T[b] = t;
+         }
+      });
+      double[][] C = new double[blocks][];
+      C[1] = T[0];
+      for (int b = 2; b < blocks; b++) {
+         C[b] = new double[n];
+         combine(C[b-1], T[b-1], C[b], n, op);
+      }
+
+      Parallel.forRows(blocks, grain * n, (b0, b1) -> {
+         for (int b = b0; b < b1; b++) {
+            int i0 = b * grain, i1 = Math.min(m, i0 + grain);
+            band(A, B, i0, i1, C[b], n, op);
+         }
+      });
+   }
+
+   /** Scan rows i0..i1-1 down the columns, starting from carry (none if null). **/
+
+   private static void band (double[][] A, double[][] B, int i0, int i1, double[] carry, int n, int op) {
+      if (carry != null) {
+         combine(carry, A[i0], B[i0], n, op);
+      } else if (B[i0] != A[i0]) {
+         System.arraycopy(A[i0], 0, B[i0], 0, n);
+      }
+      for (int i = i0 + 1; i < i1; i++) {
+         combine(B[i-1], A[i], B[i], n, op);
+      }
+   }
+
+   /** z = x op y elementwise. **/
+
+   private static void combine (double[] x, double[] y, double[] z, int n, int op) {
+      switch (op) {
+         case SUM:
+            Kernels.add(x, y, z, n);
+            break;
+         case PROD:
+            Kernels.multiply(x, y, z, n);
+            break;
+         default:
+            for (int j = 0; j < n; j++) {
+               z[j] = max(x[j], y[j]);
+            }
+      }
+   }
+
+   /** Scan one long row with the pool, cut into blocks of GRAIN elements. **/
+
+   private static void row (double[] x, double[] y, int n, int op) {
+      int grain = Parallel.GRAIN;
+      int blocks = (n + grain - 1) / grain;
+      double[] t = new double[blocks];
+      Parallel.forRows(blocks, grain, (b0, b1) -> {
+         for (int b = b0; b < b1; b++) {
+            int j0 = b * grain, j1 = Math.min(n, j0 + grain);
+            t[b] = fold(x, j0, j1, op);
+         }
+      });
+      double[] c = new double[blocks];
+      for (int b = 1; b < blocks; b++) {
+         c[b] = b == 1 ? t[0] : apply(c[b-1], t[b-1], op);
+      }
+      Parallel.forRows(blocks, grain, (b0, b1) -> {
+         for (int b = b0; b < b1; b++) {
+            int j0 = b * grain, j1 = Math.min(n, j0 + grain);
+            scan(x, y, j0, j1, b > 0, c[b], op);
+         }
+      });
+   }
+
+   /** x(j0) op ... op x(j1-1). **/
+
+   private static double fold (double[] x, int j0, int j1, int op) {
+      double r = x[j0];
+      switch (op) {
+         case SUM:
+            for (int j = j0 + 1; j < j1; j++) {
+               r += x[j];
+            }
+            break;
+         case PROD:
+            for (int j = j0 + 1; j < j1; j++) {
+               r *= x[j];
+            }
+            break;
+         default:
+            for (int j = j0 + 1; j < j1; j++) {
+               r = max(r, x[j]);
+            }
+      }
+      return r;
+   }
+
+   /** y(j) = carry op x(j0) op ... op x(j) for j in [j0, j1); no carry if !carried. **/
+
+   private static void scan (double[] x, double[] y, int j0, int j1, boolean carried, double carry, int op) {
+      double r = carried ? apply(carry, x[j0], op) : x[j0];
+      y[j0] = r;
+      switch (op) {
+         case SUM:
+            for (int j = j0 + 1; j < j1; j++) {
+               y[j] = r += x[j];
+            }
+            break;
+         case PROD:
+            for (int j = j0 + 1; j < j1; j++) {
+               y[j] = r *= x[j];
+            }
+            break;
+         default:
+            for (int j = j0 + 1; j < j1; j++) {
+               y[j] = r = max(r, x[j]);
+            }
+      }
+   }
+
+   private static double apply (double a, double b, int op) {
+      switch (op) {
+         case SUM: return a + b;
+         case PROD: return a * b;
+         default: return max(a, b);
+      }
+   }
+
+   /** Larger of a and b, ignoring NaN. **/
+
+   private static double max (double a, double b) {
+      return a != a ? b : (b > a ? b : a);
+   }
+}
@@ -0,0 +1,293 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+
+   /** Sorting and selection of a dense m-by-n array along a dimension.
+   <P>
+   Dimension 1 sorts each column, dimension 2 each row.  Columns are
+   transposed into rows first ({@link Transpose}), so every kernel works
+   on contiguous primitive arrays, and rows are distributed over the
+   {@link Parallel} pool.  Values are ordered as by Double.compare: -0.0
+   before 0.0 and NaN after every number, so descending order puts NaN
+   first.
+   <P>
+   Values are sorted with Arrays.sort on double[], without boxing.  Index
+   sorts use a stable merge sort of an int[] permutation keyed by the
+   values, so equal values keep their original order.  Top-k selection
+   partitions the permutation around a median-of-three pivot until the k
+   largest are in front, O(n) on average, falls back to sorting if the
+   partitions degenerate, and only then sorts the k selected; ties are
+   broken by the smaller index.
+   */
+
+public final class Sorting {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Ranges this short are sorted by insertion. **/
+   private static final int INSERTION = 32;
+
+   private Sorting () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Sorted copy along a dimension.
+   @param A        Array of elements.
+   @param m        Number of rows.
+   @param n        Number of columns.
+   @param dim      1 to sort each column, 2 to sort each row.
+   @param descend  true for descending order.
+   @return         sort(A,dim), a new m-by-n array.
+   @exception      IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static double[][] sort (double[][] A, int m, int n, int dim, boolean descend) {
+      Reductions.checkDimension(dim);
+      int count = dim == 2 ? m : n, length = dim == 2 ? n : m;
+      double[][] R = new double[count][];
+      if (dim == 2) {
+         Parallel.forRows(m, n, (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+               R[i] = Arrays.copyOf(A[i], n);
+            }
+         });
+      } else {
+         for (int j = 0; j < n; j++) {
+            R[j] = new double[m];
+         }
+         Transpose.transpose(A, R, m, n);
+      }
+      Parallel.forRows(count, length, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            double[] x = R[i];
+            Arrays.sort(x);
+            if (descend) {
+               for (int l = 0, h = length - 1; l < h; l++, h--) {
+                  double t = x[l]; x[l] = x[h]; x[h] = t;
+               }
+            }
+         }
+      });
+      if (dim == 2) {
+         return R;
+      }
+      double[][] S = new double[m][n];
+      Transpose.transpose(R, S, n, m);
+      return S;
+   }
+
+   /** Permutations that sort along a dimension, stable.
+   @param A        Array of elements.
+   @param m        Number of rows.
+   @param n        Number of columns.
+   @param dim      1 to sort each column, 2 to sort each row.
+   @param descend  true for descending order.
+   @return         m-by-n zero-based indices I with sort(A,dim) taken from A by I.
+   @exception      IllegalArgumentException Dimension must be 1 or 2.
+   */
+
+   public static int[][] argsort (double[][] A, int m, int n, int dim, boolean descend) {
+      Reductions.checkDimension(dim);
+      double[][] X = rows(A, m, n, dim);
+      int count = dim == 2 ? m : n, length = dim == 2 ? n : m;
+      int[][] I = new int[count][];
+      Parallel.forRows(count, length, (i0, i1) -> {
+         int[] tmp = new int[length];
+         for (int i = i0; i < i1; i++) {
+            int[] p = identity(length);
+            mergeSort(X[i], p, tmp, 0, length, descend);
+            I[i] = p;
+         }
+      });
+      return dim == 2 ? I : transpose(I, n, m);
+   }
+
+   /** Indices of the k largest elements along a dimension.
+   @param A    Array of elements.
+   @param m    Number of rows.
+   @param n    Number of columns.
+   @param k    Number of elements to select, at most the length along dim.
+   @param dim  1 for the k largest of each column, 2 of each row.
+   @return     k-by-n (dim 1) or m-by-k (dim 2) zero-based indices, largest first.
+   @exception  IllegalArgumentException Dimension must be 1 or 2.
+   @exception  IllegalArgumentException k out of range.
+   */
+
+   public static int[][] topK (double[][] A, int m, int n, int k, int dim) {
+      Reductions.checkDimension(dim);
+      int count = dim == 2 ? m : n, length = dim == 2 ? n : m;
+      if (k < 0 || k > length) {
+         throw new IllegalArgumentException("k out of range.");
+      }
+      double[][] X = rows(A, m, n, dim);
+      int[][] I = new int[count][];
+      Parallel.forRows(count, length, (i0, i1) -> {
+         int[] p = new int[length], tmp = new int[length];
+         for (int i = i0; i < i1; i++) {
+            double[] x = X[i];
+            for (int j = 0; j < length; j++) {
+               p[j] = j;
+            }
+            select(x, p, tmp, k);
+            mergeSort(x, p, tmp, 0, k, true);
+            I[i] = Arrays.copyOf(p, k);
+         }
+      });
+      return dim == 2 ? I : transpose(I, n, k);
+   }
+
+   /** Elements picked by indices along a dimension.
+   @param A    Array of elements.
+   @param I    Indices from argsort or topK.
+   @param dim  Dimension the indices run along.
+   @return     Array of the shape of I with A(I(i,j),j) (dim 1) or A(i,I(i,j)) (dim 2).
+   */
+
+   public static double[][] take (double[][] A, int[][] I, int dim) {
+      int p = I.length, q = p > 0 ? I[0].length : 0;
+      double[][] V = new double[p][q];
+      Parallel.forRows(p, q, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            int[] Ii = I[i];
+            double[] Vi = V[i];
+            if (dim == 2) {
+               double[] Ai = A[i];
+               for (int j = 0; j < q; j++) {
+                  Vi[j] = Ai[Ii[j]];
+               }
+            } else {
+               for (int j = 0; j < q; j++) {
+                  Vi[j] = A[Ii[j]][j];
+               }
+            }
+         }
+      });
+      return V;
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** The rows to sort: A itself for dim 2, A' for dim 1. **/
+
+   private static double[][] rows (double[][] A, int m, int n, int dim) {
+      if (dim == 2) {
+         return A;
+      }
+      double[][] T = new double[n][m];
+      Transpose.transpose(A, T, m, n);
+      return T;
+   }
+
+   private static int[] identity (int n) {
+      int[] p = new int[n];
+      for (int j = 0; j < n; j++) {
+         p[j] = j;
+      }
+      return p;
+   }
+
+   /** n-by-m transpose of an m-by-n index array. **/
+
+   private static int[][] transpose (int[][] I, int m, int n) {
+      int[][] T = new int[n][m];
+      Parallel.forRows(n, m, (j0, j1) -> {
+         for (int j = j0; j < j1; j++) {
+            int[] Tj = T[j];
+            for (int i = 0; i < m; i++) {
+               Tj[i] = I[i][j];
+            }
+         }
+      });
+      return T;
+   }
+
+   /** Does index a come strictly before index b? Ties keep index order. **/
+
+   private static boolean before (double[] x, int a, int b, boolean descend) {
+      int c = Double.compare(x[a], x[b]);
+      if (descend) {
+         c = -c;
+      }
+      return c < 0 || (c == 0 && a < b);
+   }
+
+   /** Stable sort of p[lo..hi-1] by x, with tmp as scratch of the same length. **/
+
+   private static void mergeSort (double[] x, int[] p, int[] tmp, int lo, int hi, boolean descend) {
+      for (int s = lo; s < hi; s += INSERTION) {
+         int e = Math.min(hi, s + INSERTION);
+         for (int i = s + 1; i < e; i++) {
+            int v = p[i], j = i - 1;
+            while (j >= s && before(x, v, p[j], descend)) {
+               p[j+1] = p[j];
+               j--;
+            }
+            p[j+1] = v;
+         }
+      }
+      int[] src = p, dst = tmp;
+      for (int w = INSERTION; w < hi - lo; w *= 2) {
+         for (int s = lo; s < hi; s += 2*w) {
+            int mid = Math.min(hi, s + w), e = Math.min(hi, s + 2*w);
+            int a = s, b = mid, o = s;
+            while (a < mid && b < e) {
+               dst[o++] = before(x, src[b], src[a], descend) ? src[b++] : src[a++];
+            }
+            while (a < mid) {
+               dst[o++] = src[a++];
+            }
+            while (b < e) {
+               dst[o++] = src[b++];
+            }
+         }
+         int[] t = src; src = dst; dst = t;
+      }
+      if (src != p) {
+         System.arraycopy(src, lo, p, lo, hi - lo);
+      }
+   }
+
+   /** Partition p so that its first k entries index the k largest values of x. **/
+
+   private static void select (double[] x, int[] p, int[] tmp, int k) {
+      int lo = 0, hi = p.length - 1;
+      int budget = 2 * (32 - Integer.numberOfLeadingZeros(p.length + 1));
+      while (lo < hi && k > lo && k <= hi) {
+         if (budget-- == 0) {
+            mergeSort(x, p, tmp, lo, hi + 1, true);
+            return;
+         }
+         int mid = (lo + hi) >>> 1;
+         if (before(x, p[mid], p[lo], true)) swap(p, lo, mid);
+         if (before(x, p[hi], p[lo], true)) swap(p, lo, hi);
+         if (before(x, p[hi], p[mid], true)) swap(p, mid, hi);
+         int pivot = p[mid];
+         int i = lo, j = hi;
+         while (i <= j) {
+            while (before(x, p[i], pivot, true)) i++;
+            while (before(x, pivot, p[j], true)) j--;
+            if (i <= j) {
+               swap(p, i++, j--);
+            }
+         }
+         // Now p[lo..j] come before the pivot or equal it, p[i..hi] after or equal.
+         if (k <= j + 1) {
+            hi = j;
+         } else if (k >= i) {
+            lo = i;
+         } else {
+            return;
+         }
+      }
+   }
+
+   private static void swap (int[] p, int a, int b) {
+      int t = p[a]; p[a] = p[b]; p[b] = t;
+   }
+}
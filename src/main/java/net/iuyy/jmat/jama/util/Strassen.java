@@ -0,0 +1,200 @@
+package net.iuyy.jmat.jama.util;
+
+import java.util.Arrays;
+
+   /** Strassen-Winograd matrix multiply.
+   <P>
+   Each level splits the operands into 2-by-2 blocks and forms the product
+   with 7 block multiplies and 15 block additions instead of 8 multiplies,
+   for O(n^2.807) work.  The additions are scheduled so that each level
+   needs only three temporaries (one block of A, B and C each) and uses
+   the quadrants of C as workspace, after Boyer, Dumas, Pernet and Zhou,
+   "Memory efficient scheduling of Strassen-Winograd's matrix
+   multiplication algorithm".  Odd dimensions are handled by dynamic
+   peeling: the even leading part recurses, the last row, column or inner
+   index is added with a thin {@link Gemm} update.  Below the cutoff the
+   recursion switches to the blocked {@link Gemm} kernel.
+   <P>
+   Error bound.  Strassen-Winograd is not componentwise stable.  With unit
+   roundoff u, recursion down to blocks of size n0 and square n-by-n
+   operands, the computed product satisfies the normwise bound (Higham,
+   Accuracy and Stability of Numerical Algorithms, 2nd ed., Sec. 23.2.3)
+   <PRE>
+      max|C - fl(C)| &lt;= [ (n/n0)^log2(18) (n0^2 + 6 n0) - 6n ] u max|A| max|B| + O(u^2)
+   </PRE>
+   compared to n^2 u max|A| max|B| for the conventional product.  In
+   practice the error grows by a small factor per level; with a cutoff of
+   n0 = 512 a 16384-by-16384 product takes five levels.  Elements of C
+   that are small relative to max|A| max|B| may lose relative accuracy.
+   <P>
+   The default cutoff is about where one level starts to beat the blocked
+   kernel on a single core with the Vector API layer; with the scalar
+   kernels the crossover is lower.
+   <P>
+   Strassen is used by jama.Matrix.times only for products whose three
+   dimensions all reach the automatic threshold, which is disabled by
+   default; jama.Matrix.strassen selects it explicitly.
+   */
+
+public final class Strassen {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Blocks with a dimension below this use the blocked GEMM. **/
+   private static volatile int cutoff = 2048;
+
+   /** Products whose dimensions all reach this use Strassen automatically. **/
+   private static volatile int threshold = Integer.MAX_VALUE;
+
+   private Strassen () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Get the recursion cutoff.
+   @return     smallest dimension that is still split.
+   */
+
+   public static int getCutoff () {
+      return cutoff;
+   }
+
+   /** Set the recursion cutoff.
+   @param n    smallest dimension that is still split, at least 16.
+   @exception  IllegalArgumentException Cutoff must be at least 16.
+   */
+
+   public static void setCutoff (int n) {
+      if (n < 16) {
+         throw new IllegalArgumentException("Cutoff must be at least 16.");
+      }
+      cutoff = n;
+   }
+
+   /** Get the automatic threshold.
+   @return     dimension from which products use Strassen automatically.
+   */
+
+   public static int getThreshold () {
+      return threshold;
+   }
+
+   /** Set the automatic threshold.
+   Integer.MAX_VALUE, the default, disables automatic selection.
+   @param n    dimension from which products use Strassen automatically.
+   */
+
+   public static void setThreshold (int n) {
+      threshold = n;
+   }
+
+   /** Should an m-by-k times k-by-n product use Strassen automatically?
+   @return     true if all three dimensions reach the threshold.
+   */
+
+   public static boolean isPreferred (int m, int n, int k) {
+      int t = threshold;
+      return m >= t && n >= t && k >= t;
+   }
+
+   /** C = A*B.
+   @param A    m-by-k array.
+   @param B    k-by-n array.
+   @param C    m-by-n array, overwritten.
+   @param m    Number of rows of A and C.
+   @param n    Number of columns of B and C.
+   @param k    Inner dimension.
+   */
+
+   public static void multiply (double[][] A, double[][] B, double[][] C, int m, int n, int k) {
+      multiply(A, 0, 0, B, 0, 0, C, 0, 0, m, n, k);
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** C(ci.., cj..) = A(ai.., aj..) * B(bi.., bj..), overwriting the block of C. **/
+
+   private static void multiply (double[][] A, int ai, int aj, double[][] B, int bi, int bj,
+                                 double[][] C, int ci, int cj, int m, int n, int k) {
+      int n0 = cutoff;
+      if (m < n0 || n < n0 || k < n0) {
+         fill(C, ci, cj, m, n, 0.0);
+         Gemm.gemm(1.0, A, ai, aj, B, bi, bj, C, ci, cj, m, n, k);
+         return;
+      }
+      int mh = m / 2, nh = n / 2, kh = k / 2;
+      int a21 = ai + mh, a12 = aj + kh, b21 = bi + kh, b12 = bj + nh;
+      int c21 = ci + mh, c12 = cj + nh;
+      double[][] X = new double[mh][kh];
+      double[][] Y = new double[kh][nh];
+      double[][] Z = new double[mh][nh];
+
+      combine(A, ai, aj, -1.0, A, a21, aj, X, 0, 0, mh, kh);          // S3 = A11 - A21
+      combine(B, b21, b12, -1.0, B, bi, b12, Y, 0, 0, kh, nh);        // T3 = B22 - B12
+      multiply(X, 0, 0, Y, 0, 0, C, c21, cj, mh, nh, kh);             // C21 = P7 = S3*T3
+      combine(A, a21, aj, 1.0, A, a21, a12, X, 0, 0, mh, kh);         // S1 = A21 + A22
+      combine(B, bi, b12, -1.0, B, bi, bj, Y, 0, 0, kh, nh);          // T1 = B12 - B11
+      multiply(X, 0, 0, Y, 0, 0, C, c21, c12, mh, nh, kh);            // C22 = P5 = S1*T1
+      combine(X, 0, 0, -1.0, A, ai, aj, X, 0, 0, mh, kh);             // S2 = S1 - A11
+      combine(B, b21, b12, -1.0, Y, 0, 0, Y, 0, 0, kh, nh);           // T2 = B22 - T1
+      multiply(X, 0, 0, Y, 0, 0, C, ci, c12, mh, nh, kh);             // C12 = P6 = S2*T2
+      combine(A, ai, a12, -1.0, X, 0, 0, X, 0, 0, mh, kh);            // S4 = A12 - S2
+      multiply(X, 0, 0, B, b21, b12, C, ci, cj, mh, nh, kh);          // C11 = P3 = S4*B22
+      multiply(A, ai, aj, B, bi, bj, Z, 0, 0, mh, nh, kh);            // Z = P1 = A11*B11
+      combine(Z, 0, 0, 1.0, C, ci, c12, C, ci, c12, mh, nh);          // C12 = U2 = P1 + P6
+      combine(C, ci, c12, 1.0, C, c21, cj, C, c21, cj, mh, nh);       // C21 = U3 = U2 + P7
+      combine(C, ci, c12, 1.0, C, c21, c12, C, ci, c12, mh, nh);      // C12 = U4 = U2 + P5
+      combine(C, c21, cj, 1.0, C, c21, c12, C, c21, c12, mh, nh);     // C22 = U7 = U3 + P5
+      combine(C, ci, c12, 1.0, C, ci, cj, C, ci, c12, mh, nh);        // C12 = U5 = U4 + P3
+      combine(Y, 0, 0, -1.0, B, b21, bj, Y, 0, 0, kh, nh);            // T4 = T2 - B21
+      multiply(A, a21, a12, Y, 0, 0, C, ci, cj, mh, nh, kh);          // C11 = P4 = A22*T4
+      combine(C, c21, cj, -1.0, C, ci, cj, C, c21, cj, mh, nh);       // C21 = U6 = U3 - P4
+      multiply(A, ai, a12, B, b21, bj, C, ci, cj, mh, nh, kh);        // C11 = P2 = A12*B21
+      combine(Z, 0, 0, 1.0, C, ci, cj, C, ci, cj, mh, nh);            // C11 = U1 = P1 + P2
+
+      // Dynamic peeling of odd dimensions.
+      int m2 = 2*mh, n2 = 2*nh, k2 = 2*kh;
+      if (k2 < k) {
+         Gemm.gemm(1.0, A, ai, aj + k2, B, bi + k2, bj, C, ci, cj, m2, n2, 1);
+      }
+      if (n2 < n) {
+         fill(C, ci, cj + n2, m2, 1, 0.0);
+         Gemm.gemm(1.0, A, ai, aj, B, bi, bj + n2, C, ci, cj + n2, m2, 1, k);
+      }
+      if (m2 < m) {
+         fill(C, ci + m2, cj, 1, n, 0.0);
+         Gemm.gemm(1.0, A, ai + m2, aj, B, bi, bj, C, ci + m2, cj, 1, n, k);
+      }
+   }
+
+   /** Z = X + s*Y on m-by-n blocks with s = 1 or -1; Z may be X or Y. **/
+
+   private static void combine (double[][] X, int xi, int xj, double s, double[][] Y, int yi, int yj,
+                                double[][] Z, int zi, int zj, int m, int n) {
+      Parallel.forRows(m, n, (i0, i1) -> {
+         for (int i = i0; i < i1; i++) {
+            double[] Xi = X[xi+i], Yi = Y[yi+i], Zi = Z[zi+i];
+            if (s == 1.0) {
+               for (int j = 0; j < n; j++) {
+                  Zi[zj+j] = Xi[xj+j] + Yi[yj+j];
+               }
+            } else {
+               for (int j = 0; j < n; j++) {
+                  Zi[zj+j] = Xi[xj+j] - Yi[yj+j];
+               }
+            }
+         }
+      });
+   }
+
+   private static void fill (double[][] C, int ci, int cj, int m, int n, double v) {
+      for (int i = 0; i < m; i++) {
+         Arrays.fill(C[ci+i], cj, cj + n, v);
+      }
+   }
+}
@@ -0,0 +1,147 @@
+package net.iuyy.jmat.jama.util;
+
+   /** Cache-oblivious matrix transpose.
+   <P>
+   The naive loop B(j,i) = A(i,j) reads A along rows but writes B down
+   columns, touching a new cache line of B on almost every store once a
+   column of B no longer fits in cache.  Here the block to transpose is
+   halved along its longer side until it is at most LEAF-by-LEAF, so at
+   some level of the recursion both the source and the destination block
+   fit in each level of the cache hierarchy, without tuning for any of
+   them.
+   <P>
+   A square matrix can be transposed in place: the diagonal blocks are
+   transposed recursively and each block above the diagonal is swapped
+   with the transpose of its mirror block below it.
+   <P>
+   Large transposes split the destination into strips of rows, or the
+   square matrix into block rows, and run them on the {@link Parallel}
+   pool; each strip is transposed recursively.
+   */
+
+public final class Transpose {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Blocks of at most LEAF-by-LEAF are transposed by plain loops. **/
+   static final int LEAF = 32;
+
+   /** Rows per parallel strip. **/
+   static final int STRIP = 64;
+
+   private Transpose () {}
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** B = A'.
+   @param A    m-by-n array.
+   @param B    n-by-m array, overwritten; must not share rows with A.
+   @param m    Number of rows of A.
+   @param n    Number of columns of A.
+   */
+
+   public static void transpose (double[][] A, double[][] B, int m, int n) {
+      if (m == 0 || n == 0) {
+         return;
+      }
+      int strips = (n + STRIP - 1) / STRIP;
+      Parallel.forRows(strips, STRIP * m, (s0, s1) -> {
+         int j0 = s0 * STRIP, j1 = Math.min(n, s1 * STRIP);
+         copy(A, 0, j0, B, j0, 0, m, j1 - j0);
+      });
+   }
+
+   /** A = A' in place for a square array.
+   @param A    n-by-n array.
+   @param n    Order of A.
+   */
+
+   public static void transpose (double[][] A, int n) {
+      if (n == 0) {
+         return;
+      }
+      int strips = (n + STRIP - 1) / STRIP;
+      Parallel.forRows(strips, STRIP * n / 2, (s0, s1) -> {
+         for (int s = s0; s < s1; s++) {
+            int i0 = s * STRIP, h = Math.min(STRIP, n - i0);
+            square(A, i0, h);
+            swap(A, i0, i0 + h, h, n - i0 - h);
+         }
+      });
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** B(bi+j, bj+i) = A(ai+i, aj+j) for an m-by-n block of A. **/
+
+   private static void copy (double[][] A, int ai, int aj, double[][] B, int bi, int bj, int m, int n) {
+      if (m <= LEAF && n <= LEAF) {
+         for (int i = 0; i < m; i++) {
+            double[] Ai = A[ai+i];
+            int c = bj + i;
+            for (int j = 0; j < n; j++) {
+               B[bi+j][c] = Ai[aj+j];
+            }
+         }
+      } else if (m >= n) {
+         int h = m / 2;
+         copy(A, ai, aj, B, bi, bj, h, n);
+         copy(A, ai + h, aj, B, bi, bj + h, m - h, n);
+      } else {
+         int h = n / 2;
+         copy(A, ai, aj, B, bi, bj, m, h);
+         copy(A, ai, aj + h, B, bi + h, bj, m, n - h);
+      }
+   }
+
+   /** Transpose the diagonal block A(o:o+n-1, o:o+n-1) in place. **/
+
+   private static void square (double[][] A, int o, int n) {
+      if (n <= LEAF) {
+         for (int i = 0; i < n; i++) {
+            double[] Ai = A[o+i];
+            for (int j = i + 1; j < n; j++) {
+               double t = Ai[o+j];
+               Ai[o+j] = A[o+j][o+i];
+               A[o+j][o+i] = t;
+            }
+         }
+         return;
+      }
+      int h = n / 2;
+      square(A, o, h);
+      square(A, o + h, n - h);
+      swap(A, o, o + h, h, n - h);
+   }
+
+   /** Swap the m-by-n block A(i0.., j0..) with the transpose of its mirror A(j0.., i0..). **/
+
+   private static void swap (double[][] A, int i0, int j0, int m, int n) {
+      if (m <= LEAF && n <= LEAF) {
+         for (int i = 0; i < m; i++) {
+            double[] Ai = A[i0+i];
+            int c = i0 + i;
+            for (int j = 0; j < n; j++) {
+               double[] Aj = A[j0+j];
+               double t = Ai[j0+j];
+               Ai[j0+j] = Aj[c];
+               Aj[c] = t;
+            }
+         }
+      } else if (m >= n) {
+         int h = m / 2;
+         swap(A, i0, j0, h, n);
+         swap(A, i0 + h, j0, m - h, n);
+      } else {
+         int h = n / 2;
+         swap(A, i0, j0, m, h);
+         swap(A, i0, j0 + h, m, n - h);
+      }
+   }
+}
@@ -0,0 +1,115 @@
+package net.iuyy.jmat.matrix;
+
+import net.iuyy.jmat.base.AbstractMatrix;
+import net.iuyy.jmat.base.Matrix;
+import net.iuyy.jmat.util.Matrices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author iuyy
+ * @version v1.0
+ * @corporation Copyright by iuyy.net
+ * @date 2026-10-18 23:35
+ * @description 拼接视图，把多个矩阵横向或纵向拼接成一个矩阵而不复制元素，
+ * 读写都转发给对应的子矩阵，修改子矩阵后视图随之变化
+ */
+public class ConcatMatrix<E> extends AbstractMatrix<E> {
+
+    private final List<Matrix<E>> parts;
+
+    /**
+     * 各子矩阵在拼接方向上的起始下标，长度为子矩阵个数加一
+     */
+    private final int[] offsets;
+
+    private final boolean horizontal;
+
+    /**
+     * @param horizontal true 表示横向拼接 [A B]，false 表示纵向拼接 [A; B]
+     * @param parts 子矩阵，横向拼接时行数必须一致，纵向拼接时列数必须一致
+     */
+    public ConcatMatrix(boolean horizontal, List<? extends Matrix<E>> parts) {
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个矩阵！");
+        }
+        this.parts = new ArrayList<>(parts);
+        this.horizontal = horizontal;
+        int count = this.parts.size();
+        Matrix<E> first = this.parts.get(0);
+        this.offsets = new int[count + 1];
+        for (int k = 0; k < count; k++) {
+            Matrix<E> part = this.parts.get(k);
+            if (horizontal && part.getRows() != first.getRows()) {
+                throw new IllegalArgumentException("矩阵行数必须一致！");
+            }
+            if (!horizontal && part.getColumns() != first.getColumns()) {
+                throw new IllegalArgumentException("矩阵列数必须一致！");
+            }
+            this.offsets[k + 1] = this.offsets[k] + (horizontal ? part.getColumns() : part.getRows());
+        }
+        this.rows = horizontal ? first.getRows() : this.offsets[count];
+        this.columns = horizontal ? this.offsets[count] : first.getColumns();
+    }
+
+    /**
+     * 复制出全部元素
+     * @return 二维数组
+     */
+    @Override
+    public Object[][] getData() {
+        Matrix<?>[] array = parts.toArray(new Matrix<?>[0]);
+        Matrix<?> copy = horizontal ? Matrices.hcat(array) : Matrices.vcat(array);
+        return copy.getData();
+    }
+
+    @Override
+    public E get(int row, int column){
+        int k = part(horizontal ? column : row);
+        return horizontal ? parts.get(k).get(row, column - offsets[k]) : parts.get(k).get(row - offsets[k], column);
+    }
+
+    @Override
+    public Double getDouble(int row, int column){
+        int k = part(horizontal ? column : row);
+        return horizontal ? parts.get(k).getDouble(row, column - offsets[k]) : parts.get(k).getDouble(row - offsets[k], column);
+    }
+
+    @Override
+    public String getStr(int row, int column){
+        int k = part(horizontal ? column : row);
+        return horizontal ? parts.get(k).getStr(row, column - offsets[k]) : parts.get(k).getStr(row - offsets[k], column);
+    }
+
+    @Override
+    public void set(int row, int column, E data){
+        int k = part(horizontal ? column : row);
+        if (horizontal) {
+            parts.get(k).set(row, column - offsets[k], data);
+        } else {
+            parts.get(k).set(row - offsets[k], column, data);
+        }
+    }
+
+    /**
+     * 二分查找下标 index 所在的子矩阵
+     */
+    private int part(int index) {
+        int extent = horizontal ? this.columns : this.rows;
+        if (index < 0 || index >= extent) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        int lo = 0, hi = parts.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+}
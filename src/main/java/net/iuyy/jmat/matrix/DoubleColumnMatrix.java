@@ -0,0 +1,80 @@
+package net.iuyy.jmat.matrix;
+
+import net.iuyy.jmat.base.ColumnVector;
+
+/**
+ * @author iuyy
+ * @version v1.0
+ * @corporation Copyright by iuyy.net
+ * @date 2026-10-18 23:20
+ * @description 基本类型 double 列向量，元素直接存放在 double 数组中，矩阵向量乘法不需要装箱拆箱。
+ * getData() 返回装箱的快照，对快照的修改不会写回向量，修改元素请使用 set()
+ */
+public class DoubleColumnMatrix extends ColumnVector<Double> {
+
+    private double[] values;
+
+    public DoubleColumnMatrix(int rows) {
+        this(new double[rows]);
+    }
+
+    /**
+     * 直接使用给定数组，不复制
+     * @param values 元素
+     */
+    public DoubleColumnMatrix(double[] values) {
+        this.rows = values.length;
+        this.columns = 1;
+        this.values = values;
+    }
+
+    /**
+     * 获取底层 double 数组，与向量共享存储
+     * @return 元素数组
+     */
+    public double[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * 获取装箱的二维数组
+     * 每次调用都返回新的快照，不与向量共享存储
+     * @return 二维数组
+     */
+    @Override
+    public Double[][] getData() {
+        Double[][] boxed = new Double[this.rows][this.columns];
+        for (int k = 0; k < values.length; k++) {
+            boxed[k][0] = values[k];
+        }
+        return boxed;
+    }
+
+    @Override
+    public Double get(int row, int column){
+        return values[index(row, column)];
+    }
+
+    @Override
+    public Double getDouble(int row, int column){
+        return get(row, column);
+    }
+
+    @Override
+    public String getStr(int row, int column){
+        return String.valueOf(get(row, column));
+    }
+
+    @Override
+    public void set(int row, int column, Double data){
+        values[index(row, column)] = data != null ? data : 0d;
+    }
+
+    private int index(int row, int column) {
+        if (column != 0) {
+            throw new ArrayIndexOutOfBoundsException(column);
+        }
+        return row;
+    }
+
+}
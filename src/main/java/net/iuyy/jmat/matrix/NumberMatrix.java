@@ -1,6 +1,9 @@
 package net.iuyy.jmat.matrix;
 
 import net.iuyy.jmat.base.AbstractMatrix;
+import net.iuyy.jmat.jama.util.Reductions;
+import net.iuyy.jmat.jama.util.Scans;
+import net.iuyy.jmat.jama.util.Sorting;
 
 /**
  * @author iuyy
@@ -28,6 +31,17 @@ public class NumberMatrix extends AbstractMatrix<Number> {
         this.data = data;
     }
 
+    public NumberMatrix(double[][] data) {
+        this.rows = data.length;
+        this.columns = this.rows > 0 ? data[0].length : 0;
+        this.data = new Number[this.rows][this.columns];
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.columns; j++) {
+                this.data[i][j] = data[i][j];
+            }
+        }
+    }
+
     @Override
     public Number[][] getData() {
         return this.data;
@@ -49,4 +63,297 @@ public class NumberMatrix extends AbstractMatrix<Number> {
         this.data[row][column] = data;
     }
 
+    /**
+     * 转换为 double 二维数组，空元素按 0 处理
+     * @return double 二维数组
+     */
+    public double[][] getDoubleArray() {
+        double[][] result = new double[this.rows][this.columns];
+        for (int i = 0; i < this.rows; i++) {
+            Number[] row = this.data[i];
+            double[] target = result[i];
+            for (int j = 0; j < this.columns; j++) {
+                Number cell = row[j];
+                target[j] = cell != null ? cell.doubleValue() : 0d;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 求和
+     * S = sum(A,'all')
+     * 使用补偿求和，结果不受并行线程数影响
+     * @return 所有元素之和
+     */
+    public double sum() {
+        return Reductions.sum(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求和
+     * S = sum(A,dim)
+     * @param dim 1 表示按列求和得到行向量，2 表示按行求和得到列向量
+     * @return 矩阵
+     */
+    public NumberMatrix sum(int dim) {
+        return alongDimension(Reductions.sum(Reductions.rows(this.data), this.rows, this.columns, dim), dim);
+    }
+
+    /**
+     * 平均值
+     * M = mean(A,'all')
+     * @return 所有元素的平均值
+     */
+    public double mean() {
+        return Reductions.mean(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求平均值
+     * M = mean(A,dim)
+     * @param dim 1 表示按列，2 表示按行
+     * @return 矩阵
+     */
+    public NumberMatrix mean(int dim) {
+        return alongDimension(Reductions.mean(Reductions.rows(this.data), this.rows, this.columns, dim), dim);
+    }
+
+    /**
+     * 元素乘积
+     * B = prod(A,'all')
+     * @return 所有元素的乘积
+     */
+    public double prod() {
+        return Reductions.prod(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求元素乘积
+     * B = prod(A,dim)
+     * @param dim 1 表示按列，2 表示按行
+     * @return 矩阵
+     */
+    public NumberMatrix prod(int dim) {
+        return alongDimension(Reductions.prod(Reductions.rows(this.data), this.rows, this.columns, dim), dim);
+    }
+
+    /**
+     * 样本方差，按 N-1 归一化
+     * V = var(A,0,'all')
+     * 使用 Welford 单遍算法
+     * @return 所有元素的方差
+     */
+    public double var() {
+        return Reductions.var(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求样本方差
+     * V = var(A,0,dim)
+     * @param dim 1 表示按列，2 表示按行
+     * @return 矩阵
+     */
+    public NumberMatrix var(int dim) {
+        return alongDimension(Reductions.var(Reductions.rows(this.data), this.rows, this.columns, dim), dim);
+    }
+
+    /**
+     * 样本标准差
+     * S = std(A,0,'all')
+     * @return 所有元素的标准差
+     */
+    public double std() {
+        return Reductions.std(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求样本标准差
+     * S = std(A,0,dim)
+     * @param dim 1 表示按列，2 表示按行
+     * @return 矩阵
+     */
+    public NumberMatrix std(int dim) {
+        return alongDimension(Reductions.std(Reductions.rows(this.data), this.rows, this.columns, dim), dim);
+    }
+
+    /**
+     * 最小元素，忽略 NaN
+     * M = min(A,[],'all')
+     * @return 最小值
+     */
+    public double min() {
+        return Reductions.min(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求最小元素
+     * M = min(A,[],dim)
+     * @param dim 1 表示按列，2 表示按行
+     * @return 矩阵
+     */
+    public NumberMatrix min(int dim) {
+        return alongDimension(Reductions.min(Reductions.rows(this.data), this.rows, this.columns, dim), dim);
+    }
+
+    /**
+     * 最大元素，忽略 NaN
+     * M = max(A,[],'all')
+     * @return 最大值
+     */
+    public double max() {
+        return Reductions.max(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求最大元素
+     * M = max(A,[],dim)
+     * @param dim 1 表示按列，2 表示按行
+     * @return 矩阵
+     */
+    public NumberMatrix max(int dim) {
+        return alongDimension(Reductions.max(Reductions.rows(this.data), this.rows, this.columns, dim), dim);
+    }
+
+    /**
+     * 第一个最小元素的位置
+     * @return {行, 列}，从 0 开始
+     */
+    public int[] argmin() {
+        return Reductions.argmin(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求第一个最小元素的索引
+     * [~,I] = min(A,[],dim)
+     * @param dim 1 表示每列返回行索引，2 表示每行返回列索引
+     * @return 索引，从 0 开始
+     */
+    public int[] argmin(int dim) {
+        return Reductions.argmin(Reductions.rows(this.data), this.rows, this.columns, dim);
+    }
+
+    /**
+     * 第一个最大元素的位置
+     * @return {行, 列}，从 0 开始
+     */
+    public int[] argmax() {
+        return Reductions.argmax(Reductions.rows(this.data), this.rows, this.columns);
+    }
+
+    /**
+     * 沿维度求第一个最大元素的索引
+     * [~,I] = max(A,[],dim)
+     * @param dim 1 表示每列返回行索引，2 表示每行返回列索引
+     * @return 索引，从 0 开始
+     */
+    public int[] argmax(int dim) {
+        return Reductions.argmax(Reductions.rows(this.data), this.rows, this.columns, dim);
+    }
+
+    /**
+     * 沿维度累加
+     * B = cumsum(A,dim)
+     * 拆箱后的数组原地扫描，维度很长时按块并行前缀扫描
+     * @param dim 1 表示沿列向下，2 表示沿行
+     * @return 矩阵
+     */
+    public NumberMatrix cumsum(int dim) {
+        double[][] values = getDoubleArray();
+        Scans.cumsum(values, values, this.rows, this.columns, dim);
+        return new NumberMatrix(values);
+    }
+
+    /**
+     * 沿维度累乘
+     * B = cumprod(A,dim)
+     * @param dim 1 表示沿列向下，2 表示沿行
+     * @return 矩阵
+     */
+    public NumberMatrix cumprod(int dim) {
+        double[][] values = getDoubleArray();
+        Scans.cumprod(values, values, this.rows, this.columns, dim);
+        return new NumberMatrix(values);
+    }
+
+    /**
+     * 沿维度求累积最大值，忽略 NaN
+     * M = cummax(A,dim)
+     * @param dim 1 表示沿列向下，2 表示沿行
+     * @return 矩阵
+     */
+    public NumberMatrix cummax(int dim) {
+        double[][] values = getDoubleArray();
+        Scans.cummax(values, values, this.rows, this.columns, dim);
+        return new NumberMatrix(values);
+    }
+
+    /**
+     * 沿维度升序排序
+     * B = sort(A,dim)
+     * @param dim 1 表示每列排序，2 表示每行排序
+     * @return 矩阵
+     */
+    public NumberMatrix sort(int dim) {
+        return sort(dim, false);
+    }
+
+    /**
+     * 沿维度排序，直接对 double 数组排序，不装箱；NaN 升序时在最后，降序时在最前
+     * B = sort(A,dim,'descend')
+     * @param dim 1 表示每列排序，2 表示每行排序
+     * @param descend true 表示降序
+     * @return 矩阵
+     */
+    public NumberMatrix sort(int dim, boolean descend) {
+        return new NumberMatrix(Sorting.sort(getDoubleArray(), this.rows, this.columns, dim, descend));
+    }
+
+    /**
+     * 沿维度排序的索引，相等元素保持原来的顺序
+     * [~,I] = sort(A,dim)
+     * @param dim 1 表示每列排序，2 表示每行排序
+     * @param descend true 表示降序
+     * @return 索引，从 0 开始
+     */
+    public int[][] argsort(int dim, boolean descend) {
+        return Sorting.argsort(getDoubleArray(), this.rows, this.columns, dim, descend);
+    }
+
+    /**
+     * 沿维度取最大的 k 个元素，从大到小排列
+     * B = maxk(A,k,dim)
+     * @param k 元素个数
+     * @param dim 1 表示每列，2 表示每行
+     * @return 矩阵，dim 为 1 时 k 行，为 2 时 k 列
+     */
+    public NumberMatrix topK(int k, int dim) {
+        double[][] values = getDoubleArray();
+        return new NumberMatrix(Sorting.take(values, Sorting.topK(values, this.rows, this.columns, k, dim), dim));
+    }
+
+    /**
+     * 沿维度取最大的 k 个元素的索引
+     * 先以平均线性时间选出 k 个元素，再只对这 k 个排序
+     * [~,I] = maxk(A,k,dim)
+     * @param k 元素个数
+     * @param dim 1 表示每列，2 表示每行
+     * @return 索引，从 0 开始
+     */
+    public int[][] topKIndices(int k, int dim) {
+        return Sorting.topK(getDoubleArray(), this.rows, this.columns, k, dim);
+    }
+
+    private static NumberMatrix alongDimension(double[] values, int dim) {
+        NumberMatrix result = dim == 1 ? new NumberMatrix(1, values.length) : new NumberMatrix(values.length, 1);
+        for (int k = 0; k < values.length; k++) {
+            if (dim == 1) {
+                result.data[0][k] = values[k];
+            } else {
+                result.data[k][0] = values[k];
+            }
+        }
+        return result;
+    }
+
 }
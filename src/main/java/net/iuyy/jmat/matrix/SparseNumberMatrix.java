@@ -0,0 +1,99 @@
+package net.iuyy.jmat.matrix;
+
+import net.iuyy.jmat.base.AbstractMatrix;
+import net.iuyy.jmat.jama.SparseMatrix;
+
+/**
+ * @author iuyy
+ * @version v1.0
+ * @corporation Copyright by iuyy.net
+ * @date 2026-10-18 23:30
+ * @description 稀疏数值矩阵，按压缩行（CSR）格式存放非零元素，
+ * 矩阵乘法 Matrices.mTimes 遇到稀疏矩阵时按稀疏算法计算
+ */
+public class SparseNumberMatrix extends AbstractMatrix<Number> {
+
+    private SparseMatrix sparse;
+
+    /**
+     * 直接使用给定的稀疏矩阵，不复制
+     * @param sparse CSR 稀疏矩阵
+     */
+    public SparseNumberMatrix(SparseMatrix sparse) {
+        this.rows = sparse.getRowDimension();
+        this.columns = sparse.getColumnDimension();
+        this.sparse = sparse;
+    }
+
+    /**
+     * 取出数值矩阵中的非零元素
+     * @param matrix 数值矩阵
+     */
+    public SparseNumberMatrix(NumberMatrix matrix) {
+        this(new SparseMatrix(new net.iuyy.jmat.jama.Matrix(matrix.getDoubleArray())));
+    }
+
+    /**
+     * 获取底层 CSR 稀疏矩阵
+     * @return 稀疏矩阵
+     */
+    public SparseMatrix getSparse() {
+        return this.sparse;
+    }
+
+    /**
+     * 非零元素个数
+     * @return 存储的元素个数
+     */
+    public int nnz() {
+        return this.sparse.getNonzeroCount();
+    }
+
+    /**
+     * 转换为稠密的 double 二维数组
+     * @return double 二维数组
+     */
+    public double[][] getDoubleArray() {
+        return this.sparse.toMatrix().getArray();
+    }
+
+    @Override
+    public Number[][] getData() {
+        double[][] dense = getDoubleArray();
+        Number[][] result = new Number[this.rows][this.columns];
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.columns; j++) {
+                result[i][j] = dense[i][j];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Number get(int row, int column){
+        return this.sparse.get(row, column);
+    }
+
+    @Override
+    public Double getDouble(int row, int column){
+        return this.sparse.get(row, column);
+    }
+
+    @Override
+    public String getStr(int row, int column){
+        return String.valueOf(this.sparse.get(row, column));
+    }
+
+    /**
+     * 修改已存储的元素，稀疏结构固定，不能插入新的非零元素
+     */
+    @Override
+    public void set(int row, int column, Number data){
+        try {
+            this.sparse.set(row, column, data != null ? data.doubleValue() : 0d);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedOperationException("稀疏矩阵不能插入新的非零元素！");
+        }
+    }
+
+}
@@ -1,14 +1,28 @@
 package net.iuyy.jmat.util;
 
 import net.iuyy.jmat.base.Matrix;
+import net.iuyy.jmat.common.Metric;
 import net.iuyy.jmat.common.Pattern;
 import net.iuyy.jmat.common.Symbol;
 import net.iuyy.jmat.exception.TypeException;
+import net.iuyy.jmat.jama.IndexPlan;
+import net.iuyy.jmat.jama.util.Chain;
+import net.iuyy.jmat.jama.util.Distances;
+import net.iuyy.jmat.jama.util.Gemm;
+import net.iuyy.jmat.jama.util.Kernels;
+import net.iuyy.jmat.jama.util.Parallel;
+import net.iuyy.jmat.matrix.ConcatMatrix;
+import net.iuyy.jmat.matrix.DoubleColumnMatrix;
+import net.iuyy.jmat.matrix.DoubleRowMatrix;
 import net.iuyy.jmat.matrix.MixMatrix;
 import net.iuyy.jmat.matrix.NumberMatrix;
 import net.iuyy.jmat.matrix.RowMatrix;
+import net.iuyy.jmat.matrix.SparseNumberMatrix;
 import net.iuyy.jmat.matrix.StringMatrix;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * @author iuyy
  * @version v1.0
@@ -131,6 +145,187 @@ public class Matrices {
         return result;
     }
 
+    /**
+     * 横向拼接任意多个矩阵
+     * matlab: [A1, A2, ..., An]
+     * 结果只分配一次，每一行按子矩阵分段用 System.arraycopy 复制，行数较多时并行；
+     * 全部为数值矩阵时结果为 NumberMatrix，否则为 MixMatrix
+     * @param matrices 一个或多个行数相同的矩阵
+     * @return 拼接后的矩阵，不与输入共享数组
+     */
+    public static Matrix hcat(Matrix... matrices){
+        if (matrices.length == 0) {
+            throw new IllegalArgumentException("至少需要一个矩阵！");
+        }
+        int rows = matrices[0].getRows();
+        int[] offsets = new int[matrices.length + 1];
+        Object[][][] parts = new Object[matrices.length][][];
+        for (int k = 0; k < matrices.length; k++) {
+            if (matrices[k].getRows() != rows) {
+                throw new IllegalArgumentException("矩阵行数必须一致！");
+            }
+            offsets[k + 1] = offsets[k] + matrices[k].getColumns();
+            parts[k] = matrices[k].getData();
+        }
+        Matrix result = allocate(parts, rows, offsets[matrices.length]);
+        Object[][] data = result.getData();
+        Parallel.forRows(rows, offsets[matrices.length], (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int k = 0; k < parts.length; k++) {
+                    System.arraycopy(parts[k][i], 0, data[i], offsets[k], offsets[k + 1] - offsets[k]);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 纵向拼接任意多个矩阵
+     * matlab: [A1; A2; ...; An]
+     * 结果只分配一次，逐行用 System.arraycopy 复制，不共享输入的行数组；
+     * 全部为数值矩阵时结果为 NumberMatrix，否则为 MixMatrix
+     * @param matrices 一个或多个列数相同的矩阵
+     * @return 拼接后的矩阵，不与输入共享数组
+     */
+    public static Matrix vcat(Matrix... matrices){
+        if (matrices.length == 0) {
+            throw new IllegalArgumentException("至少需要一个矩阵！");
+        }
+        int columns = matrices[0].getColumns();
+        int[] offsets = new int[matrices.length + 1];
+        Object[][][] parts = new Object[matrices.length][][];
+        for (int k = 0; k < matrices.length; k++) {
+            if (matrices[k].getColumns() != columns) {
+                throw new IllegalArgumentException("矩阵列数必须一致！");
+            }
+            offsets[k + 1] = offsets[k] + matrices[k].getRows();
+            parts[k] = matrices[k].getData();
+        }
+        Matrix result = allocate(parts, offsets[matrices.length], columns);
+        Object[][] data = result.getData();
+        for (int k = 0; k < parts.length; k++) {
+            Object[][] part = parts[k];
+            int offset = offsets[k];
+            Parallel.forRows(offsets[k + 1] - offset, columns, (i0, i1) -> {
+                for (int i = i0; i < i1; i++) {
+                    System.arraycopy(part[i], 0, data[offset + i], 0, columns);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 横向拼接视图，不复制元素，读写转发给各个子矩阵
+     * @param matrices 一个或多个行数相同的矩阵
+     * @return 拼接视图
+     */
+    @SuppressWarnings("unchecked")
+    public static Matrix hcatView(Matrix... matrices){
+        return new ConcatMatrix<Object>(true, (List<Matrix<Object>>) (List<?>) Arrays.asList(matrices));
+    }
+
+    /**
+     * 纵向拼接视图，不复制元素，读写转发给各个子矩阵
+     * @param matrices 一个或多个列数相同的矩阵
+     * @return 拼接视图
+     */
+    @SuppressWarnings("unchecked")
+    public static Matrix vcatView(Matrix... matrices){
+        return new ConcatMatrix<Object>(false, (List<Matrix<Object>>) (List<?>) Arrays.asList(matrices));
+    }
+
+    /**
+     * 按索引计划取子矩阵
+     * matlab: B = A(r, c)
+     * 索引只在计划建立时分析一次：连续的下标段用 System.arraycopy 整段复制，
+     * 越界只按计划记录的最小、最大下标检查一次，同一计划可以反复使用
+     * @param matrix 矩阵
+     * @param rows 行下标计划
+     * @param columns 列下标计划
+     * @return 子矩阵，数值矩阵得到 NumberMatrix，否则为 MixMatrix
+     */
+    public static Matrix getMatrix(Matrix matrix, IndexPlan rows, IndexPlan columns){
+        rows.check(matrix.getRows());
+        columns.check(matrix.getColumns());
+        Object[][] source = matrix.getData();
+        Matrix result = allocate(new Object[][][]{source}, rows.size(), columns.size());
+        Object[][] data = result.getData();
+        Parallel.forRows(rows.size(), columns.size(), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                columns.gather(source[rows.get(i)], data[i], 0);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 按索引计划写入子矩阵
+     * matlab: A(r, c) = B
+     * 数值矩阵、混合矩阵和字符串矩阵直接写入底层数组，其他矩阵逐个元素调用 set
+     * @param matrix 被写入的矩阵
+     * @param rows 行下标计划
+     * @param columns 列下标计划
+     * @param value 子矩阵，行数、列数不少于计划的长度
+     */
+    @SuppressWarnings("unchecked")
+    public static void setMatrix(Matrix matrix, IndexPlan rows, IndexPlan columns, Matrix value){
+        rows.check(matrix.getRows());
+        columns.check(matrix.getColumns());
+        if (value.getRows() < rows.size() || value.getColumns() < columns.size()) {
+            throw new IllegalArgumentException("子矩阵维度与索引不一致！");
+        }
+        Object[][] source = value.getData();
+        if (matrix instanceof NumberMatrix || matrix instanceof MixMatrix || matrix instanceof StringMatrix) {
+            Object[][] data = matrix.getData();
+            if (rows.isDistinct()) {
+                Parallel.forRows(rows.size(), columns.size(), (i0, i1) -> {
+                    for (int i = i0; i < i1; i++) {
+                        columns.scatter(source[i], 0, data[rows.get(i)]);
+                    }
+                });
+            } else {
+                for (int i = 0; i < rows.size(); i++) {
+                    columns.scatter(source[i], 0, data[rows.get(i)]);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            for (int j = 0; j < columns.size(); j++) {
+                matrix.set(rows.get(i), columns.get(j), source[i][j]);
+            }
+        }
+    }
+
+    /**
+     * 距离度量名称转换为 Distances 的编号，不区分大小写
+     */
+    private static int metric(String metric){
+        if (Metric.EUCLIDEAN.equalsIgnoreCase(metric)) {
+            return Distances.EUCLIDEAN;
+        }
+        if (Metric.SQUARED_EUCLIDEAN.equalsIgnoreCase(metric)) {
+            return Distances.SQUARED_EUCLIDEAN;
+        }
+        if (Metric.COSINE.equalsIgnoreCase(metric)) {
+            return Distances.COSINE;
+        }
+        throw new IllegalArgumentException("不支持的距离度量！");
+    }
+
+    /**
+     * 为拼接结果分配矩阵，子矩阵全部为数值数组时用 NumberMatrix
+     */
+    private static Matrix allocate(Object[][][] parts, int rows, int columns){
+        for (Object[][] part : parts) {
+            if (!(part instanceof Number[][])) {
+                return new MixMatrix<>(rows, columns);
+            }
+        }
+        return new NumberMatrix(rows, columns);
+    }
+
     /**
      * 生成对角矩阵
      * @param matrix 行向量
@@ -153,35 +348,39 @@ public class Matrices {
 
     private static Matrix getNumberMatrix(Matrix origin, Number obj, String symbol) {
         NumberMatrix result = new NumberMatrix(origin.getRows(), origin.getColumns());
-        for (int i = 0; i < origin.getRows(); i++) {
-            for (int j = 0; j < origin.getColumns(); j++) {
-                Double newValue = null;
-                if (symbol.equals(Symbol.ADDITION)) {
-                    newValue = origin.getDouble(i, j) + obj.doubleValue();
-                } else if (symbol.equals(Symbol.SUBTRACTION)) {
-                    newValue = origin.getDouble(i, j) - obj.doubleValue();
-                } else if (symbol.equals(Symbol.MULTIPLICATION)) {
-                    newValue = origin.getDouble(i, j) * obj.doubleValue();
-                } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
-                    newValue = origin.getDouble(i, j) / obj.doubleValue();
-                } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
-                    newValue = obj.doubleValue() / origin.getDouble(i, j);
+        Parallel.forRows(origin.getRows(), origin.getColumns(), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < origin.getColumns(); j++) {
+                    Double newValue = null;
+                    if (symbol.equals(Symbol.ADDITION)) {
+                        newValue = origin.getDouble(i, j) + obj.doubleValue();
+                    } else if (symbol.equals(Symbol.SUBTRACTION)) {
+                        newValue = origin.getDouble(i, j) - obj.doubleValue();
+                    } else if (symbol.equals(Symbol.MULTIPLICATION)) {
+                        newValue = origin.getDouble(i, j) * obj.doubleValue();
+                    } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
+                        newValue = origin.getDouble(i, j) / obj.doubleValue();
+                    } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
+                        newValue = obj.doubleValue() / origin.getDouble(i, j);
+                    }
+                    result.set(i, j, newValue);
                 }
-                result.set(i, j, newValue);
             }
-        }
+        });
         return result;
     }
 
     private static Matrix getStringMatrix(Matrix origin, String obj) {
         StringMatrix result = new StringMatrix(origin.getRows(), origin.getColumns());
         // 拼接字符串
-        for (int i = 0; i < origin.getRows(); i++) {
-            for (int j = 0; j < origin.getColumns(); j++) {
-                String newValue = origin.get(i, j) + obj;
-                result.set(i, j, newValue);
+        Parallel.forRows(origin.getRows(), origin.getColumns(), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < origin.getColumns(); j++) {
+                    String newValue = origin.get(i, j) + obj;
+                    result.set(i, j, newValue);
+                }
             }
-        }
+        });
         return result;
     }
 
@@ -189,32 +388,34 @@ public class Matrices {
         int r = Math.max(origin.getRows(), target.getRows());
         int c = Math.max(origin.getColumns(), target.getColumns());
         Matrix<Object> result = new MixMatrix<>(r, c);
-        for (int i = 0; i < r; i++) {
-            for (int j = 0; j < c; j++) {
-                int cIndex1 = j >= origin.getColumns() ? 0 : j;
-                int rIndex1 = i >= origin.getRows() ? 0 : i;
-                Double aValue = origin.getDouble(rIndex1, cIndex1);
-
-                int rIndex2 = target.getRows() == 1 ? 0 : i;
-                int cIndex2 = target.getColumns() == 1 ? 0 : j;
-                Double bValue = target.getDouble(rIndex2, cIndex2);
-
-                Double newValue = null;
-                if (symbol.equals(Symbol.ADDITION)) {
-                    newValue = aValue + bValue;
-                } else if (symbol.equals(Symbol.SUBTRACTION)) {
-                    newValue = aValue - bValue;
-                } else if (symbol.equals(Symbol.MULTIPLICATION)) {
-                    newValue = aValue * bValue;
-                } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
-                    newValue = aValue / bValue;
-                } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
-                    newValue = bValue / aValue;
+        Parallel.forRows(r, c, (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < c; j++) {
+                    int cIndex1 = j >= origin.getColumns() ? 0 : j;
+                    int rIndex1 = i >= origin.getRows() ? 0 : i;
+                    Double aValue = origin.getDouble(rIndex1, cIndex1);
+
+                    int rIndex2 = target.getRows() == 1 ? 0 : i;
+                    int cIndex2 = target.getColumns() == 1 ? 0 : j;
+                    Double bValue = target.getDouble(rIndex2, cIndex2);
+
+                    Double newValue = null;
+                    if (symbol.equals(Symbol.ADDITION)) {
+                        newValue = aValue + bValue;
+                    } else if (symbol.equals(Symbol.SUBTRACTION)) {
+                        newValue = aValue - bValue;
+                    } else if (symbol.equals(Symbol.MULTIPLICATION)) {
+                        newValue = aValue * bValue;
+                    } else if (symbol.equals(Symbol.DIVISION_RIGHT)) {
+                        newValue = aValue / bValue;
+                    } else if (symbol.equals(Symbol.DIVISION_LEFT)) {
+                        newValue = bValue / aValue;
+                    }
+
+                    result.set(i, j, newValue);
                 }
-
-                result.set(i, j, newValue);
             }
-        }
+        });
         return result;
     }
 
@@ -322,22 +523,268 @@ public class Matrices {
      *      5 6}
      * A * B = {[a1+b2+c3] [a2+b4+C6]
      *          [d1+e2+f3] [d2+e4+f6]}
+     *
+     * B 为列向量时按矩阵向量乘法（GEMV）逐行点积，A 为行向量时按向量矩阵乘法逐行累加，
+     * 两者都按行流式读取 A 或 B，不复制整个矩阵，行数较多时并行计算，结果仍为 NumberMatrix；
+     * 需要不装箱的基本类型向量结果时使用 {@link #mTimesVector} 和 {@link #vectorMTimes}。
+     * 有稀疏矩阵（SparseNumberMatrix）参与时按稀疏算法计算：稀疏乘稀疏结果仍为稀疏矩阵，
+     * 稀疏与稠密相乘结果为稠密的 NumberMatrix
      * @return
      */
     public static Matrix mTimes(Matrix origin, Matrix target){
-        NumberMatrix newMatrix = new NumberMatrix(origin.getRows(), target.getColumns());
-        for (int rowIndex = 0; rowIndex < origin.getRows(); rowIndex++) {
-            for (int columnIndex = 0; columnIndex < target.getColumns(); columnIndex++) {
-                double product = 0;
-                for (int i = 0; i < target.getRows(); i++) {
-                    double aCell = origin.getDouble(rowIndex, i);
-                    double bCell = target.getDouble(i, columnIndex);
-                    product += (aCell * bCell);
+        if (origin.getColumns() != target.getRows()) {
+            throw new IllegalArgumentException("矩阵内部维度必须一致！");
+        }
+        if (origin instanceof SparseNumberMatrix || target instanceof SparseNumberMatrix) {
+            return sparseTimes(origin, target);
+        }
+        if (target.getColumns() == 1) {
+            double[] product = gemv(origin, toVector(target));
+            NumberMatrix result = new NumberMatrix(product.length, 1);
+            Number[][] data = result.getData();
+            for (int i = 0; i < product.length; i++) {
+                data[i][0] = product[i];
+            }
+            return result;
+        }
+        if (origin.getRows() == 1) {
+            return new NumberMatrix(new double[][]{gevm(toVector(origin), target)});
+        }
+        double[][] product = Gemm.multiply(toDoubleArray(origin), toDoubleArray(target),
+                origin.getRows(), target.getColumns(), origin.getColumns());
+        return new NumberMatrix(product);
+    }
+
+    /**
+     * 矩阵向量乘法 y = A * x，结果为基本类型列向量
+     * 与 mTimes 的列向量情形算法相同，但结果直接存放在 double 数组中，不装箱
+     * @param matrix 矩阵 A
+     * @param vector 列向量 x，行数等于 A 的列数
+     * @return A 的行数 × 1 的 DoubleColumnMatrix
+     */
+    public static DoubleColumnMatrix mTimesVector(Matrix matrix, Matrix vector){
+        if (vector.getColumns() != 1) {
+            throw new IllegalArgumentException("第二个参数必须是列向量！");
+        }
+        if (matrix.getColumns() != vector.getRows()) {
+            throw new IllegalArgumentException("矩阵内部维度必须一致！");
+        }
+        return new DoubleColumnMatrix(gemv(matrix, toVector(vector)));
+    }
+
+    /**
+     * 向量矩阵乘法 y = x * A，结果为基本类型行向量
+     * 与 mTimes 的行向量情形算法相同，但结果直接存放在 double 数组中，不装箱
+     * @param vector 行向量 x，列数等于 A 的行数
+     * @param matrix 矩阵 A
+     * @return 1 × A 的列数的 DoubleRowMatrix
+     */
+    public static DoubleRowMatrix vectorMTimes(Matrix vector, Matrix matrix){
+        if (vector.getRows() != 1) {
+            throw new IllegalArgumentException("第一个参数必须是行向量！");
+        }
+        if (vector.getColumns() != matrix.getRows()) {
+            throw new IllegalArgumentException("矩阵内部维度必须一致！");
+        }
+        return new DoubleRowMatrix(gevm(toVector(vector), matrix));
+    }
+
+    /**
+     * 连乘 A1 * A2 * ... * An
+     * 按标量乘法次数最少的结合顺序计算（矩阵链动态规划），
+     * 行向量或列向量参与时会优先与其相乘，中间结果的数组在用完后复用
+     * @param matrices 一个或多个矩阵，相邻矩阵的内部维度必须一致
+     * @return 乘积矩阵
+     */
+    public static Matrix multiply(Matrix... matrices){
+        int count = matrices.length;
+        if (count == 0) {
+            throw new IllegalArgumentException("至少需要一个矩阵！");
+        }
+        int[] rows = new int[count];
+        int[] columns = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = matrices[i].getRows();
+            columns[i] = matrices[i].getColumns();
+            if (i > 0 && rows[i] != columns[i - 1]) {
+                throw new IllegalArgumentException("矩阵内部维度必须一致！");
+            }
+        }
+        int[] dimensions = Chain.dimensions(rows, columns);
+        double[][][] factors = new double[count][][];
+        for (int i = 0; i < count; i++) {
+            factors[i] = toDoubleArray(matrices[i]);
+        }
+        return new NumberMatrix(Chain.multiply(factors, dimensions));
+    }
+
+    /**
+     * 两组点之间的两两距离
+     * matlab: D = pdist2(A, B, metric)
+     * 按 ||a||² + ||b||² - 2ABᵀ 计算，ABᵀ 走矩阵乘法（GEMM）快速路径，
+     * 再逐行并行换算为距离；舍入误差造成的负平方距离截为 0，余弦距离截到 [0, 2]。
+     * 含零向量的余弦距离为 NaN
+     * @param origin 每行一个点的矩阵 A
+     * @param target 每行一个点的矩阵 B，列数与 A 相同
+     * @param metric 距离度量，见 {@link Metric}
+     * @return A 的行数 × B 的行数的 NumberMatrix，(i, j) 为 A 第 i 行到 B 第 j 行的距离
+     */
+    public static Matrix pairwiseDistances(Matrix origin, Matrix target, String metric){
+        int code = metric(metric);
+        if (origin.getColumns() != target.getColumns()) {
+            throw new IllegalArgumentException("矩阵列数必须一致！");
+        }
+        return new NumberMatrix(Distances.pairwise(toDoubleArray(origin), toDoubleArray(target),
+                origin.getRows(), target.getRows(), origin.getColumns(), code));
+    }
+
+    /**
+     * 两组点之间的两两距离，分块流式输出
+     * 按 tileRows × tileColumns 的块依次计算，每块算完交给回调，完整的距离矩阵从不生成；
+     * 回调收到的数组在下一块时复用，需要保留的结果必须自行复制
+     * @param origin 每行一个点的矩阵 A
+     * @param target 每行一个点的矩阵 B，列数与 A 相同
+     * @param metric 距离度量，见 {@link Metric}
+     * @param tileRows 每块包含 A 的行数
+     * @param tileColumns 每块包含 B 的行数
+     * @param tile 按块的行优先顺序接收每一块
+     */
+    public static void pairwiseDistances(Matrix origin, Matrix target, String metric,
+                                         int tileRows, int tileColumns, Distances.Tile tile){
+        int code = metric(metric);
+        if (origin.getColumns() != target.getColumns()) {
+            throw new IllegalArgumentException("矩阵列数必须一致！");
+        }
+        Distances.pairwise(toDoubleArray(origin), toDoubleArray(target),
+                origin.getRows(), target.getRows(), origin.getColumns(), code, tileRows, tileColumns, tile);
+    }
+
+    /**
+     * 转换为 double 二维数组
+     * 数值矩阵直接拆箱，其他矩阵逐个元素调用 getDouble 转换
+     * @param matrix 矩阵
+     * @return double 二维数组
+     */
+    public static double[][] toDoubleArray(Matrix matrix){
+        if (matrix instanceof NumberMatrix) {
+            return ((NumberMatrix) matrix).getDoubleArray();
+        }
+        if (matrix instanceof DoubleRowMatrix) {
+            return new double[][]{((DoubleRowMatrix) matrix).getValues().clone()};
+        }
+        if (matrix instanceof DoubleColumnMatrix) {
+            double[] values = ((DoubleColumnMatrix) matrix).getValues();
+            double[][] result = new double[values.length][1];
+            for (int i = 0; i < values.length; i++) {
+                result[i][0] = values[i];
+            }
+            return result;
+        }
+        if (matrix instanceof SparseNumberMatrix) {
+            return ((SparseNumberMatrix) matrix).getDoubleArray();
+        }
+        double[][] result = new double[matrix.getRows()][matrix.getColumns()];
+        Parallel.forRows(matrix.getRows(), matrix.getColumns(), (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < matrix.getColumns(); j++) {
+                    result[i][j] = matrix.getDouble(i, j);
                 }
-                newMatrix.set(rowIndex, columnIndex, product);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 稀疏矩阵乘法，至少一个乘数为 SparseNumberMatrix
+     * 稀疏乘稀疏用 Gustavson 算法（先统计每行非零元个数，再逐行累加），稀疏与稠密相乘按行并行
+     */
+    private static Matrix sparseTimes(Matrix origin, Matrix target){
+        if (origin instanceof SparseNumberMatrix && target instanceof SparseNumberMatrix) {
+            return new SparseNumberMatrix(((SparseNumberMatrix) origin).getSparse()
+                    .times(((SparseNumberMatrix) target).getSparse()));
+        }
+        if (origin instanceof SparseNumberMatrix) {
+            net.iuyy.jmat.jama.Matrix dense = new net.iuyy.jmat.jama.Matrix(toDoubleArray(target),
+                    target.getRows(), target.getColumns());
+            return new NumberMatrix(((SparseNumberMatrix) origin).getSparse().times(dense).getArray());
+        }
+        net.iuyy.jmat.jama.Matrix dense = new net.iuyy.jmat.jama.Matrix(toDoubleArray(origin),
+                origin.getRows(), origin.getColumns());
+        return new NumberMatrix(dense.times(((SparseNumberMatrix) target).getSparse()).getArray());
+    }
+
+    /**
+     * 取出行向量或列向量的全部元素
+     * @param vector 行数或列数为 1 的矩阵
+     * @return double 数组
+     */
+    private static double[] toVector(Matrix vector){
+        if (vector instanceof DoubleColumnMatrix) {
+            return ((DoubleColumnMatrix) vector).getValues();
+        }
+        if (vector instanceof DoubleRowMatrix) {
+            return ((DoubleRowMatrix) vector).getValues();
+        }
+        int length = vector.getRows() * vector.getColumns();
+        double[] result = new double[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = vector.getRows() == 1 ? vector.getDouble(0, i) : vector.getDouble(i, 0);
+        }
+        return result;
+    }
+
+    /**
+     * 把矩阵第 row 行的元素拆箱到 target 中
+     */
+    private static void getRow(Matrix matrix, int row, double[] target){
+        if (matrix instanceof NumberMatrix) {
+            Number[] cells = ((NumberMatrix) matrix).getData()[row];
+            for (int j = 0; j < target.length; j++) {
+                Number cell = cells[j];
+                target[j] = cell != null ? cell.doubleValue() : 0d;
+            }
+        } else {
+            for (int j = 0; j < target.length; j++) {
+                target[j] = matrix.getDouble(row, j);
             }
         }
-        return newMatrix;
+    }
+
+    /**
+     * 矩阵向量乘法 y = A * x，逐行点积，按行块并行
+     */
+    private static double[] gemv(Matrix matrix, double[] x){
+        int rows = matrix.getRows();
+        int columns = matrix.getColumns();
+        double[] y = new double[rows];
+        Parallel.forRows(rows, columns, (i0, i1) -> {
+            double[] row = new double[columns];
+            for (int i = i0; i < i1; i++) {
+                getRow(matrix, i, row);
+                y[i] = Kernels.dot(row, 0, x, 0, columns);
+            }
+        });
+        return y;
+    }
+
+    /**
+     * 向量矩阵乘法 y = x * A，每个行块累加到各自的部分和，再按固定顺序合并
+     */
+    private static double[] gevm(double[] x, Matrix matrix){
+        int rows = matrix.getRows();
+        int columns = matrix.getColumns();
+        return Parallel.reduce(rows, columns, (i0, i1) -> {
+            double[] partial = new double[columns];
+            double[] row = new double[columns];
+            for (int i = i0; i < i1; i++) {
+                getRow(matrix, i, row);
+                Kernels.axpy(x[i], row, 0, partial, 0, columns);
+            }
+            return partial;
+        }, (left, right) -> {
+            Kernels.add(left, right, left, columns);
+            return left;
+        });
     }
 
     /**
@@ -0,0 +1,104 @@
+package net.iuyy.jmat.jama.util;
+
+   /** Inner-loop primitives shared by the dense matrix code.
+   <P>
+   This is the Java 17 layer of the multi-release jar.  When the module
+   jdk.incubator.vector is in the boot layer (--add-modules
+   jdk.incubator.vector) the primitives run on the Vector API, otherwise
+   they run the portable scalar loops of the Java 8 layer.  Setting the
+   system property net.iuyy.jmat.vector to false forces the scalar loops.
+   Results of the vector kernels may differ from the scalar ones in the
+   last bits, because lanes are summed in a different order.
+   */
+
+public final class Kernels {
+
+   /** Rows of the register block computed by {@link #gemm}. **/
+   public static final int MR = 4;
+
+   /** Columns of the register block computed by {@link #gemm}. **/
+   public static final int NR = 8;
+
+   private static final boolean VECTOR =
+      ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+      && Boolean.parseBoolean(System.getProperty("net.iuyy.jmat.vector", "true"))
+      && VectorKernels.isSupported();
+
+   private Kernels () {}
+
+   public static boolean isVectorized () {
+      return VECTOR;
+   }
+
+   public static double dot (double[] x, int xo, double[] y, int yo, int n) {
+      return VECTOR ? VectorKernels.dot(x, xo, y, yo, n) : ScalarKernels.dot(x, xo, y, yo, n);
+   }
+
+   public static void axpy (double a, double[] x, int xo, double[] y, int yo, int n) {
+      if (VECTOR) {
+         VectorKernels.axpy(a, x, xo, y, yo, n);
+      } else {
+         ScalarKernels.axpy(a, x, xo, y, yo, n);
+      }
+   }
+
+   public static void add (double[] x, double[] y, double[] z, int n) {
+      if (VECTOR) {
+         VectorKernels.add(x, y, z, n);
+      } else {
+         ScalarKernels.add(x, y, z, n);
+      }
+   }
+
+   public static void subtract (double[] x, double[] y, double[] z, int n) {
+      if (VECTOR) {
+         VectorKernels.subtract(x, y, z, n);
+      } else {
+         ScalarKernels.subtract(x, y, z, n);
+      }
+   }
+
+   public static void multiply (double[] x, double[] y, double[] z, int n) {
+      if (VECTOR) {
+         VectorKernels.multiply(x, y, z, n);
+      } else {
+         ScalarKernels.multiply(x, y, z, n);
+      }
+   }
+
+   public static void divide (double[] x, double[] y, double[] z, int n) {
+      if (VECTOR) {
+         VectorKernels.divide(x, y, z, n);
+      } else {
+         ScalarKernels.divide(x, y, z, n);
+      }
+   }
+
+   public static void scale (double a, double[] x, double[] z, int n) {
+      if (VECTOR) {
+         VectorKernels.scale(a, x, z, n);
+      } else {
+         ScalarKernels.scale(a, x, z, n);
+      }
+   }
+
+   public static double sum (double[] x, int xo, int n) {
+      return VECTOR ? VectorKernels.sum(x, xo, n) : ScalarKernels.sum(x, xo, n);
+   }
+
+   public static void accumulate (double[] s, double[] c, double[] x, int n) {
+      if (VECTOR) {
+         VectorKernels.accumulate(s, c, x, n);
+      } else {
+         ScalarKernels.accumulate(s, c, x, n);
+      }
+   }
+
+   public static void gemm (int kc, double[] a, int ao, double[] b, int bo, double[] c, int co, int ldc) {
+      if (VECTOR) {
+         VectorKernels.gemm(kc, a, ao, b, bo, c, co, ldc);
+      } else {
+         ScalarKernels.gemm(kc, a, ao, b, bo, c, co, ldc);
+      }
+   }
+}
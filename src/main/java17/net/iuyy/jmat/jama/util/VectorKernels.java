@@ -0,0 +1,236 @@
+package net.iuyy.jmat.jama.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+   /** Vector API implementations of the {@link Kernels} primitives.
+   <P>
+   Only loaded when jdk.incubator.vector is present.  Loops run over whole
+   vectors of the preferred species and finish the tail with scalar code.
+   Multiply and add are kept separate rather than fused, so that hardware
+   without FMA does not fall back to the slow software Math.fma.
+   */
+
+final class VectorKernels {
+
+   private static final VectorSpecies<Double> S = DoubleVector.SPECIES_PREFERRED;
+
+   private static final int L = S.length();
+
+   private VectorKernels () {}
+
+   static boolean isSupported () {
+      return L >= 2;
+   }
+
+   static double dot (double[] x, int xo, double[] y, int yo, int n) {
+      DoubleVector acc = DoubleVector.zero(S);
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         DoubleVector vx = DoubleVector.fromArray(S, x, xo+i);
+         acc = acc.add(vx.mul(DoubleVector.fromArray(S, y, yo+i)));
+      }
+      double s = acc.reduceLanes(VectorOperators.ADD);
+      for (; i < n; i++) {
+         s += x[xo+i]*y[yo+i];
+      }
+      return s;
+   }
+
+   static void axpy (double a, double[] x, int xo, double[] y, int yo, int n) {
+      DoubleVector va = DoubleVector.broadcast(S, a);
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         DoubleVector vy = DoubleVector.fromArray(S, y, yo+i);
+         vy.add(va.mul(DoubleVector.fromArray(S, x, xo+i))).intoArray(y, yo+i);
+      }
+      for (; i < n; i++) {
+         y[yo+i] += a*x[xo+i];
+      }
+   }
+
+   static void add (double[] x, double[] y, double[] z, int n) {
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         DoubleVector.fromArray(S, x, i).add(DoubleVector.fromArray(S, y, i)).intoArray(z, i);
+      }
+      for (; i < n; i++) {
+         z[i] = x[i] + y[i];
+      }
+   }
+
+   static void subtract (double[] x, double[] y, double[] z, int n) {
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         DoubleVector.fromArray(S, x, i).sub(DoubleVector.fromArray(S, y, i)).intoArray(z, i);
+      }
+      for (; i < n; i++) {
+         z[i] = x[i] - y[i];
+      }
+   }
+
+   static void multiply (double[] x, double[] y, double[] z, int n) {
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         DoubleVector.fromArray(S, x, i).mul(DoubleVector.fromArray(S, y, i)).intoArray(z, i);
+      }
+      for (; i < n; i++) {
+         z[i] = x[i] * y[i];
+      }
+   }
+
+   static void divide (double[] x, double[] y, double[] z, int n) {
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         DoubleVector.fromArray(S, x, i).div(DoubleVector.fromArray(S, y, i)).intoArray(z, i);
+      }
+      for (; i < n; i++) {
+         z[i] = x[i] / y[i];
+      }
+   }
+
+   static void scale (double a, double[] x, double[] z, int n) {
+      DoubleVector va = DoubleVector.broadcast(S, a);
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         va.mul(DoubleVector.fromArray(S, x, i)).intoArray(z, i);
+      }
+      for (; i < n; i++) {
+         z[i] = a * x[i];
+      }
+   }
+
+   /** Lane-wise Neumaier summation, then a scalar Neumaier pass over the lanes. **/
+
+   static double sum (double[] x, int xo, int n) {
+      DoubleVector s = DoubleVector.zero(S);
+      DoubleVector c = DoubleVector.zero(S);
+      int i = 0;
+      for (int bound = S.loopBound(n); i < bound; i += L) {
+         DoubleVector v = DoubleVector.fromArray(S, x, xo+i);
+         DoubleVector t = s.add(v);
+         VectorMask<Double> big = s.abs().compare(VectorOperators.GE, v.abs());
+         DoubleVector small = v.sub(t).add(s);
+         c = c.add(s.sub(t).add(v).blend(small, big.not()));
+         s = t;
+      }
+      double[] sl = s.toArray();
+      double[] cl = c.toArray();
+      double ss = 0.0, cc = 0.0;
+      for (int k = 0; k < L; k++) {
+         double t = ss + sl[k];
+         if (Math.abs(ss) >= Math.abs(sl[k])) {
+            cc += (ss - t) + sl[k];
+         } else {
+            cc += (sl[k] - t) + ss;
+         }
+         ss = t;
+         cc += cl[k];
+      }
+      for (; i < n; i++) {
+         double v = x[xo+i];
+         double t = ss + v;
+         if (Math.abs(ss) >= Math.abs(v)) {
+            cc += (ss - t) + v;
+         } else {
+            cc += (v - t) + ss;
+         }
+         ss = t;
+      }
+      return ss + cc;
+   }
+
+   static void accumulate (double[] s, double[] c, double[] x, int n) {
+      int j = 0;
+      for (int bound = S.loopBound(n); j < bound; j += L) {
+         DoubleVector vs = DoubleVector.fromArray(S, s, j);
+         DoubleVector v = DoubleVector.fromArray(S, x, j);
+         DoubleVector t = vs.add(v);
+         VectorMask<Double> big = vs.abs().compare(VectorOperators.GE, v.abs());
+         DoubleVector small = v.sub(t).add(vs);
+         DoubleVector d = vs.sub(t).add(v).blend(small, big.not());
+         DoubleVector.fromArray(S, c, j).add(d).intoArray(c, j);
+         t.intoArray(s, j);
+      }
+      for (; j < n; j++) {
+         double v = x[j];
+         double t = s[j] + v;
+         if (Math.abs(s[j]) >= Math.abs(v)) {
+            c[j] += (s[j] - t) + v;
+         } else {
+            c[j] += (v - t) + s[j];
+         }
+         s[j] = t;
+      }
+   }
+
+   static void gemm (int kc, double[] a, int ao, double[] b, int bo, double[] c, int co, int ldc) {
+      if (L == 4) {
+         gemm4(kc, a, ao, b, bo, c, co, ldc);
+      } else if (L == 8) {
+         gemm8(kc, a, ao, b, bo, c, co, ldc);
+      } else {
+         ScalarKernels.gemm(kc, a, ao, b, bo, c, co, ldc);
+      }
+   }
+
+   /** 4x8 block as two 4-lane vectors per row. **/
+
+   private static void gemm4 (int kc, double[] a, int ao, double[] b, int bo, double[] c, int co, int ldc) {
+      DoubleVector c00 = DoubleVector.zero(S), c01 = DoubleVector.zero(S);
+      DoubleVector c10 = DoubleVector.zero(S), c11 = DoubleVector.zero(S);
+      DoubleVector c20 = DoubleVector.zero(S), c21 = DoubleVector.zero(S);
+      DoubleVector c30 = DoubleVector.zero(S), c31 = DoubleVector.zero(S);
+      for (int p = 0; p < kc; p++) {
+         int pa = ao + p*Kernels.MR;
+         int pb = bo + p*Kernels.NR;
+         DoubleVector b0 = DoubleVector.fromArray(S, b, pb);
+         DoubleVector b1 = DoubleVector.fromArray(S, b, pb+4);
+         DoubleVector a0 = DoubleVector.broadcast(S, a[pa]);
+         c00 = c00.add(a0.mul(b0));
+         c01 = c01.add(a0.mul(b1));
+         DoubleVector a1 = DoubleVector.broadcast(S, a[pa+1]);
+         c10 = c10.add(a1.mul(b0));
+         c11 = c11.add(a1.mul(b1));
+         DoubleVector a2 = DoubleVector.broadcast(S, a[pa+2]);
+         c20 = c20.add(a2.mul(b0));
+         c21 = c21.add(a2.mul(b1));
+         DoubleVector a3 = DoubleVector.broadcast(S, a[pa+3]);
+         c30 = c30.add(a3.mul(b0));
+         c31 = c31.add(a3.mul(b1));
+      }
+      store(c00, c, co);
+      store(c01, c, co+4);
+      store(c10, c, co+ldc);
+      store(c11, c, co+ldc+4);
+      store(c20, c, co+2*ldc);
+      store(c21, c, co+2*ldc+4);
+      store(c30, c, co+3*ldc);
+      store(c31, c, co+3*ldc+4);
+   }
+
+   /** 4x8 block as one 8-lane vector per row. **/
+
+   private static void gemm8 (int kc, double[] a, int ao, double[] b, int bo, double[] c, int co, int ldc) {
+      DoubleVector c0 = DoubleVector.zero(S), c1 = DoubleVector.zero(S);
+      DoubleVector c2 = DoubleVector.zero(S), c3 = DoubleVector.zero(S);
+      for (int p = 0; p < kc; p++) {
+         int pa = ao + p*Kernels.MR;
+         DoubleVector bp = DoubleVector.fromArray(S, b, bo + p*Kernels.NR);
+         c0 = c0.add(bp.mul(a[pa]));
+         c1 = c1.add(bp.mul(a[pa+1]));
+         c2 = c2.add(bp.mul(a[pa+2]));
+         c3 = c3.add(bp.mul(a[pa+3]));
+      }
+      store(c0, c, co);
+      store(c1, c, co+ldc);
+      store(c2, c, co+2*ldc);
+      store(c3, c, co+3*ldc);
+   }
+
+   private static void store (DoubleVector v, double[] c, int offset) {
+      DoubleVector.fromArray(S, c, offset).add(v).intoArray(c, offset);
+   }
+}
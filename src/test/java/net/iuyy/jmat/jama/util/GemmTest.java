@@ -0,0 +1,125 @@
+package net.iuyy.jmat.jama.util;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+   /** Products run from inside parallel work on the same pool.
+   <P>
+   A worker waiting for the tasks of one product may steal and run another
+   product, which packs into the thread-local buffers of that worker, so no
+   buffer shared with forked tasks may be thread-local.  With both
+   thresholds at zero every product forks, and each result must match the
+   serial product bit for bit.
+   */
+
+public class GemmTest {
+
+   /** Products per test, several per worker so that waiting workers steal. **/
+   private static final int COUNT = 640;
+
+   private ForkJoinPool pool, savedPool;
+   private long savedGemm, savedParallel;
+
+   private final SplittableRandom random = new SplittableRandom(42);
+
+   @Before
+   public void setUp () {
+      savedPool = Parallel.getPool();
+      savedGemm = Gemm.getThreshold();
+      savedParallel = Parallel.getThreshold();
+      pool = new ForkJoinPool(8);
+   }
+
+   @After
+   public void tearDown () {
+      Parallel.setPool(savedPool);
+      Gemm.setThreshold(savedGemm);
+      Parallel.setThreshold(savedParallel);
+      pool.shutdown();
+   }
+
+/* ------------------------
+   Tests
+ * ------------------------ */
+
+   @Test
+   public void syrkInsideParallelRows () {
+      final double[][][] A = new double[COUNT][][];
+      final double[][][] expected = new double[COUNT][][];
+      for (int t = 0; t < COUNT; t++) {
+         // Deeper than one packed panel, so the panel is repacked during a call.
+         int k = Gemm.KC + 1 + random.nextInt(120), n = 64 + random.nextInt(64);
+         A[t] = matrix(k, n);
+         expected[t] = new double[n][n];
+         Gemm.syrk(1.0, A[t], 0, 0, expected[t], 0, 0, n, k);
+      }
+      final double[][][] actual = new double[COUNT][][];
+      runNested(COUNT, (i0, i1) -> {
+         for (int t = i0; t < i1; t++) {
+            int k = A[t].length, n = A[t][0].length;
+            actual[t] = new double[n][n];
+            Gemm.syrk(1.0, A[t], 0, 0, actual[t], 0, 0, n, k);
+         }
+      });
+      for (int t = 0; t < COUNT; t++) {
+         int n = expected[t].length;
+         for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+               assertEquals(expected[t][i][j], actual[t][i][j], 0.0);
+            }
+         }
+      }
+   }
+
+   @Test
+   public void gemmInsideParallelRows () {
+      final double[][][] A = new double[COUNT][][], B = new double[COUNT][][];
+      final double[][][] expected = new double[COUNT][][];
+      for (int t = 0; t < COUNT; t++) {
+         int m = 40 + random.nextInt(40), n = 40 + random.nextInt(40), k = 40 + random.nextInt(40);
+         A[t] = matrix(m, k);
+         B[t] = matrix(k, n);
+         expected[t] = Gemm.multiply(A[t], B[t], m, n, k);
+      }
+      final double[][][] actual = new double[COUNT][][];
+      runNested(COUNT, (i0, i1) -> {
+         for (int t = i0; t < i1; t++) {
+            actual[t] = Gemm.multiply(A[t], B[t], A[t].length, B[t][0].length, B[t].length);
+         }
+      });
+      for (int t = 0; t < COUNT; t++) {
+         for (int i = 0; i < expected[t].length; i++) {
+            assertArrayEquals(expected[t][i], actual[t][i], 0.0);
+         }
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Run body over [0, count) one row per block, with every product in it forking. **/
+
+   private void runNested (int count, Parallel.Rows body) {
+      Parallel.setPool(pool);
+      Gemm.setThreshold(0);
+      Parallel.setThreshold(0);
+      Parallel.forRows(count, Parallel.GRAIN, body);
+   }
+
+   private double[][] matrix (int m, int n) {
+      double[][] A = new double[m][n];
+      for (int i = 0; i < m; i++) {
+         for (int j = 0; j < n; j++) {
+            A[i][j] = 2.0 * random.nextDouble() - 1.0;
+         }
+      }
+      return A;
+   }
+}
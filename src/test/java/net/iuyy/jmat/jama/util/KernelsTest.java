@@ -0,0 +1,221 @@
+package net.iuyy.jmat.jama.util;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+   /** Equivalence of {@link Kernels} with the reference {@link ScalarKernels}.
+   <P>
+   On Java 17 and later the tests run against the Vector API layer of the
+   multi-release jar.  Element-wise kernels, axpy, accumulate and the GEMM
+   micro-kernel do the same floating point operations in the same order as
+   the scalar loops and must agree bit for bit; dot and sum add the lanes
+   in a different order and must agree to within rounding.  Lengths cover
+   every tail up to several vector lengths, and odd offsets.
+   */
+
+public class KernelsTest {
+
+   private static final double EPS = Math.ulp(1.0);
+
+   /** Lengths below, at and above multiples of every vector length. **/
+   private static final int[] LENGTHS = lengths();
+
+   private final SplittableRandom random = new SplittableRandom(42);
+
+/* ------------------------
+   Tests
+ * ------------------------ */
+
+   /** The java17 build profile sets net.iuyy.jmat.test.java17 when it puts that layer first. **/
+
+   @Test
+   public void vectorLayerIsInUse () {
+      assumeTrue(Boolean.getBoolean("net.iuyy.jmat.test.java17"));
+      assertTrue(Kernels.isVectorized());
+   }
+
+   @Test
+   public void dot () {
+      for (int n : LENGTHS) {
+         for (int special = 0; special < 4; special++) {
+            double[] x = vector(n + 3, special), y = vector(n + 5, special == 3 ? 0 : special);
+            double bound = 0.0;
+            for (int i = 0; i < n; i++) {
+               bound += Math.abs(x[3+i]*y[5+i]);
+            }
+            assertClose(ScalarKernels.dot(x, 3, y, 5, n), Kernels.dot(x, 3, y, 5, n), 2*n*EPS*bound);
+         }
+      }
+   }
+
+   @Test
+   public void axpy () {
+      for (int n : LENGTHS) {
+         for (int special = 0; special < 4; special++) {
+            double[] x = vector(n + 1, special), y = vector(n + 2, 0);
+            double[] expected = y.clone(), actual = y.clone();
+            ScalarKernels.axpy(-0.75, x, 1, expected, 2, n);
+            Kernels.axpy(-0.75, x, 1, actual, 2, n);
+            assertArrayEquals(expected, actual, 0.0);
+         }
+      }
+   }
+
+   @Test
+   public void elementwise () {
+      for (int n : LENGTHS) {
+         for (int special = 0; special < 4; special++) {
+            double[] x = vector(n, special), y = vector(n, special == 3 ? 0 : special);
+            double[] expected = new double[n], actual = new double[n];
+            ScalarKernels.add(x, y, expected, n);
+            Kernels.add(x, y, actual, n);
+            assertArrayEquals(expected, actual, 0.0);
+            ScalarKernels.subtract(x, y, expected, n);
+            Kernels.subtract(x, y, actual, n);
+            assertArrayEquals(expected, actual, 0.0);
+            ScalarKernels.multiply(x, y, expected, n);
+            Kernels.multiply(x, y, actual, n);
+            assertArrayEquals(expected, actual, 0.0);
+            ScalarKernels.divide(x, y, expected, n);
+            Kernels.divide(x, y, actual, n);
+            assertArrayEquals(expected, actual, 0.0);
+            ScalarKernels.scale(3.5, x, expected, n);
+            Kernels.scale(3.5, x, actual, n);
+            assertArrayEquals(expected, actual, 0.0);
+         }
+      }
+   }
+
+   @Test
+   public void elementwiseInPlace () {
+      for (int n : LENGTHS) {
+         double[] x = vector(n, 0), y = vector(n, 0);
+         double[] expected = x.clone(), actual = x.clone();
+         ScalarKernels.subtract(expected, y, expected, n);
+         Kernels.subtract(actual, y, actual, n);
+         assertArrayEquals(expected, actual, 0.0);
+         ScalarKernels.scale(-2.0, expected, expected, n);
+         Kernels.scale(-2.0, actual, actual, n);
+         assertArrayEquals(expected, actual, 0.0);
+      }
+   }
+
+   @Test
+   public void sum () {
+      for (int n : LENGTHS) {
+         for (int special = 0; special < 4; special++) {
+            double[] x = vector(n + 7, special);
+            double bound = 0.0;
+            for (int i = 0; i < n; i++) {
+               bound += Math.abs(x[7+i]);
+            }
+            assertClose(ScalarKernels.sum(x, 7, n), Kernels.sum(x, 7, n), 4*EPS*bound);
+         }
+      }
+   }
+
+   @Test
+   public void sumIsCompensated () {
+      // 1 + n*1e-17 - 1 is 0 without compensation.
+      for (int n : LENGTHS) {
+         double[] x = new double[n + 2];
+         x[0] = 1.0;
+         for (int i = 1; i <= n; i++) {
+            x[i] = 1e-17;
+         }
+         x[n+1] = -1.0;
+         assertEquals(n*1e-17, Kernels.sum(x, 0, n + 2), 1e-6*n*1e-17);
+      }
+   }
+
+   @Test
+   public void accumulate () {
+      for (int n : LENGTHS) {
+         for (int special = 0; special < 4; special++) {
+            double[] s = vector(n, 0), c = new double[n];
+            double[] es = s.clone(), ec = c.clone();
+            for (int k = 0; k < 3; k++) {
+               double[] x = vector(n, k == 1 ? special : 0);
+               ScalarKernels.accumulate(es, ec, x, n);
+               Kernels.accumulate(s, c, x, n);
+            }
+            assertArrayEquals(es, s, 0.0);
+            assertArrayEquals(ec, c, 0.0);
+         }
+      }
+   }
+
+   @Test
+   public void gemm () {
+      final int mr = Kernels.MR, nr = Kernels.NR;
+      for (int kc : new int[] {0, 1, 2, 3, 7, 64, 129, 256}) {
+         for (int special = 0; special < 4; special++) {
+            double[] a = vector(1 + kc*mr, special), b = vector(3 + kc*nr, 0);
+            int ldc = nr + 5, co = 2;
+            double[] c = vector(co + mr*ldc, 0);
+            double[] expected = c.clone(), actual = c.clone();
+            ScalarKernels.gemm(kc, a, 1, b, 3, expected, co, ldc);
+            Kernels.gemm(kc, a, 1, b, 3, actual, co, ldc);
+            assertArrayEquals(expected, actual, 0.0);
+         }
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   private static int[] lengths () {
+      int[] n = new int[70];
+      for (int i = 0; i < 67; i++) {
+         n[i] = i;
+      }
+      n[67] = 1000;
+      n[68] = 1023;
+      n[69] = 1031;
+      return n;
+   }
+
+   /** Random elements in [-1, 1); special 1 adds a NaN, 2 an Inf and 3 both infinities. **/
+
+   private double[] vector (int n, int special) {
+      double[] x = new double[n];
+      for (int i = 0; i < n; i++) {
+         x[i] = 2.0 * random.nextDouble() - 1.0;
+      }
+      if (n > 0) {
+         // The last element lands in the scalar tail of most lengths.
+         int i = random.nextInt(n);
+         switch (special) {
+            case 1:
+               x[i] = Double.NaN;
+               break;
+            case 2:
+               x[i] = Double.POSITIVE_INFINITY;
+               x[n-1] = Double.POSITIVE_INFINITY;
+               break;
+            case 3:
+               x[i] = Double.POSITIVE_INFINITY;
+               x[n-1] = Double.NEGATIVE_INFINITY;
+               break;
+            default:
+         }
+      }
+      return x;
+   }
+
+   /** NaN and infinite results must match exactly, finite ones to within bound. **/
+
+   private static void assertClose (double expected, double actual, double bound) {
+      if (Double.isNaN(expected) || Double.isInfinite(expected)) {
+         assertEquals(expected, actual, 0.0);
+      } else {
+         assertFalse(Double.isNaN(actual) || Double.isInfinite(actual));
+         assertEquals(expected, actual, bound);
+      }
+   }
+}